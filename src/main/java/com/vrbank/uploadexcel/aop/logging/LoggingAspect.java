@@ -1,30 +1,55 @@
 package com.vrbank.uploadexcel.aop.logging;
 
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.web.multipart.MultipartFile;
 import tech.jhipster.config.JHipsterConstants;
 
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * By default, it only runs with the "dev" profile. In timing mode, it records the latency of each method in the
+ * method.latency timer instead of logging its calls. Methods marked with {@link NoLogging} are left out.
  */
 @Aspect
 public class LoggingAspect {
 
+    private static final String TIMER_NAME = "method.latency";
+
     private final Environment env;
+    private final ApplicationProperties.LoggingAspect.Mode mode;
+    private final int sampleRate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
 
-    public LoggingAspect(Environment env) {
+    /**
+     * @param meterRegistry registry of the method timers, without which the aspect logs rather than times
+     */
+    public LoggingAspect(Environment env, ApplicationProperties.LoggingAspect properties, MeterRegistry meterRegistry) {
         this.env = env;
+        this.mode = meterRegistry != null ? properties.getMode() : ApplicationProperties.LoggingAspect.Mode.LOG;
+        this.sampleRate = Math.max(1, properties.getSampleRate());
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -51,6 +76,16 @@ public class LoggingAspect {
         // Method is empty as this is just a Pointcut, the implementations are in the advices.
     }
 
+    /**
+     * Pointcut that matches the methods and beans opted out with {@link NoLogging}.
+     */
+    @Pointcut(
+        "@annotation(com.vrbank.uploadexcel.aop.logging.NoLogging) || @within(com.vrbank.uploadexcel.aop.logging.NoLogging)"
+    )
+    public void noLoggingPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
     /**
      * Retrieves the {@link Logger} associated to the given {@link JoinPoint}.
      *
@@ -67,7 +102,7 @@ public class LoggingAspect {
      * @param joinPoint join point for advice.
      * @param e exception.
      */
-    @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut()", throwing = "e")
+    @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut() && !noLoggingPointcut()", throwing = "e")
     public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
         if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
             logger(joinPoint).error(
@@ -93,21 +128,66 @@ public class LoggingAspect {
      * @return result.
      * @throws Throwable throws {@link IllegalArgumentException}.
      */
-    @Around("applicationPackagePointcut() && springBeanPointcut()")
+    @Around("applicationPackagePointcut() && springBeanPointcut() && !noLoggingPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (mode == ApplicationProperties.LoggingAspect.Mode.TIMING) {
+            return timeAround(joinPoint);
+        }
         Logger log = logger(joinPoint);
-        if (log.isDebugEnabled()) {
-            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+        // Only one call out of sampleRate is logged
+        boolean logged = log.isDebugEnabled() && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0);
+        if (logged) {
+            log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), describe(joinPoint.getArgs()));
         }
         try {
             Object result = joinPoint.proceed();
-            if (log.isDebugEnabled()) {
+            if (logged) {
                 log.debug("Exit: {}() with result = {}", joinPoint.getSignature().getName(), result);
             }
             return result;
         } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), joinPoint.getSignature().getName());
+            log.error("Illegal argument: {} in {}()", describe(joinPoint.getArgs()), joinPoint.getSignature().getName());
             throw e;
         }
     }
+
+    /**
+     * Record the latency of the method, failed calls included.
+     */
+    private Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        long startNanos = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer(joinPoint).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(JoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return timers.computeIfAbsent(method, m ->
+            Timer.builder(TIMER_NAME)
+                .description("Latency of the service, repository and REST methods")
+                .tag("class", m.getDeclaringClass().getSimpleName())
+                .tag("method", m.getName())
+                .register(meterRegistry)
+        );
+    }
+
+    /**
+     * Arguments as logged: an uploaded file is shown by its name and size rather than by its content holder.
+     */
+    private static String describe(Object[] args) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (Object arg : args) {
+            if (arg instanceof MultipartFile file) {
+                joiner.add("MultipartFile[" + file.getOriginalFilename() + ", " + file.getSize() + " bytes]");
+            } else if (arg instanceof Object[] array) {
+                joiner.add(Arrays.toString(array));
+            } else {
+                joiner.add(String.valueOf(arg));
+            }
+        }
+        return joiner.toString();
+    }
 }
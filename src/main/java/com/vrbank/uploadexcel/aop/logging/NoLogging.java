@@ -0,0 +1,17 @@
+package com.vrbank.uploadexcel.aop.logging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the beans, or methods, left out of the {@link LoggingAspect}, typically those called for every row of an
+ * upload, whose calls would otherwise each go through the advice.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface NoLogging {
+}
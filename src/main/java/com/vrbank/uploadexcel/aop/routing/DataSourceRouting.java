@@ -0,0 +1,95 @@
+package com.vrbank.uploadexcel.aop.routing;
+
+/**
+ * Marks of the database work the current thread does, from which the routing DataSource chooses the connection pool.
+ *
+ * The marks are set by the {@link DataSourceRoutingAspect} around the methods of the {@link UsesUploadPool} and
+ * {@link UsesReadReplica} beans. They are thread-bound: work handed to an executor keeps them when the executor
+ * decorates its tasks with {@link #propagate(Runnable)}.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> UPLOAD_WORK = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> READ_REPLICA = new ThreadLocal<>();
+
+    private DataSourceRouting() {}
+
+    /**
+     * Mark the current thread as doing upload work
+     *
+     * @return whether it already was, to be given back to {@link #exitUploadWork(boolean)}
+     */
+    public static boolean enterUploadWork() {
+        return enter(UPLOAD_WORK);
+    }
+
+    /**
+     * Restore the mark of the current thread
+     *
+     * @param wasUploadWork the value returned by the matching {@link #enterUploadWork()}
+     */
+    public static void exitUploadWork(boolean wasUploadWork) {
+        exit(UPLOAD_WORK, wasUploadWork);
+    }
+
+    public static boolean isUploadWork() {
+        return UPLOAD_WORK.get() != null;
+    }
+
+    /**
+     * Mark the current thread as reading from the read replica
+     *
+     * @return whether it already was, to be given back to {@link #exitReadReplica(boolean)}
+     */
+    public static boolean enterReadReplica() {
+        return enter(READ_REPLICA);
+    }
+
+    /**
+     * Restore the mark of the current thread
+     *
+     * @param wasReadReplica the value returned by the matching {@link #enterReadReplica()}
+     */
+    public static void exitReadReplica(boolean wasReadReplica) {
+        exit(READ_REPLICA, wasReadReplica);
+    }
+
+    public static boolean isReadReplica() {
+        return READ_REPLICA.get() != null;
+    }
+
+    /**
+     * Wrap a task so that it runs with the marks of the current thread, whichever thread runs it
+     * Meant as the {@link org.springframework.core.task.TaskDecorator} of the executors the upload work is handed to.
+     */
+    public static Runnable propagate(Runnable task) {
+        boolean uploadWork = isUploadWork();
+        boolean readReplica = isReadReplica();
+        if (!uploadWork && !readReplica) {
+            return task;
+        }
+        return () -> {
+            // A mark that is not carried over is reported as already there, so that exiting leaves it alone
+            boolean wasUploadWork = uploadWork ? enterUploadWork() : true;
+            boolean wasReadReplica = readReplica ? enterReadReplica() : true;
+            try {
+                task.run();
+            } finally {
+                exitUploadWork(wasUploadWork);
+                exitReadReplica(wasReadReplica);
+            }
+        };
+    }
+
+    private static boolean enter(ThreadLocal<Boolean> mark) {
+        boolean wasMarked = mark.get() != null;
+        mark.set(Boolean.TRUE);
+        return wasMarked;
+    }
+
+    private static void exit(ThreadLocal<Boolean> mark, boolean wasMarked) {
+        if (!wasMarked) {
+            mark.remove();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.vrbank.uploadexcel.aop.routing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Aspect routing the database work of the {@link UsesUploadPool} and {@link UsesReadReplica} beans to their
+ * connection pools.
+ *
+ * It runs before the transaction interceptor, so that the connection of a transaction started by such a bean comes
+ * from the same pool.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DataSourceRoutingAspect {
+
+    /**
+     * Advice that marks the current thread as doing upload work while the method runs.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception of the method.
+     */
+    @Around(
+        "@within(com.vrbank.uploadexcel.aop.routing.UsesUploadPool)" +
+        " || @annotation(com.vrbank.uploadexcel.aop.routing.UsesUploadPool)"
+    )
+    public Object useUploadPool(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean wasUploadWork = DataSourceRouting.enterUploadWork();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRouting.exitUploadWork(wasUploadWork);
+        }
+    }
+
+    /**
+     * Advice that marks the current thread as reading from the read replica while the method runs.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the exception of the method.
+     */
+    @Around(
+        "@within(com.vrbank.uploadexcel.aop.routing.UsesReadReplica)" +
+        " || @annotation(com.vrbank.uploadexcel.aop.routing.UsesReadReplica)"
+    )
+    public Object useReadReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean wasReadReplica = DataSourceRouting.enterReadReplica();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRouting.exitReadReplica(wasReadReplica);
+        }
+    }
+}
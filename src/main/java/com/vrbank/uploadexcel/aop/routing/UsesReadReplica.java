@@ -0,0 +1,21 @@
+package com.vrbank.uploadexcel.aop.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the beans, or methods, whose queries may read from the read replica.
+ *
+ * Only for reads that can tolerate the replication lag. Inside a transaction already holding a connection, the
+ * queries keep using that connection.
+ *
+ * @see DataSourceRoutingAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface UsesReadReplica {
+}
@@ -0,0 +1,18 @@
+package com.vrbank.uploadexcel.aop.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the beans, or methods, whose database work runs on the connection pool of the upload pipeline.
+ *
+ * @see DataSourceRoutingAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface UsesUploadPool {
+}
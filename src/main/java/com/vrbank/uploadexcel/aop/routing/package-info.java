@@ -0,0 +1,4 @@
+/**
+ * DataSource routing aspect and the routing marks it sets.
+ */
+package com.vrbank.uploadexcel.aop.routing;
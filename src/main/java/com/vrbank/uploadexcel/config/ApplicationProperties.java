@@ -1,5 +1,9 @@
 package com.vrbank.uploadexcel.config;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -13,12 +17,24 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Upload upload = new Upload();
+
+    private final LoggingAspect loggingAspect = new LoggingAspect();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Upload getUpload() {
+        return upload;
+    }
+
+    public LoggingAspect getLoggingAspect() {
+        return loggingAspect;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +49,1033 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    /**
+     * Settings of the aspect logging the calls of the service, repository and REST beans.
+     */
+    public static class LoggingAspect {
+
+        /**
+         * What the aspect does with each call: log it, or time it into Micrometer.
+         */
+        public enum Mode {
+            LOG,
+            TIMING,
+        }
+
+        private Mode mode = Mode.LOG;
+
+        /**
+         * Log one call out of this many, 1 logging every call.
+         */
+        private int sampleRate = 1;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    /**
+     * Settings for the Excel upload pipeline.
+     */
+    public static class Upload {
+
+        /**
+         * Currency codes accepted without a warning by the format validation.
+         */
+        private List<String> supportedCurrencies = new ArrayList<>(List.of("VND", "USD", "EUR", "JPY", "GBP", "AUD", "SGD"));
+
+        /**
+         * Directory where uploaded files are spooled while they are processed.
+         */
+        private String tempDirectory = System.getProperty("java.io.tmpdir") + "/excel-uploads";
+
+        /**
+         * How long the rows of a dry-run validation stay available for the real upload of the same file.
+         */
+        private long validationCacheTtlSeconds = 300;
+
+        /**
+         * Maximum number of validated files kept in memory.
+         */
+        private long validationCacheMaxEntries = 20;
+
+        private long reservationTtlSeconds = 1800;
+
+        /**
+         * Reading a sheet stops after this many consecutive rows without values.
+         */
+        private int maxConsecutiveEmptyRows = 500;
+
+        private int maxRowsPerBatch = 10000;
+
+        /**
+         * Split files with more rows than maxRowsPerBatch into sub-batches, instead of ignoring the extra rows.
+         */
+        private boolean shardOversizedFiles = false;
+
+        /**
+         * Number of sub-batches validated and saved at the same time.
+         */
+        private int shardParallelism = 4;
+
+        /**
+         * Check accounts with a few set-based statements over a staging table, instead of one lookup per row.
+         */
+        private boolean stagedValidation = false;
+
+        private final Admission admission = new Admission();
+
+        private final Jobs jobs = new Jobs();
+
+        private final MasterIndex masterIndex = new MasterIndex();
+
+        private final AccountCache accountCache = new AccountCache();
+
+        private final QueryLimiter queryLimiter = new QueryLimiter();
+
+        private final Bulkhead bulkhead = new Bulkhead();
+
+        private final ReadReplica readReplica = new ReadReplica();
+
+        private final Archival archival = new Archival();
+
+        private final Deadline deadline = new Deadline();
+
+        private final RowLogging rowLogging = new RowLogging();
+
+        private final FlightRecorder flightRecorder = new FlightRecorder();
+
+        private final Posting posting = new Posting();
+
+        public List<String> getSupportedCurrencies() {
+            return supportedCurrencies;
+        }
+
+        public void setSupportedCurrencies(List<String> supportedCurrencies) {
+            this.supportedCurrencies = supportedCurrencies;
+        }
+
+        public String getTempDirectory() {
+            return tempDirectory;
+        }
+
+        public void setTempDirectory(String tempDirectory) {
+            this.tempDirectory = tempDirectory;
+        }
+
+        public long getValidationCacheTtlSeconds() {
+            return validationCacheTtlSeconds;
+        }
+
+        public void setValidationCacheTtlSeconds(long validationCacheTtlSeconds) {
+            this.validationCacheTtlSeconds = validationCacheTtlSeconds;
+        }
+
+        public long getValidationCacheMaxEntries() {
+            return validationCacheMaxEntries;
+        }
+
+        public void setValidationCacheMaxEntries(long validationCacheMaxEntries) {
+            this.validationCacheMaxEntries = validationCacheMaxEntries;
+        }
+
+        public long getReservationTtlSeconds() {
+            return reservationTtlSeconds;
+        }
+
+        public void setReservationTtlSeconds(long reservationTtlSeconds) {
+            this.reservationTtlSeconds = reservationTtlSeconds;
+        }
+
+        public int getMaxConsecutiveEmptyRows() {
+            return maxConsecutiveEmptyRows;
+        }
+
+        public void setMaxConsecutiveEmptyRows(int maxConsecutiveEmptyRows) {
+            this.maxConsecutiveEmptyRows = maxConsecutiveEmptyRows;
+        }
+
+        public int getMaxRowsPerBatch() {
+            return maxRowsPerBatch;
+        }
+
+        public void setMaxRowsPerBatch(int maxRowsPerBatch) {
+            this.maxRowsPerBatch = maxRowsPerBatch;
+        }
+
+        public boolean isShardOversizedFiles() {
+            return shardOversizedFiles;
+        }
+
+        public void setShardOversizedFiles(boolean shardOversizedFiles) {
+            this.shardOversizedFiles = shardOversizedFiles;
+        }
+
+        public int getShardParallelism() {
+            return shardParallelism;
+        }
+
+        public void setShardParallelism(int shardParallelism) {
+            this.shardParallelism = shardParallelism;
+        }
+
+        public boolean isStagedValidation() {
+            return stagedValidation;
+        }
+
+        public void setStagedValidation(boolean stagedValidation) {
+            this.stagedValidation = stagedValidation;
+        }
+
+        public Admission getAdmission() {
+            return admission;
+        }
+
+        public Jobs getJobs() {
+            return jobs;
+        }
+
+        public MasterIndex getMasterIndex() {
+            return masterIndex;
+        }
+
+        public AccountCache getAccountCache() {
+            return accountCache;
+        }
+
+        public QueryLimiter getQueryLimiter() {
+            return queryLimiter;
+        }
+
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        public ReadReplica getReadReplica() {
+            return readReplica;
+        }
+
+        public Archival getArchival() {
+            return archival;
+        }
+
+        public Deadline getDeadline() {
+            return deadline;
+        }
+
+        public RowLogging getRowLogging() {
+            return rowLogging;
+        }
+
+        public FlightRecorder getFlightRecorder() {
+            return flightRecorder;
+        }
+
+        public Posting getPosting() {
+            return posting;
+        }
+
+        /**
+         * Limits applied before an upload is processed.
+         */
+        public static class Admission {
+
+            private int maxConcurrentUploads = 4;
+
+            private int maxConcurrentPerBranch = 2;
+
+            /**
+             * Total size of the files processed at the same time.
+             */
+            private long maxInFlightBytes = 100L * 1024 * 1024;
+
+            private int maxQueueLength = 20;
+
+            private long maxQueueWaitSeconds = 30;
+
+            /**
+             * Value of the Retry-After header sent with rejected uploads.
+             */
+            private long retryAfterSeconds = 60;
+
+            public int getMaxConcurrentUploads() {
+                return maxConcurrentUploads;
+            }
+
+            public void setMaxConcurrentUploads(int maxConcurrentUploads) {
+                this.maxConcurrentUploads = maxConcurrentUploads;
+            }
+
+            public int getMaxConcurrentPerBranch() {
+                return maxConcurrentPerBranch;
+            }
+
+            public void setMaxConcurrentPerBranch(int maxConcurrentPerBranch) {
+                this.maxConcurrentPerBranch = maxConcurrentPerBranch;
+            }
+
+            public long getMaxInFlightBytes() {
+                return maxInFlightBytes;
+            }
+
+            public void setMaxInFlightBytes(long maxInFlightBytes) {
+                this.maxInFlightBytes = maxInFlightBytes;
+            }
+
+            public int getMaxQueueLength() {
+                return maxQueueLength;
+            }
+
+            public void setMaxQueueLength(int maxQueueLength) {
+                this.maxQueueLength = maxQueueLength;
+            }
+
+            public long getMaxQueueWaitSeconds() {
+                return maxQueueWaitSeconds;
+            }
+
+            public void setMaxQueueWaitSeconds(long maxQueueWaitSeconds) {
+                this.maxQueueWaitSeconds = maxQueueWaitSeconds;
+            }
+
+            public long getRetryAfterSeconds() {
+                return retryAfterSeconds;
+            }
+
+            public void setRetryAfterSeconds(long retryAfterSeconds) {
+                this.retryAfterSeconds = retryAfterSeconds;
+            }
+        }
+
+        /**
+         * Uploads queued in the database and processed by any node.
+         */
+        public static class Jobs {
+
+            private boolean enabled = true;
+
+            /**
+             * Directory shared by all nodes, holding the files of queued jobs.
+             */
+            private String storageDirectory = System.getProperty("java.io.tmpdir") + "/excel-upload-jobs";
+
+            private int workerThreads = 2;
+
+            private long pollIntervalMs = 2000;
+
+            private long heartbeatIntervalMs = 15000;
+
+            /**
+             * A running job whose node has not sent a heartbeat for this long is queued again.
+             */
+            private long heartbeatStaleSeconds = 120;
+
+            private int maxAttempts = 3;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getStorageDirectory() {
+                return storageDirectory;
+            }
+
+            public void setStorageDirectory(String storageDirectory) {
+                this.storageDirectory = storageDirectory;
+            }
+
+            public int getWorkerThreads() {
+                return workerThreads;
+            }
+
+            public void setWorkerThreads(int workerThreads) {
+                this.workerThreads = workerThreads;
+            }
+
+            public long getPollIntervalMs() {
+                return pollIntervalMs;
+            }
+
+            public void setPollIntervalMs(long pollIntervalMs) {
+                this.pollIntervalMs = pollIntervalMs;
+            }
+
+            public long getHeartbeatIntervalMs() {
+                return heartbeatIntervalMs;
+            }
+
+            public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+                this.heartbeatIntervalMs = heartbeatIntervalMs;
+            }
+
+            public long getHeartbeatStaleSeconds() {
+                return heartbeatStaleSeconds;
+            }
+
+            public void setHeartbeatStaleSeconds(long heartbeatStaleSeconds) {
+                this.heartbeatStaleSeconds = heartbeatStaleSeconds;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+        }
+
+        /**
+         * In-process index of the account, customer and GL masters, answering account checks without a database round trip.
+         */
+        public static class MasterIndex {
+
+            private boolean enabled = false;
+
+            private long refreshIntervalMs = 300000;
+
+            /**
+             * Column of the master tables holding the time a row last changed, used to refresh only changed rows.
+             * When empty, every refresh reloads the whole index.
+             */
+            private String changeColumn;
+
+            /**
+             * Full reload, which also drops rows deleted from the master tables.
+             */
+            private String fullReloadCron = "0 30 2 * * ?";
+
+            private int fetchSize = 5000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getRefreshIntervalMs() {
+                return refreshIntervalMs;
+            }
+
+            public void setRefreshIntervalMs(long refreshIntervalMs) {
+                this.refreshIntervalMs = refreshIntervalMs;
+            }
+
+            public String getChangeColumn() {
+                return changeColumn;
+            }
+
+            public void setChangeColumn(String changeColumn) {
+                this.changeColumn = changeColumn;
+            }
+
+            public String getFullReloadCron() {
+                return fullReloadCron;
+            }
+
+            public void setFullReloadCron(String fullReloadCron) {
+                this.fullReloadCron = fullReloadCron;
+            }
+
+            public int getFetchSize() {
+                return fetchSize;
+            }
+
+            public void setFetchSize(int fetchSize) {
+                this.fetchSize = fetchSize;
+            }
+        }
+
+        /**
+         * Cache of account lookups made while validating uploaded rows.
+         */
+        public static class AccountCache {
+
+            /**
+             * Off by default: while an entry lives, a closed or unauthorised account is still accepted.
+             */
+            private boolean enabled = false;
+
+            /**
+             * How long a successful account lookup is reused, so that status changes in the masters show up after at most this time.
+             */
+            private long ttlSeconds = 900;
+
+            private long maxEntries = 100000;
+
+            /**
+             * Fill the cache at startup and on a schedule with the accounts of recent uploads.
+             */
+            private boolean warmUpEnabled = false;
+
+            private int warmUpDays = 31;
+
+            private String warmUpCron = "0 0 6 * * ?";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            public void setTtlSeconds(long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public boolean isWarmUpEnabled() {
+                return warmUpEnabled;
+            }
+
+            public void setWarmUpEnabled(boolean warmUpEnabled) {
+                this.warmUpEnabled = warmUpEnabled;
+            }
+
+            public int getWarmUpDays() {
+                return warmUpDays;
+            }
+
+            public void setWarmUpDays(int warmUpDays) {
+                this.warmUpDays = warmUpDays;
+            }
+
+            public String getWarmUpCron() {
+                return warmUpCron;
+            }
+
+            public void setWarmUpCron(String warmUpCron) {
+                this.warmUpCron = warmUpCron;
+            }
+        }
+
+        /**
+         * Adaptive limit on the concurrent master data lookups of the upload validation.
+         */
+        public static class QueryLimiter {
+
+            private boolean enabled = true;
+
+            /**
+             * Number of concurrent lookups allowed at startup.
+             */
+            private int initialLimit = 16;
+
+            private int minLimit = 2;
+
+            private int maxLimit = 64;
+
+            /**
+             * Lookups slower than this shrink the limit, faster ones let it grow back.
+             */
+            private long latencyThresholdMs = 200;
+
+            /**
+             * Factor applied to the limit on a slow or failed lookup.
+             */
+            private double backoffRatio = 0.9;
+
+            /**
+             * How long a lookup waits for a free slot before it is rejected.
+             */
+            private long maxQueueWaitMs = 30000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public void setInitialLimit(int initialLimit) {
+                this.initialLimit = initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            public void setMinLimit(int minLimit) {
+                this.minLimit = minLimit;
+            }
+
+            public int getMaxLimit() {
+                return maxLimit;
+            }
+
+            public void setMaxLimit(int maxLimit) {
+                this.maxLimit = maxLimit;
+            }
+
+            public long getLatencyThresholdMs() {
+                return latencyThresholdMs;
+            }
+
+            public void setLatencyThresholdMs(long latencyThresholdMs) {
+                this.latencyThresholdMs = latencyThresholdMs;
+            }
+
+            public double getBackoffRatio() {
+                return backoffRatio;
+            }
+
+            public void setBackoffRatio(double backoffRatio) {
+                this.backoffRatio = backoffRatio;
+            }
+
+            public long getMaxQueueWaitMs() {
+                return maxQueueWaitMs;
+            }
+
+            public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+                this.maxQueueWaitMs = maxQueueWaitMs;
+            }
+        }
+
+        /**
+         * Connection pool of the upload pipeline, next to the pool of interactive requests.
+         */
+        public static class Bulkhead {
+
+            /**
+             * Give the upload pipeline its own connection pool, so that uploads cannot take the connections of interactive requests.
+             */
+            private boolean enabled = false;
+
+            private String poolName = "HikariUpload";
+
+            private int maximumPoolSize = 10;
+
+            private int minimumIdle = 2;
+
+            private long connectionTimeoutMs = 30000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getPoolName() {
+                return poolName;
+            }
+
+            public void setPoolName(String poolName) {
+                this.poolName = poolName;
+            }
+
+            public int getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(int maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+
+            public int getMinimumIdle() {
+                return minimumIdle;
+            }
+
+            public void setMinimumIdle(int minimumIdle) {
+                this.minimumIdle = minimumIdle;
+            }
+
+            public long getConnectionTimeoutMs() {
+                return connectionTimeoutMs;
+            }
+
+            public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+                this.connectionTimeoutMs = connectionTimeoutMs;
+            }
+        }
+
+        /**
+         * Read replica of the database, for reads that can tolerate the replication lag.
+         */
+        public static class ReadReplica {
+
+            /**
+             * Send the validation lookups and the reporting queries to a read replica of the database.
+             */
+            private boolean enabled = false;
+
+            private String url;
+
+            private String username;
+
+            private String password;
+
+            private String poolName = "HikariReplica";
+
+            private int maximumPoolSize = 10;
+
+            /**
+             * Kept short, so that reads fall back to the primary database quickly when the replica is down.
+             */
+            private long connectionTimeoutMs = 2000;
+
+            /**
+             * How long reads go to the primary database after the replica failed to give a connection.
+             */
+            private long retryIntervalMs = 30000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+
+            public String getPoolName() {
+                return poolName;
+            }
+
+            public void setPoolName(String poolName) {
+                this.poolName = poolName;
+            }
+
+            public int getMaximumPoolSize() {
+                return maximumPoolSize;
+            }
+
+            public void setMaximumPoolSize(int maximumPoolSize) {
+                this.maximumPoolSize = maximumPoolSize;
+            }
+
+            public long getConnectionTimeoutMs() {
+                return connectionTimeoutMs;
+            }
+
+            public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+                this.connectionTimeoutMs = connectionTimeoutMs;
+            }
+
+            public long getRetryIntervalMs() {
+                return retryIntervalMs;
+            }
+
+            public void setRetryIntervalMs(long retryIntervalMs) {
+                this.retryIntervalMs = retryIntervalMs;
+            }
+        }
+
+        /**
+         * Archival of old processed batches out of detb_upload_detail.
+         */
+        public static class Archival {
+
+            private boolean enabled = false;
+
+            /**
+             * Processed batches last uploaded more than this many days ago are moved to the archive table.
+             */
+            private int retentionDays = 90;
+
+            /**
+             * Rows moved per transaction.
+             */
+            private int chunkSize = 1000;
+
+            /**
+             * Pause between two chunks, to leave room for the online work.
+             */
+            private long pauseMs = 200;
+
+            private int maxBatchesPerRun = 100;
+
+            private String cron = "0 0 1 * * ?";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getRetentionDays() {
+                return retentionDays;
+            }
+
+            public void setRetentionDays(int retentionDays) {
+                this.retentionDays = retentionDays;
+            }
+
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+
+            public long getPauseMs() {
+                return pauseMs;
+            }
+
+            public void setPauseMs(long pauseMs) {
+                this.pauseMs = pauseMs;
+            }
+
+            public int getMaxBatchesPerRun() {
+                return maxBatchesPerRun;
+            }
+
+            public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+                this.maxBatchesPerRun = maxBatchesPerRun;
+            }
+
+            public String getCron() {
+                return cron;
+            }
+
+            public void setCron(String cron) {
+                this.cron = cron;
+            }
+        }
+
+        /**
+         * Time budget of each upload, applied to its statements as query timeouts
+         */
+        public static class Deadline {
+
+            /**
+             * Whether uploads are stopped once their time budget is spent
+             */
+            private boolean enabled = false;
+
+            /**
+             * Time budget of an upload, from the start of its processing
+             */
+            private int defaultSeconds = 600;
+
+            /**
+             * Time budget by source code, overriding the default one
+             */
+            private Map<String, Integer> sourceCodeSeconds = new HashMap<>();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getDefaultSeconds() {
+                return defaultSeconds;
+            }
+
+            public void setDefaultSeconds(int defaultSeconds) {
+                this.defaultSeconds = defaultSeconds;
+            }
+
+            public Map<String, Integer> getSourceCodeSeconds() {
+                return sourceCodeSeconds;
+            }
+
+            public void setSourceCodeSeconds(Map<String, Integer> sourceCodeSeconds) {
+                this.sourceCodeSeconds = sourceCodeSeconds;
+            }
+        }
+
+        /**
+         * Logging of per-row messages, aggregated by upload
+         */
+        public static class RowLogging {
+
+            /**
+             * Per-row messages logged in full for each upload; the following ones are only counted
+             */
+            private int maxDetailedLines = 50;
+
+            /**
+             * Most frequent messages listed in the summary logged at the end of each upload
+             */
+            private int topMessages = 5;
+
+            public int getMaxDetailedLines() {
+                return maxDetailedLines;
+            }
+
+            public void setMaxDetailedLines(int maxDetailedLines) {
+                this.maxDetailedLines = maxDetailedLines;
+            }
+
+            public int getTopMessages() {
+                return topMessages;
+            }
+
+            public void setTopMessages(int topMessages) {
+                this.topMessages = topMessages;
+            }
+        }
+
+        /**
+         * Continuous Java Flight Recorder recording of the upload pipeline
+         */
+        public static class FlightRecorder {
+
+            /**
+             * Whether a continuous recording of the JVM and upload events runs from startup
+             */
+            private boolean enabled = false;
+
+            /**
+             * How long the recorded events are kept
+             */
+            private int maxAgeMinutes = 60;
+
+            /**
+             * How much disk the recorded events may use
+             */
+            private int maxSizeMb = 250;
+
+            /**
+             * Master data lookups shorter than this are not recorded; 0 records every row
+             */
+            private int lookupThresholdMs = 1;
+
+            /**
+             * File the recording is written to when the application stops, none when null
+             */
+            private String dumpFile;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxAgeMinutes() {
+                return maxAgeMinutes;
+            }
+
+            public void setMaxAgeMinutes(int maxAgeMinutes) {
+                this.maxAgeMinutes = maxAgeMinutes;
+            }
+
+            public int getMaxSizeMb() {
+                return maxSizeMb;
+            }
+
+            public void setMaxSizeMb(int maxSizeMb) {
+                this.maxSizeMb = maxSizeMb;
+            }
+
+            public int getLookupThresholdMs() {
+                return lookupThresholdMs;
+            }
+
+            public void setLookupThresholdMs(int lookupThresholdMs) {
+                this.lookupThresholdMs = lookupThresholdMs;
+            }
+
+            public String getDumpFile() {
+                return dumpFile;
+            }
+
+            public void setDumpFile(String dumpFile) {
+                this.dumpFile = dumpFile;
+            }
+        }
+
+        /**
+         * Claims of the records handed to the posting workers
+         */
+        public static class Posting {
+
+            /**
+             * Records claimed longer ago than this, by a worker that neither completed nor released them, are given back
+             */
+            private long claimTtlSeconds = 900;
+
+            /**
+             * How often stale claims are looked for
+             */
+            private long reclaimIntervalMs = 60000;
+
+            public long getClaimTtlSeconds() {
+                return claimTtlSeconds;
+            }
+
+            public void setClaimTtlSeconds(long claimTtlSeconds) {
+                this.claimTtlSeconds = claimTtlSeconds;
+            }
+
+            public long getReclaimIntervalMs() {
+                return reclaimIntervalMs;
+            }
+
+            public void setReclaimIntervalMs(long reclaimIntervalMs) {
+                this.reclaimIntervalMs = reclaimIntervalMs;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
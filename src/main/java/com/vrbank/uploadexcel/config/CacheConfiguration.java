@@ -22,8 +22,10 @@ public class CacheConfiguration {
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final javax.cache.configuration.Configuration<Object, Object> validatedUploadsConfiguration;
+    private final javax.cache.configuration.Configuration<Object, Object> accountValidationsConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
 
         jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
@@ -35,6 +37,28 @@ public class CacheConfiguration {
                 .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
                 .build()
         );
+
+        ApplicationProperties.Upload upload = applicationProperties.getUpload();
+        validatedUploadsConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                Object.class,
+                Object.class,
+                ResourcePoolsBuilder.heap(upload.getValidationCacheMaxEntries())
+            )
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(upload.getValidationCacheTtlSeconds())))
+                .build()
+        );
+
+        ApplicationProperties.Upload.AccountCache accountCache = upload.getAccountCache();
+        accountValidationsConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                Object.class,
+                Object.class,
+                ResourcePoolsBuilder.heap(accountCache.getMaxEntries())
+            )
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(accountCache.getTtlSeconds())))
+                .build()
+        );
     }
 
     @Bean
@@ -50,16 +74,26 @@ public class CacheConfiguration {
             createCache(cm, com.vrbank.uploadexcel.domain.User.class.getName());
             createCache(cm, com.vrbank.uploadexcel.domain.Authority.class.getName());
             createCache(cm, com.vrbank.uploadexcel.domain.User.class.getName() + ".authorities");
+            createCache(cm, com.vrbank.uploadexcel.service.ValidatedUploadCache.CACHE_NAME, validatedUploadsConfiguration);
+            createCache(cm, com.vrbank.uploadexcel.service.AccountValidationCache.CACHE_NAME, accountValidationsConfiguration);
             // jhipster-needle-ehcache-add-entry
         };
     }
 
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, jcacheConfiguration);
+    }
+
+    private void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<Object, Object> configuration
+    ) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, configuration);
         }
     }
 
@@ -0,0 +1,105 @@
+package com.vrbank.uploadexcel.config;
+
+import com.vrbank.uploadexcel.aop.routing.DataSourceRoutingAspect;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Routing of the database connections between the interactive pool, the upload pool and the read replica.
+ *
+ * Bulkhead: the pool configured with spring.datasource.hikari serves the interactive requests (login, user
+ * administration), and a second pool on the same database, sized with application.upload.bulkhead, serves the upload
+ * work.
+ * Read replica: the reads marked as such go to the replica configured with application.upload.read-replica.
+ * The JPA repositories, JdbcTemplate and transaction manager keep using the primary DataSource, which routes each
+ * connection request. All pools report the hikaricp.connections.* metrics, tagged with their pool name.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+@ConditionalOnExpression("${application.upload.bulkhead.enabled:false} or ${application.upload.read-replica.enabled:false}")
+public class DataSourceRoutingConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataSourceRoutingConfiguration.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "application.upload.bulkhead", name = "enabled", havingValue = "true")
+    public HikariDataSource uploadDataSource(
+        @Qualifier("interactiveDataSource") HikariDataSource interactiveDataSource,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Upload.Bulkhead bulkhead = applicationProperties.getUpload().getBulkhead();
+        // Same database and connection settings, only the pool sizing differs
+        HikariDataSource uploadDataSource = new HikariDataSource();
+        interactiveDataSource.copyStateTo(uploadDataSource);
+        uploadDataSource.setPoolName(bulkhead.getPoolName());
+        uploadDataSource.setMaximumPoolSize(bulkhead.getMaximumPoolSize());
+        uploadDataSource.setMinimumIdle(bulkhead.getMinimumIdle());
+        uploadDataSource.setConnectionTimeout(bulkhead.getConnectionTimeoutMs());
+        LOG.debug("Upload connection pool {} sized to {} connections", bulkhead.getPoolName(), bulkhead.getMaximumPoolSize());
+        return uploadDataSource;
+    }
+
+    @Bean
+    @Primary
+    public RoutingDataSource dataSource(
+        @Qualifier("interactiveDataSource") HikariDataSource interactiveDataSource,
+        @Qualifier("uploadDataSource") ObjectProvider<DataSource> uploadDataSource,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Upload.ReadReplica readReplica = applicationProperties.getUpload().getReadReplica();
+        return new RoutingDataSource(
+            interactiveDataSource,
+            uploadDataSource.getIfAvailable(),
+            readReplica.isEnabled() ? replicaDataSource(interactiveDataSource, readReplica, meterRegistry) : null,
+            readReplica.getRetryIntervalMs()
+        );
+    }
+
+    /**
+     * The replica pool is not a bean, so that the health of the application does not depend on the replica
+     */
+    private HikariDataSource replicaDataSource(
+        HikariDataSource interactiveDataSource,
+        ApplicationProperties.Upload.ReadReplica readReplica,
+        MeterRegistry meterRegistry
+    ) {
+        HikariDataSource replicaDataSource = new HikariDataSource();
+        interactiveDataSource.copyStateTo(replicaDataSource);
+        replicaDataSource.setJdbcUrl(readReplica.getUrl());
+        replicaDataSource.setUsername(readReplica.getUsername());
+        replicaDataSource.setPassword(readReplica.getPassword());
+        replicaDataSource.setPoolName(readReplica.getPoolName());
+        replicaDataSource.setMaximumPoolSize(readReplica.getMaximumPoolSize());
+        replicaDataSource.setConnectionTimeout(readReplica.getConnectionTimeoutMs());
+        replicaDataSource.setReadOnly(true);
+        replicaDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        LOG.debug("Read replica pool {} on {}", readReplica.getPoolName(), readReplica.getUrl());
+        return replicaDataSource;
+    }
+
+    @Bean
+    public DataSourceRoutingAspect dataSourceRoutingAspect() {
+        return new DataSourceRoutingAspect();
+    }
+}
@@ -1,8 +1,8 @@
 package com.vrbank.uploadexcel.config;
 
-import java.util.List;
+import com.vrbank.uploadexcel.aop.routing.DataSourceRouting;
 import java.util.concurrent.Executor;
-import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -24,12 +24,6 @@ public class FileUploadConfig implements WebMvcConfigurer {
         return new StandardServletMultipartResolver();
     }
 
-    @Bean
-    @ConfigurationProperties(prefix = "upload.excel")
-    public ExcelUploadProperties excelUploadProperties() {
-        return new ExcelUploadProperties();
-    }
-
     @Bean(name = "excelUploadTaskExecutor")
     public Executor excelUploadTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -37,6 +31,26 @@ public class FileUploadConfig implements WebMvcConfigurer {
         executor.setMaxPoolSize(5);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("ExcelUpload-");
+        executor.setTaskDecorator(DataSourceRouting::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor validating and saving the sub-batches of oversized files.
+     * When it is saturated the submitting thread runs the work itself, so a sub-batch never waits on a busy pool.
+     * Its tasks use the connection pool of the thread submitting them.
+     */
+    @Bean(name = "excelShardTaskExecutor")
+    public Executor excelShardTaskExecutor(ApplicationProperties applicationProperties) {
+        int parallelism = applicationProperties.getUpload().getShardParallelism();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(parallelism);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("ExcelShard-");
+        executor.setTaskDecorator(DataSourceRouting::propagate);
         executor.initialize();
         return executor;
     }
@@ -51,48 +65,4 @@ public class FileUploadConfig implements WebMvcConfigurer {
             .allowCredentials(true)
             .maxAge(3600);
     }
-
-    /**
-     * Excel Upload Properties
-     */
-    public static class ExcelUploadProperties {
-
-        private String maxFileSize = "50MB";
-        private List<String> allowedExtensions = List.of("xlsx", "xls");
-        private String tempDirectory = System.getProperty("java.io.tmpdir") + "/excel-uploads";
-        private int maxRowsPerBatch = 10000;
-
-        // Getters and Setters
-        public String getMaxFileSize() {
-            return maxFileSize;
-        }
-
-        public void setMaxFileSize(String maxFileSize) {
-            this.maxFileSize = maxFileSize;
-        }
-
-        public List<String> getAllowedExtensions() {
-            return allowedExtensions;
-        }
-
-        public void setAllowedExtensions(List<String> allowedExtensions) {
-            this.allowedExtensions = allowedExtensions;
-        }
-
-        public String getTempDirectory() {
-            return tempDirectory;
-        }
-
-        public void setTempDirectory(String tempDirectory) {
-            this.tempDirectory = tempDirectory;
-        }
-
-        public int getMaxRowsPerBatch() {
-            return maxRowsPerBatch;
-        }
-
-        public void setMaxRowsPerBatch(int maxRowsPerBatch) {
-            this.maxRowsPerBatch = maxRowsPerBatch;
-        }
-    }
 }
@@ -0,0 +1,47 @@
+package com.vrbank.uploadexcel.config;
+
+import com.vrbank.uploadexcel.service.UploadFlightEvents;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Continuous Java Flight Recorder recording, started with the application.
+ * The JDK "default" settings (about 1% overhead) are used for the JVM events, plus the upload events of
+ * {@link UploadFlightEvents}. The recording keeps the last max-age-minutes on disk, and can be dumped at any time with
+ * {@code jcmd <pid> JFR.dump name=upload}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.upload.flight-recorder", name = "enabled", havingValue = "true")
+public class FlightRecorderConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    public Recording uploadRecording(ApplicationProperties applicationProperties) throws IOException, ParseException {
+        ApplicationProperties.Upload.FlightRecorder properties = applicationProperties.getUpload().getFlightRecorder();
+        Recording recording = new Recording(jdk.jfr.Configuration.getConfiguration("default"));
+        recording.setName("upload");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(properties.getMaxAgeMinutes()));
+        recording.setMaxSize(properties.getMaxSizeMb() * 1024L * 1024L);
+        if (properties.getDumpFile() != null) {
+            recording.setDestination(Path.of(properties.getDumpFile()));
+            recording.setDumpOnExit(true);
+        }
+        recording.enable(UploadFlightEvents.UPLOAD);
+        recording.enable(UploadFlightEvents.WORKBOOK_OPEN);
+        recording.enable(UploadFlightEvents.STAGE);
+        recording.enable(UploadFlightEvents.MASTER_DATA_LOOKUP).withThreshold(Duration.ofMillis(properties.getLookupThresholdMs()));
+        recording.start();
+        LOG.info("Started flight recording, keeping {} minutes of events", properties.getMaxAgeMinutes());
+        return recording;
+    }
+}
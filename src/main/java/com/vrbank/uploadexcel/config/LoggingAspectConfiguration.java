@@ -1,6 +1,9 @@
 package com.vrbank.uploadexcel.config;
 
 import com.vrbank.uploadexcel.aop.logging.LoggingAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 import tech.jhipster.config.JHipsterConstants;
@@ -11,7 +14,21 @@ public class LoggingAspectConfiguration {
 
     @Bean
     @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect(Environment env) {
-        return new LoggingAspect(env);
+    public LoggingAspect loggingAspect(
+        Environment env,
+        ApplicationProperties applicationProperties,
+        ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        return new LoggingAspect(env, applicationProperties.getLoggingAspect(), meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * In timing mode, the aspect also runs outside of the "dev" profile.
+     */
+    @Bean
+    @Profile("!" + JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
+    @ConditionalOnProperty(prefix = "application.logging-aspect", name = "mode", havingValue = "timing")
+    public LoggingAspect timingAspect(Environment env, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        return new LoggingAspect(env, applicationProperties.getLoggingAspect(), meterRegistry);
     }
 }
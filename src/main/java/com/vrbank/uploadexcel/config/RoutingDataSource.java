@@ -0,0 +1,108 @@
+package com.vrbank.uploadexcel.config;
+
+import com.vrbank.uploadexcel.aop.routing.DataSourceRouting;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource choosing the connection pool of each connection request from the work of the current thread.
+ *
+ * A thread running a method marked with {@link com.vrbank.uploadexcel.aop.routing.UsesUploadPool} gets the connections
+ * of the upload pool, every other thread the connections of the interactive pool.
+ * A thread running a method marked with {@link com.vrbank.uploadexcel.aop.routing.UsesReadReplica} gets the connections
+ * of the read replica when there is one, unless it is in a read-write transaction; when the replica cannot give a
+ * connection, it is left out for a while and the thread gets a connection of its usual pool instead.
+ * The marks are kept by {@link DataSourceRouting}.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    public enum Pool {
+        INTERACTIVE,
+        UPLOAD,
+    }
+
+    private final DataSource replicaDataSource;
+    private final long replicaRetryNanos;
+    private volatile long replicaRetryAtNanos = System.nanoTime();
+
+    /**
+     * @param uploadDataSource the upload pool, or null to use the interactive pool for the upload work
+     * @param replicaDataSource the read replica, or null to read from the primary database
+     * @param replicaRetryMs how long the replica is left out after failing to give a connection
+     */
+    public RoutingDataSource(
+        DataSource interactiveDataSource,
+        DataSource uploadDataSource,
+        DataSource replicaDataSource,
+        long replicaRetryMs
+    ) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(Pool.INTERACTIVE, interactiveDataSource);
+        if (uploadDataSource != null) {
+            targetDataSources.put(Pool.UPLOAD, uploadDataSource);
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(interactiveDataSource);
+        this.replicaDataSource = replicaDataSource;
+        this.replicaRetryNanos = TimeUnit.MILLISECONDS.toNanos(replicaRetryMs);
+    }
+
+    /**
+     * Whether the read replica is currently used, i.e. it is configured and did not fail recently
+     */
+    public boolean isReplicaAvailable() {
+        return replicaDataSource != null && System.nanoTime() - replicaRetryAtNanos >= 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (DataSourceRouting.isReadReplica() && isReplicaAvailable() && !isReadWriteTransaction()) {
+            try {
+                return replicaDataSource.getConnection();
+            } catch (SQLException e) {
+                replicaRetryAtNanos = System.nanoTime() + replicaRetryNanos;
+                log.warn(
+                    "Read replica unavailable, reading from the primary database for {}ms: {}",
+                    TimeUnit.NANOSECONDS.toMillis(replicaRetryNanos),
+                    e.getMessage()
+                );
+            }
+        }
+        return super.getConnection();
+    }
+
+    /**
+     * A read-write transaction may acquire its connection lazily, during a replica read, and must still get a
+     * connection of the primary database
+     */
+    private static boolean isReadWriteTransaction() {
+        return (
+            TransactionSynchronizationManager.isActualTransactionActive() &&
+            !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        );
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DataSourceRouting.isUploadWork() ? Pool.UPLOAD : Pool.INTERACTIVE;
+    }
+
+    /**
+     * Close the read replica pool, which is not a bean of its own
+     */
+    public void close() throws Exception {
+        if (replicaDataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
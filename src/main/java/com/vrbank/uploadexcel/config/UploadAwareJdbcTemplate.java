@@ -0,0 +1,50 @@
+package com.vrbank.uploadexcel.config;
+
+import com.vrbank.uploadexcel.service.UploadContext;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+
+/**
+ * JdbcTemplate recording the statements run for an upload in its {@link UploadContext}, so that cancelling the upload
+ * cancels them too
+ * A statement is forgotten when it completes, when it fails and when the thread leaves the upload
+ * ({@link UploadContext#restore(UploadContext)}); a new statement of the thread replaces it.
+ */
+public class UploadAwareJdbcTemplate extends JdbcTemplate {
+
+    public UploadAwareJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        UploadContext context = UploadContext.current();
+        if (context != null) {
+            context.statementStarted(stmt);
+        }
+    }
+
+    @Override
+    protected void handleWarnings(Statement stmt) throws SQLException {
+        UploadContext context = UploadContext.current();
+        if (context != null) {
+            context.statementFinished(stmt);
+        }
+        super.handleWarnings(stmt);
+    }
+
+    @Override
+    protected DataAccessException translateException(String task, @Nullable String sql, SQLException ex) {
+        // Called before the failed statement is closed
+        UploadContext context = UploadContext.current();
+        if (context != null) {
+            context.statementFinished();
+        }
+        return super.translateException(task, sql, ex);
+    }
+}
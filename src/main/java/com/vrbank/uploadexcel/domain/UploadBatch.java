@@ -0,0 +1,233 @@
+package com.vrbank.uploadexcel.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Header record of an uploaded batch
+ * Keeps the SHA-256 of the uploaded file so that re-submitted files can be recognised
+ */
+@Entity
+@Table(name = "detb_upload_batch")
+public class UploadBatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_RESERVED = "RESERVED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Size(max = 20)
+    @Column(name = "batch_no", length = 20, nullable = false, unique = true)
+    private String batchNo;
+
+    @Size(max = 10)
+    @Column(name = "branch_code", length = 10)
+    private String branchCode;
+
+    @Size(max = 10)
+    @Column(name = "source_code", length = 10)
+    private String sourceCode;
+
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Size(max = 255)
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "total_rows")
+    private Integer totalRows;
+
+    @Column(name = "success_count")
+    private Integer successCount;
+
+    @Column(name = "error_count")
+    private Integer errorCount;
+
+    @Column(name = "created_date")
+    private Instant createdDate;
+
+    @NotNull
+    @Size(max = 10)
+    @Column(name = "status", length = 10, nullable = false)
+    private String status = STATUS_COMPLETED;
+
+    @Size(max = 36)
+    @Column(name = "reservation_token", length = 36)
+    private String reservationToken;
+
+    @Column(name = "reserved_until")
+    private Instant reservedUntil;
+
+    @Size(max = 20)
+    @Column(name = "parent_batch_no", length = 20)
+    private String parentBatchNo;
+
+    // Constructors
+    public UploadBatch() {}
+
+    public UploadBatch(String batchNo, String branchCode, String sourceCode) {
+        this.batchNo = batchNo;
+        this.branchCode = branchCode;
+        this.sourceCode = sourceCode;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getBranchCode() {
+        return branchCode;
+    }
+
+    public void setBranchCode(String branchCode) {
+        this.branchCode = branchCode;
+    }
+
+    public String getSourceCode() {
+        return sourceCode;
+    }
+
+    public void setSourceCode(String sourceCode) {
+        this.sourceCode = sourceCode;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public Integer getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Integer successCount) {
+        this.successCount = successCount;
+    }
+
+    public Integer getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(Integer errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getReservationToken() {
+        return reservationToken;
+    }
+
+    public void setReservationToken(String reservationToken) {
+        this.reservationToken = reservationToken;
+    }
+
+    public Instant getReservedUntil() {
+        return reservedUntil;
+    }
+
+    public void setReservedUntil(Instant reservedUntil) {
+        this.reservedUntil = reservedUntil;
+    }
+
+    public String getParentBatchNo() {
+        return parentBatchNo;
+    }
+
+    public void setParentBatchNo(String parentBatchNo) {
+        this.parentBatchNo = parentBatchNo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UploadBatch)) return false;
+        UploadBatch that = (UploadBatch) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "UploadBatch{" +
+            "id=" +
+            getId() +
+            ", batchNo='" +
+            getBatchNo() +
+            "'" +
+            ", branchCode='" +
+            getBranchCode() +
+            "'" +
+            ", contentHash='" +
+            getContentHash() +
+            "'" +
+            ", status='" +
+            getStatus() +
+            "'" +
+            ", totalRows=" +
+            getTotalRows() +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,321 @@
+package com.vrbank.uploadexcel.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * An upload queued for processing by whichever node claims it first
+ * The file itself is kept in the shared job storage directory
+ */
+@Entity
+@Table(name = "detb_upload_job")
+public class UploadJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Size(max = 20)
+    @Column(name = "batch_no", length = 20, nullable = false)
+    private String batchNo;
+
+    @NotNull
+    @Size(max = 10)
+    @Column(name = "branch_code", length = 10, nullable = false)
+    private String branchCode;
+
+    @NotNull
+    @Size(max = 10)
+    @Column(name = "source_code", length = 10, nullable = false)
+    private String sourceCode;
+
+    @NotNull
+    @Column(name = "exch_rate", precision = 15, scale = 6, nullable = false)
+    private BigDecimal exchRate;
+
+    @NotNull
+    @Column(name = "entry_date", nullable = false)
+    private LocalDate entryDate;
+
+    @NotNull
+    @Size(max = 512)
+    @Column(name = "file_path", length = 512, nullable = false)
+    private String filePath;
+
+    @Size(max = 255)
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @NotNull
+    @Size(max = 10)
+    @Column(name = "status", length = 10, nullable = false)
+    private String status;
+
+    @Size(max = 100)
+    @Column(name = "owner_node", length = 100)
+    private String ownerNode;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "total_rows")
+    private Integer totalRows;
+
+    @Column(name = "success_count")
+    private Integer successCount;
+
+    @Column(name = "error_count")
+    private Integer errorCount;
+
+    @Size(max = 1000)
+    @Column(name = "result_message", length = 1000)
+    private String resultMessage;
+
+    @Column(name = "created_date")
+    private Instant createdDate;
+
+    @Column(name = "started_date")
+    private Instant startedDate;
+
+    @Column(name = "finished_date")
+    private Instant finishedDate;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getBranchCode() {
+        return branchCode;
+    }
+
+    public void setBranchCode(String branchCode) {
+        this.branchCode = branchCode;
+    }
+
+    public String getSourceCode() {
+        return sourceCode;
+    }
+
+    public void setSourceCode(String sourceCode) {
+        this.sourceCode = sourceCode;
+    }
+
+    public BigDecimal getExchRate() {
+        return exchRate;
+    }
+
+    public void setExchRate(BigDecimal exchRate) {
+        this.exchRate = exchRate;
+    }
+
+    public LocalDate getEntryDate() {
+        return entryDate;
+    }
+
+    public void setEntryDate(LocalDate entryDate) {
+        this.entryDate = entryDate;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(Instant heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public Integer getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Integer successCount) {
+        this.successCount = successCount;
+    }
+
+    public Integer getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(Integer errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public String getResultMessage() {
+        return resultMessage;
+    }
+
+    public void setResultMessage(String resultMessage) {
+        this.resultMessage = resultMessage;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UploadJob)) return false;
+        UploadJob that = (UploadJob) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "UploadJob{" +
+            "id=" +
+            getId() +
+            ", batchNo='" +
+            getBatchNo() +
+            "'" +
+            ", status='" +
+            getStatus() +
+            "'" +
+            ", ownerNode='" +
+            getOwnerNode() +
+            "'" +
+            ", attempts=" +
+            getAttempts() +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,108 @@
+package com.vrbank.uploadexcel.repository;
+
+import com.vrbank.uploadexcel.domain.UploadBatch;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the UploadBatch entity.
+ */
+@Repository
+public interface UploadBatchRepository extends JpaRepository<UploadBatch, Long> {
+    /**
+     * Find the batch header by batch number
+     * @param batchNo the batch number
+     * @return the batch header, if any
+     */
+    Optional<UploadBatch> findOneByBatchNo(String batchNo);
+
+    /**
+     * Find the batches uploaded, or being uploaded, from a file with the given content
+     * @param contentHash SHA-256 of the file content, hex encoded
+     * @param now current time, reservations expired before it are left out
+     * @return the completed batches holding records and the reserved batches with that content, earliest first
+     */
+    @Query(
+        """
+        SELECT b FROM UploadBatch b
+        WHERE b.contentHash = :contentHash
+        AND ((b.status = 'COMPLETED' AND b.successCount > 0) OR (b.status = 'RESERVED' AND b.reservedUntil >= :now))
+        ORDER BY b.id ASC
+        """
+    )
+    List<UploadBatch> findByContentHash(@Param("contentHash") String contentHash, @Param("now") Instant now);
+
+    /**
+     * Find the sub-batches an oversized file was split into
+     * @param parentBatchNo the batch number the file was uploaded as
+     * @return the sub-batch headers, in batch number order
+     */
+    List<UploadBatch> findByParentBatchNoOrderByBatchNoAsc(String parentBatchNo);
+
+    /**
+     * Check whether a batch was split into sub-batches
+     * @param parentBatchNo the batch number the file was uploaded as
+     * @return true if any sub-batch exists
+     */
+    boolean existsByParentBatchNo(String parentBatchNo);
+
+    /**
+     * Take over a reservation whose owner did not finish in time
+     * @param batchNo the batch number
+     * @param token the reservation token of the new owner
+     * @param contentHash SHA-256 of the file the new owner uploads
+     * @param reservedUntil expiry of the new reservation
+     * @param now current time, reservations expired before it can be taken over
+     * @return 1 if the reservation was taken over, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        """
+        UPDATE UploadBatch b SET b.reservationToken = :token, b.contentHash = :contentHash, b.reservedUntil = :reservedUntil
+        WHERE b.batchNo = :batchNo AND b.status = 'RESERVED' AND b.reservedUntil < :now
+        """
+    )
+    int takeOverExpiredReservation(
+        @Param("batchNo") String batchNo,
+        @Param("token") String token,
+        @Param("contentHash") String contentHash,
+        @Param("reservedUntil") Instant reservedUntil,
+        @Param("now") Instant now
+    );
+
+    /**
+     * Delete a reservation, only if it is still held with the given token
+     * @param batchNo the batch number
+     * @param token the reservation token
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadBatch b WHERE b.batchNo = :batchNo AND b.status = 'RESERVED' AND b.reservationToken = :token")
+    int deleteReservation(@Param("batchNo") String batchNo, @Param("token") String token);
+
+    /**
+     * Delete reservations that expired without being completed
+     * @param now current time
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadBatch b WHERE b.status = 'RESERVED' AND b.reservedUntil < :now")
+    int deleteExpiredReservations(@Param("now") Instant now);
+
+    /**
+     * Delete the batch header by batch number
+     * @param batchNo the batch number
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadBatch b WHERE b.batchNo = :batchNo")
+    void deleteByBatchNo(@Param("batchNo") String batchNo);
+}
@@ -1,7 +1,16 @@
 package com.vrbank.uploadexcel.repository;
 
 import com.vrbank.uploadexcel.domain.UploadDetail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,8 +22,14 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Repository
 public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long> {
+    /**
+     * Rows fetched per round trip by the streaming finders.
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
     /**
      * Find all upload details by batch number
+     * Loads every matching entity at once, reporting reads should use the Slice or Stream views
      * @param batchNo the batch number to search for
      * @return list of upload details for the batch
      */
@@ -71,6 +86,7 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
 
     /**
      * Find upload details by branch code
+     * Loads every matching entity at once, reporting reads should use the Slice or Stream views
      * @param branchCode the branch code
      * @return list of upload details for the branch
      */
@@ -78,6 +94,7 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
 
     /**
      * Find upload details by source code
+     * Loads every matching entity at once, reporting reads should use the Slice or Stream views
      * @param sourceCode the source code
      * @return list of upload details for the source
      */
@@ -85,12 +102,50 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
 
     /**
      * Find all upload details that are not processed
-     * Used to get pending uploads (uploadStat != 'Y')
+     * Used to get pending uploads (uploadStat != 'Y'), including the ones claimed by a posting worker
+     * Loads every pending row at once, posting workers should claim them in chunks with {@link #findPendingForUpdate}
      * @return list of unprocessed upload details
      */
     @Query("SELECT u FROM UploadDetail u WHERE u.uploadStat != 'Y' OR u.uploadStat IS NULL")
     List<UploadDetail> findUnprocessedRecords();
 
+    /**
+     * Lock the next pending upload details after a cursor, skipping the ones locked by another posting worker
+     * (SELECT ... FOR UPDATE SKIP LOCKED)
+     * @param afterId only rows with a greater id, the last id of the previous chunk
+     * @param pageable number of rows to claim
+     * @return the locked upload details, in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = UploadJobRepository.SKIP_LOCKED))
+    @Query("SELECT u FROM UploadDetail u WHERE u.id > :afterId AND (u.uploadStat = 'N' OR u.uploadStat IS NULL) ORDER BY u.id")
+    List<UploadDetail> findPendingForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Mark locked pending upload details as being posted
+     * @param ids the upload details locked by {@link #findPendingForUpdate}
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE UploadDetail u SET u.uploadStat = 'P' WHERE u.id IN :ids AND (u.uploadStat = 'N' OR u.uploadStat IS NULL)")
+    int markClaimed(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Move upload details from one status to another
+     * Used by the posting workers to complete and release claimed records
+     * @param ids the upload details
+     * @param fromStatus only rows still in this status are updated
+     * @param toStatus the new status
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE UploadDetail u SET u.uploadStat = :toStatus WHERE u.id IN :ids AND u.uploadStat = :fromStatus")
+    int updateUploadStatus(
+        @Param("ids") Collection<Long> ids,
+        @Param("fromStatus") String fromStatus,
+        @Param("toStatus") String toStatus
+    );
+
     /**
      * Update upload status for all records in a batch
      * Used when marking a batch as processed
@@ -104,27 +159,172 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
 
     /**
      * Find batches uploaded within date range
+     * Loads every matching entity at once, reporting reads should use the Slice or Stream views
      * @param startDate start date
      * @param endDate end date
      * @return list of upload details within date range
      */
     @Query("SELECT u FROM UploadDetail u WHERE u.uploadDate BETWEEN :startDate AND :endDate")
     List<UploadDetail> findByUploadDateBetween(
-        @Param("startDate") java.time.LocalDate startDate,
-        @Param("endDate") java.time.LocalDate endDate
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+
+    /**
+     * Find a page of upload detail views by batch number, without loading entities
+     * @param batchNo the batch number
+     * @param pageable page to read, ordered by the caller
+     * @return the views of the page, and whether there is a next one
+     */
+    Slice<UploadDetailView> findViewsByBatchNo(String batchNo, Pageable pageable);
+
+    /**
+     * Stream the upload detail views by batch number, to be consumed in a transaction and closed
+     * @param batchNo the batch number
+     * @return the views, in id order
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    Stream<UploadDetailView> streamByBatchNoOrderByIdAsc(String batchNo);
+
+    /**
+     * Find a page of upload detail views by branch code, without loading entities
+     * @param branchCode the branch code
+     * @param pageable page to read, ordered by the caller
+     * @return the views of the page, and whether there is a next one
+     */
+    Slice<UploadDetailView> findViewsByBranchCode(String branchCode, Pageable pageable);
+
+    /**
+     * Stream the upload detail views by branch code, to be consumed in a transaction and closed
+     * @param branchCode the branch code
+     * @return the views, in id order
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    Stream<UploadDetailView> streamByBranchCodeOrderByIdAsc(String branchCode);
+
+    /**
+     * Find a page of upload detail views by source code, without loading entities
+     * @param sourceCode the source code
+     * @param pageable page to read, ordered by the caller
+     * @return the views of the page, and whether there is a next one
+     */
+    Slice<UploadDetailView> findViewsBySourceCode(String sourceCode, Pageable pageable);
+
+    /**
+     * Stream the upload detail views by source code, to be consumed in a transaction and closed
+     * @param sourceCode the source code
+     * @return the views, in id order
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    Stream<UploadDetailView> streamBySourceCodeOrderByIdAsc(String sourceCode);
+
+    /**
+     * Find a page of upload detail views by account number, without loading entities
+     * @param account the account number
+     * @param pageable page to read, ordered by the caller
+     * @return the views of the page, and whether there is a next one
+     */
+    Slice<UploadDetailView> findViewsByAccount(String account, Pageable pageable);
+
+    /**
+     * Stream the upload detail views by account number, to be consumed in a transaction and closed
+     * @param account the account number
+     * @return the views, in id order
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    Stream<UploadDetailView> streamByAccountOrderByIdAsc(String account);
+
+    /**
+     * Find a page of upload detail views uploaded within a date range, without loading entities
+     * @param startDate start date
+     * @param endDate end date
+     * @param pageable page to read, ordered by the caller
+     * @return the views of the page, and whether there is a next one
+     */
+    Slice<UploadDetailView> findViewsByUploadDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
+
+    /**
+     * Stream the upload detail views uploaded within a date range, to be consumed in a transaction and closed
+     * @param startDate start date
+     * @param endDate end date
+     * @return the views, in id order
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        }
+    )
+    Stream<UploadDetailView> streamByUploadDateBetweenOrderByIdAsc(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Search upload detail views, each criterion being ignored when null
+     * @return the views of the page, and whether there is a next one
+     */
+    @Query(
+        """
+        SELECT u.id AS id, u.batchNo AS batchNo, u.branchCode AS branchCode, u.sourceCode AS sourceCode, u.relCust AS relCust,
+               u.account AS account, u.drCr AS drCr, u.ccyCd AS ccyCd, u.amount AS amount, u.lcyEquivalent AS lcyEquivalent,
+               u.txnCode AS txnCode, u.uploadDate AS uploadDate, u.uploadStat AS uploadStat
+        FROM UploadDetail u
+        WHERE (:batchNo IS NULL OR u.batchNo = :batchNo)
+          AND (:branchCode IS NULL OR u.branchCode = :branchCode)
+          AND (:sourceCode IS NULL OR u.sourceCode = :sourceCode)
+          AND (:account IS NULL OR u.account = :account)
+          AND (:startDate IS NULL OR u.uploadDate >= :startDate)
+          AND (:endDate IS NULL OR u.uploadDate <= :endDate)
+        """
+    )
+    Slice<UploadDetailView> searchViews(
+        @Param("batchNo") String batchNo,
+        @Param("branchCode") String branchCode,
+        @Param("sourceCode") String sourceCode,
+        @Param("account") String account,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate,
+        Pageable pageable
     );
 
+    /**
+     * Find the distinct accounts uploaded since a date, without loading the upload details
+     * Used to warm up the account validation cache
+     * @param since first upload date
+     * @return list of distinct customer/account/currency combinations
+     */
+    @Query("SELECT DISTINCT u.relCust AS relCust, u.account AS account, u.ccyCd AS ccyCd FROM UploadDetail u WHERE u.uploadDate >= :since")
+    List<UploadedAccount> findDistinctAccountsUploadedSince(@Param("since") LocalDate since);
+
     /**
      * Get batch statistics
      * @param batchNo the batch number
-     * @return array containing [batchNo, totalCount, successCount, pendingCount]
+     * @return array containing [batchNo, totalCount, successCount, pendingCount], pending including records being posted
      */
     @Query(
         """
         SELECT u.batchNo,
                COUNT(u),
                SUM(CASE WHEN u.uploadStat = 'Y' THEN 1 ELSE 0 END),
-               SUM(CASE WHEN u.uploadStat = 'N' OR u.uploadStat IS NULL THEN 1 ELSE 0 END)
+               SUM(CASE WHEN u.uploadStat = 'N' OR u.uploadStat = 'P' OR u.uploadStat IS NULL THEN 1 ELSE 0 END)
         FROM UploadDetail u
         WHERE u.batchNo = :batchNo
         GROUP BY u.batchNo
@@ -132,8 +332,32 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
     )
     Object[] getBatchStatistics(@Param("batchNo") String batchNo);
 
+    /**
+     * Check if a batch has records moved to the archive table, detb_upload_detail_arch
+     * @param batchNo the batch number
+     * @return true if some records of the batch are archived
+     */
+    @Query(
+        value = "SELECT CASE WHEN COUNT(*) > 0 THEN 1 ELSE 0 END FROM detb_upload_detail_arch WHERE batch_no = :batchNo",
+        nativeQuery = true
+    )
+    int existsArchivedByBatchNo(@Param("batchNo") String batchNo);
+
+    /**
+     * Get statistics for the archived records of a batch, in the form of {@link #getBatchStatistics}
+     * Only processed records are archived, so they are all counted as processed
+     * @param batchNo the batch number
+     * @return [batchNo, total_count, processed_count, pending_count], or null if nothing of the batch is archived
+     */
+    @Query(
+        value = "SELECT batch_no, COUNT(*), COUNT(*), 0 FROM detb_upload_detail_arch WHERE batch_no = :batchNo GROUP BY batch_no",
+        nativeQuery = true
+    )
+    Object[] getArchivedBatchStatistics(@Param("batchNo") String batchNo);
+
     /**
      * Find upload details by account number
+     * Loads every matching entity at once, reporting reads should use the Slice or Stream views
      * @param account the account number
      * @return list of upload details for the account
      */
@@ -145,4 +369,46 @@ public interface UploadDetailRepository extends JpaRepository<UploadDetail, Long
      * @return true if customer has upload records
      */
     boolean existsByRelCust(String relCust);
+
+    /**
+     * Reporting columns of an upload detail, read without loading the entity
+     */
+    interface UploadDetailView {
+        Long getId();
+
+        String getBatchNo();
+
+        String getBranchCode();
+
+        String getSourceCode();
+
+        String getRelCust();
+
+        String getAccount();
+
+        String getDrCr();
+
+        String getCcyCd();
+
+        BigDecimal getAmount();
+
+        BigDecimal getLcyEquivalent();
+
+        String getTxnCode();
+
+        LocalDate getUploadDate();
+
+        String getUploadStat();
+    }
+
+    /**
+     * Account columns of an upload detail
+     */
+    interface UploadedAccount {
+        String getRelCust();
+
+        String getAccount();
+
+        String getCcyCd();
+    }
 }
@@ -0,0 +1,66 @@
+package com.vrbank.uploadexcel.repository;
+
+import com.vrbank.uploadexcel.domain.UploadJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data JPA repository for the UploadJob entity.
+ */
+@Repository
+public interface UploadJobRepository extends JpaRepository<UploadJob, Long> {
+    /**
+     * Lock timeout hint understood by Hibernate as SKIP LOCKED.
+     */
+    String SKIP_LOCKED = "-2";
+
+    /**
+     * Lock the oldest queued jobs, skipping jobs already locked by another node
+     * (SELECT ... FOR UPDATE SKIP LOCKED)
+     * @param pageable number of jobs to claim
+     * @return the locked jobs
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("SELECT j FROM UploadJob j WHERE j.status = 'QUEUED' ORDER BY j.id")
+    List<UploadJob> findQueuedForUpdate(Pageable pageable);
+
+    /**
+     * Lock running jobs whose node stopped sending heartbeats, skipping jobs locked by another node
+     * @param staleBefore heartbeats older than this are stale
+     * @return the locked jobs
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("SELECT j FROM UploadJob j WHERE j.status = 'RUNNING' AND j.heartbeatAt < :staleBefore ORDER BY j.id")
+    List<UploadJob> findStaleForUpdate(@Param("staleBefore") Instant staleBefore);
+
+    /**
+     * Refresh the heartbeat of the jobs a node is running
+     * @param ids the running jobs
+     * @param ownerNode the node running them
+     * @param now current time
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadJob j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.ownerNode = :ownerNode AND j.status = 'RUNNING'")
+    int updateHeartbeat(@Param("ids") Collection<Long> ids, @Param("ownerNode") String ownerNode, @Param("now") Instant now);
+
+    /**
+     * Find the running jobs of a node whose cancellation was requested
+     * @param ids the running jobs
+     * @param ownerNode the node running them
+     * @return the ids of the jobs to cancel
+     */
+    @Query("SELECT j.id FROM UploadJob j WHERE j.id IN :ids AND j.ownerNode = :ownerNode AND j.cancelRequested = true")
+    List<Long> findCancelRequested(@Param("ids") Collection<Long> ids, @Param("ownerNode") String ownerNode);
+}
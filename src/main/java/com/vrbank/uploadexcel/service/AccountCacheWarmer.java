@@ -0,0 +1,214 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository.UploadedAccount;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Warms up the account validation cache with the accounts of recent uploads
+ * After a restart every account lookup misses, which makes the first large uploads the slowest. The accounts and GL
+ * codes uploaded in the last days are read with a projection of detb_upload_detail, looked up in the masters with a
+ * few IN-list queries, and put in the cache in bulk.
+ */
+@Service
+@UsesUploadPool
+@UsesReadReplica
+public class AccountCacheWarmer {
+
+    private static final String METER_PREFIX = "upload.account.cache.warmup";
+
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(AccountCacheWarmer.class);
+
+    private final UploadDetailRepository uploadDetailRepository;
+    private final AccountValidationCache accountValidationCache;
+    private final MasterDataIndex masterDataIndex;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationProperties.Upload.AccountCache properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger lastEntriesLoaded = new AtomicInteger();
+    private final Timer warmUpTimer;
+
+    public AccountCacheWarmer(
+        UploadDetailRepository uploadDetailRepository,
+        AccountValidationCache accountValidationCache,
+        MasterDataIndex masterDataIndex,
+        JdbcTemplate jdbcTemplate,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.uploadDetailRepository = uploadDetailRepository;
+        this.accountValidationCache = accountValidationCache;
+        this.masterDataIndex = masterDataIndex;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.properties = applicationProperties.getUpload().getAccountCache();
+
+        this.warmUpTimer = Timer.builder(METER_PREFIX).description("Time taken to warm up the account validation cache").register(registry);
+        Gauge.builder(METER_PREFIX + ".entries", lastEntriesLoaded, AtomicInteger::get)
+            .description("Entries loaded by the last warm-up of the account validation cache")
+            .register(registry);
+    }
+
+    /**
+     * Warm up the cache in the background once the application is ready, so that readiness is not delayed
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        warmUp();
+    }
+
+    /**
+     * Warm up the cache again, e.g. before the working day
+     * This is scheduled to get fired at application.upload.account-cache.warm-up-cron, every morning at 06:00 by default.
+     */
+    @Scheduled(cron = "${application.upload.account-cache.warm-up-cron:0 0 6 * * ?}")
+    public void warmUpOnSchedule() {
+        warmUp();
+    }
+
+    /**
+     * Load the lookups of the accounts uploaded in the last warm-up-days days into the cache
+     * @return the number of cache entries loaded
+     */
+    public int warmUp() {
+        if (!properties.isEnabled() || !properties.isWarmUpEnabled() || masterDataIndex.isLoaded()) {
+            return 0;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Account cache warm-up already running");
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            LocalDate since = LocalDate.now().minusDays(properties.getWarmUpDays());
+            List<UploadedAccount> customerAccounts = new ArrayList<>();
+            Set<String> glAccounts = new LinkedHashSet<>();
+            for (UploadedAccount uploaded : uploadDetailRepository.findDistinctAccountsUploadedSince(since)) {
+                String account = uploaded.getAccount();
+                if (account == null) {
+                    continue;
+                }
+                // Same split as the row validation: customer accounts have at least 15 characters
+                if (account.length() >= UploadValidationRules.CUSTOMER_ACCOUNT_LENGTH) {
+                    customerAccounts.add(uploaded);
+                } else {
+                    glAccounts.add(account);
+                }
+            }
+
+            int entries = loadCustomerAccounts(customerAccounts) + loadGlAccounts(new ArrayList<>(glAccounts));
+
+            long elapsedNanos = System.nanoTime() - startNanos;
+            warmUpTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            lastEntriesLoaded.set(entries);
+            log.info(
+                "Warmed up account validation cache with {} entries from uploads since {} in {}ms",
+                entries,
+                since,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+            );
+            return entries;
+        } catch (RuntimeException e) {
+            log.error("Error warming up account validation cache: {}", e.getMessage());
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int loadCustomerAccounts(List<UploadedAccount> uploadedAccounts) {
+        int entries = 0;
+        for (int from = 0; from < uploadedAccounts.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<UploadedAccount> chunk = uploadedAccounts.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, uploadedAccounts.size()));
+            Set<String> accountNos = new LinkedHashSet<>();
+            chunk.forEach(uploaded -> accountNos.add(uploaded.getAccount()));
+
+            // Status of each (customer, account, currency) row, keeping the first row like the single lookup
+            Map<String, String> statusByKey = new HashMap<>();
+            namedParameterJdbcTemplate.query(
+                """
+                SELECT a.account_no, a.currency_code, c.customer_no, a.auth_stat as auth_stat_acct, c.auth_stat as auth_stat_cif,
+                       a.status as account_status, c.status as customer_status
+                FROM account_master a
+                JOIN customer_master c ON a.customer_no = c.customer_no
+                WHERE a.account_no IN (:accounts)
+                """,
+                Map.of("accounts", accountNos),
+                rs -> {
+                    statusByKey.putIfAbsent(
+                        AccountValidationCache.customerAccountKey(
+                            rs.getString("customer_no"),
+                            rs.getString("account_no"),
+                            rs.getString("currency_code")
+                        ),
+                        AccountValidationService.customerAccountStatus(
+                            rs.getString("account_status"),
+                            rs.getString("customer_status"),
+                            rs.getString("auth_stat_acct"),
+                            rs.getString("auth_stat_cif")
+                        )
+                    );
+                }
+            );
+
+            Map<String, String> results = new HashMap<>();
+            for (UploadedAccount uploaded : chunk) {
+                String key = AccountValidationCache.customerAccountKey(uploaded.getRelCust(), uploaded.getAccount(), uploaded.getCcyCd());
+                results.put(key, statusByKey.getOrDefault(key, AccountValidationService.ACCOUNT_NOT_FOUND_DESC));
+            }
+            entries += accountValidationCache.putAll(results);
+        }
+        return entries;
+    }
+
+    private int loadGlAccounts(List<String> glAccounts) {
+        int entries = 0;
+        for (int from = 0; from < glAccounts.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = glAccounts.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, glAccounts.size()));
+            Set<String> activeGlCodes = new LinkedHashSet<>(
+                namedParameterJdbcTemplate.queryForList(
+                    "SELECT gl_code FROM gl_master WHERE status = 'A' AND gl_code IN (:codes)",
+                    Map.of("codes", chunk),
+                    String.class
+                )
+            );
+
+            Map<String, String> results = new HashMap<>();
+            for (String glAccount : chunk) {
+                results.put(
+                    AccountValidationCache.glAccountKey(glAccount),
+                    activeGlCodes.contains(glAccount) ? AccountValidationService.RESULT_OK : AccountValidationService.GL_ACCOUNT_DESC
+                );
+            }
+            entries += accountValidationCache.putAll(results);
+        }
+        return entries;
+    }
+}
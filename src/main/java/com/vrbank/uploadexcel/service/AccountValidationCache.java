@@ -0,0 +1,89 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.logging.NoLogging;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cache of the results of account lookups against the account, customer and GL masters.
+ * Results are cached without the amount checks, which do not depend on the masters.
+ * Only successful lookups are cached: an account that is opened, re-opened or authorised is accepted straight away,
+ * while one that is closed or unauthorised is still accepted until its entry expires (ttl-seconds).
+ */
+@Service
+public class AccountValidationCache {
+
+    public static final String CACHE_NAME = "accountValidations";
+
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+
+    public AccountValidationCache(CacheManager cacheManager, ApplicationProperties applicationProperties) {
+        this.cacheManager = cacheManager;
+        this.enabled = applicationProperties.getUpload().getAccountCache().isEnabled();
+    }
+
+    public static String customerAccountKey(String relCust, String account, String ccyCd) {
+        return "C:" + relCust + ":" + account + ":" + ccyCd;
+    }
+
+    public static String glAccountKey(String glAccount) {
+        return "G:" + glAccount;
+    }
+
+    /**
+     * Get a cached lookup result
+     * @return the result, or null when not cached
+     */
+    @NoLogging
+    public String get(String key) {
+        Cache cache = getCache();
+        return cache != null ? cache.get(key, String.class) : null;
+    }
+
+    /**
+     * Store a lookup result, if successful
+     */
+    @NoLogging
+    public void put(String key, String result) {
+        Cache cache = getCache();
+        if (cache != null && AccountValidationService.RESULT_OK.equals(result)) {
+            cache.put(key, result);
+        }
+    }
+
+    /**
+     * Store the successful ones of many lookup results at once, in a single call to the cache provider when it supports it
+     * @return the number of results stored
+     */
+    @SuppressWarnings("unchecked")
+    public int putAll(Map<String, String> results) {
+        Cache cache = getCache();
+        if (cache == null) {
+            return 0;
+        }
+        Map<String, String> successful = new HashMap<>();
+        results.forEach((key, result) -> {
+            if (AccountValidationService.RESULT_OK.equals(result)) {
+                successful.put(key, result);
+            }
+        });
+        if (successful.isEmpty()) {
+            return 0;
+        }
+        if (cache.getNativeCache() instanceof javax.cache.Cache<?, ?> nativeCache) {
+            ((javax.cache.Cache<Object, Object>) nativeCache).putAll(successful);
+        } else {
+            successful.forEach(cache::put);
+        }
+        return successful.size();
+    }
+
+    private Cache getCache() {
+        return enabled ? cacheManager.getCache(CACHE_NAME) : null;
+    }
+}
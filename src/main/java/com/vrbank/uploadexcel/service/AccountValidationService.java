@@ -1,11 +1,16 @@
 package com.vrbank.uploadexcel.service;
 
+import com.vrbank.uploadexcel.aop.logging.NoLogging;
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
@@ -14,11 +19,17 @@ import org.springframework.stereotype.Service;
  * Handles both customer accounts and GL accounts validation
  */
 @Service
+@UsesUploadPool
+@UsesReadReplica
 public class AccountValidationService {
 
     private final Logger log = LoggerFactory.getLogger(AccountValidationService.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final UploadValidationRules validationRules;
+    private final MasterDataIndex masterDataIndex;
+    private final AccountValidationCache accountValidationCache;
+    private final MasterDataQueryLimiter queryLimiter;
 
     // Constants for validation results
     public static final String RESULT_OK = "OK";
@@ -31,18 +42,68 @@ public class AccountValidationService {
     public static final String OTHER_DESC = "Validation error";
     public static final String ACCOUNT_NOT_FOUND_DESC = "Account not found";
     public static final String CUSTOMER_NOT_FOUND_DESC = "Customer not found";
-
-    public AccountValidationService(JdbcTemplate jdbcTemplate) {
+    public static final String ACCOUNT_INACTIVE_DESC = "Account is not active";
+    public static final String CUSTOMER_INACTIVE_DESC = "Customer is not active";
+
+    public AccountValidationService(
+        JdbcTemplate jdbcTemplate,
+        ApplicationProperties applicationProperties,
+        MasterDataIndex masterDataIndex,
+        AccountValidationCache accountValidationCache,
+        MasterDataQueryLimiter queryLimiter
+    ) {
         this.jdbcTemplate = jdbcTemplate;
+        this.masterDataIndex = masterDataIndex;
+        this.accountValidationCache = accountValidationCache;
+        this.queryLimiter = queryLimiter;
+        this.validationRules = new UploadValidationRules(applicationProperties.getUpload().getSupportedCurrencies());
     }
 
     /**
      * Validate customer account
      * Checks account existence, authorization status, and business rules
+     * The account is looked up in the master data index when it is loaded, then in the account validation cache,
+     * and only then in the database, within the limit of concurrent master data lookups
      */
+    @NoLogging
     public String validateCustomerAccount(String relCust, String account, String ccyCd, BigDecimal amount, String drCr) {
         log.debug("Validating customer account: {}, currency: {}, amount: {}", account, ccyCd, amount);
 
+        UploadFlightEvents.MasterDataLookup lookup = new UploadFlightEvents.MasterDataLookup();
+        lookup.begin();
+        String source = UploadFlightEvents.SOURCE_INDEX;
+        String accountValidation = masterDataIndex.checkCustomerAccount(relCust, account, ccyCd);
+        if (accountValidation == null) {
+            source = UploadFlightEvents.SOURCE_CACHE;
+            String cacheKey = AccountValidationCache.customerAccountKey(relCust, account, ccyCd);
+            accountValidation = accountValidationCache.get(cacheKey);
+            if (accountValidation == null) {
+                source = UploadFlightEvents.SOURCE_DATABASE;
+                accountValidation = lookupCustomerAccount(relCust, account, ccyCd);
+                accountValidationCache.put(cacheKey, accountValidation);
+            }
+        }
+        lookup.finish(UploadFlightEvents.LOOKUP_CUSTOMER_ACCOUNT, source, accountValidation);
+        if (!RESULT_OK.equals(accountValidation)) {
+            return accountValidation;
+        }
+
+        // Validate amount format based on currency
+        String amountValidation = validateAmountFormat(ccyCd, amount);
+        if (!RESULT_OK.equals(amountValidation)) {
+            return amountValidation;
+        }
+
+        log.debug("Account validation successful for account: {}", account);
+        return RESULT_OK;
+    }
+
+    /**
+     * Look up a customer account in the database
+     * @return the result of the status checks, or {@link #OTHER_DESC} when the lookup failed
+     * @throws TransientDataAccessException when the lookup was rejected by the query limiter or may succeed if retried
+     */
+    private String lookupCustomerAccount(String relCust, String account, String ccyCd) {
         try {
             // Query to get account and customer information
             String sql =
@@ -54,48 +115,23 @@ public class AccountValidationService {
                 WHERE a.account_no = ? AND a.currency_code = ? AND c.customer_no = ?
                 """;
 
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, account, ccyCd, relCust);
+            List<Map<String, Object>> results = queryLimiter.execute(() -> jdbcTemplate.queryForList(sql, account, ccyCd, relCust));
 
             if (results.isEmpty()) {
-                log.warn("Account {} with currency {} not found for customer {}", account, ccyCd, relCust);
+                UploadRowLog.warn(log, "Account {} with currency {} not found for customer {}", account, ccyCd, relCust);
                 return ACCOUNT_NOT_FOUND_DESC;
             }
 
             Map<String, Object> result = results.get(0);
-            String authStatAcct = (String) result.get("auth_stat_acct");
-            String authStatCif = (String) result.get("auth_stat_cif");
-            String accountStatus = (String) result.get("account_status");
-            String customerStatus = (String) result.get("customer_status");
             BigDecimal acyAvlBal = (BigDecimal) result.get("acy_avl_bal");
-
-            // Check if account is active
-            if (!"A".equals(accountStatus)) {
-                return "Account is not active";
-            }
-
-            // Check if customer is active
-            if (!"A".equals(customerStatus)) {
-                return "Customer is not active";
-            }
-
-            // Check if account is authorized
-            if (!AUTH_STAT.equals(authStatAcct)) {
-                log.warn("Account {} is not authorized. Status: {}", account, authStatAcct);
-                return AUTH_STAT_ACCT_DESC;
-            }
-
-            // Check if customer is authorized
-            if (!AUTH_STAT.equals(authStatCif)) {
-                log.warn("Customer {} is not authorized. Status: {}", relCust, authStatCif);
-                return AUTH_STAT_CIF_DESC;
-            }
-
-            // Validate amount format based on currency
-            if ("VND".equals(ccyCd)) {
-                // VND amounts must be integers
-                if (!isInteger(amount)) {
-                    return LCY_EQUIVALENT_INT_DESC;
-                }
+            String accountValidation = customerAccountStatus(
+                (String) result.get("account_status"),
+                (String) result.get("customer_status"),
+                (String) result.get("auth_stat_acct"),
+                (String) result.get("auth_stat_cif")
+            );
+            if (!RESULT_OK.equals(accountValidation)) {
+                UploadRowLog.warn(log, "Account {} of customer {} rejected: {}", account, relCust, accountValidation);
             }
 
             // Note: Balance checking is commented out as per original code
@@ -111,35 +147,108 @@ public class AccountValidationService {
             }
             */
 
-            log.debug("Account validation successful for account: {}", account);
-            return RESULT_OK;
+            return accountValidation;
+        } catch (TransientDataAccessException e) {
+            // A lookup rejected by the query limiter, or failing on an overloaded database, says nothing about the
+            // account: fail the whole upload with a retryable error instead of rejecting the row
+            throw e;
         } catch (Exception e) {
-            log.error("Error validating customer account {}: {}", account, e.getMessage());
+            // A lookup failing because the upload was cancelled or ran out of time stops the upload
+            UploadContext.checkCurrent();
+            UploadRowLog.error(log, "Error validating customer account {}: {}", account, e.getMessage());
             return OTHER_DESC;
         }
     }
 
+    /**
+     * Status checks of a customer account, from the columns of its account and customer master rows
+     */
+    public static String customerAccountStatus(String accountStatus, String customerStatus, String authStatAcct, String authStatCif) {
+        // Check if account is active
+        if (!"A".equals(accountStatus)) {
+            return ACCOUNT_INACTIVE_DESC;
+        }
+
+        // Check if customer is active
+        if (!"A".equals(customerStatus)) {
+            return CUSTOMER_INACTIVE_DESC;
+        }
+
+        // Check if account is authorized
+        if (!AUTH_STAT.equals(authStatAcct)) {
+            return AUTH_STAT_ACCT_DESC;
+        }
+
+        // Check if customer is authorized
+        if (!AUTH_STAT.equals(authStatCif)) {
+            return AUTH_STAT_CIF_DESC;
+        }
+
+        return RESULT_OK;
+    }
+
+    /**
+     * VND amounts must be integers
+     */
+    private String validateAmountFormat(String ccyCd, BigDecimal amount) {
+        if ("VND".equals(ccyCd) && !isInteger(amount)) {
+            return LCY_EQUIVALENT_INT_DESC;
+        }
+        return RESULT_OK;
+    }
+
     /**
      * Validate GL account
      * Checks if GL account exists and is active
+     * The GL code is looked up in the master data index when it is loaded, then in the account validation cache,
+     * and only then in the database, within the limit of concurrent master data lookups
      */
+    @NoLogging
     public String validateGLAccount(String glAccount) {
         log.debug("Validating GL account: {}", glAccount);
 
+        UploadFlightEvents.MasterDataLookup lookup = new UploadFlightEvents.MasterDataLookup();
+        lookup.begin();
+        String indexed = masterDataIndex.checkGLAccount(glAccount);
+        if (indexed != null) {
+            lookup.finish(UploadFlightEvents.LOOKUP_GL_ACCOUNT, UploadFlightEvents.SOURCE_INDEX, indexed);
+            return indexed;
+        }
+        String cacheKey = AccountValidationCache.glAccountKey(glAccount);
+        String cached = accountValidationCache.get(cacheKey);
+        if (cached != null) {
+            lookup.finish(UploadFlightEvents.LOOKUP_GL_ACCOUNT, UploadFlightEvents.SOURCE_CACHE, cached);
+            return cached;
+        }
+
+        String result = lookupGLAccount(glAccount, cacheKey);
+        lookup.finish(UploadFlightEvents.LOOKUP_GL_ACCOUNT, UploadFlightEvents.SOURCE_DATABASE, result);
+        return result;
+    }
+
+    /**
+     * Look up a GL account in the database, caching the result
+     * @throws TransientDataAccessException when the lookup was rejected by the query limiter or may succeed if retried
+     */
+    private String lookupGLAccount(String glAccount, String cacheKey) {
         try {
             // Check if GL account exists and is active
             String sql = "SELECT COUNT(*) FROM gl_master WHERE gl_code = ? AND status = 'A'";
-            Integer count = jdbcTemplate.queryForObject(sql, Integer.class, glAccount);
+            Integer count = queryLimiter.execute(() -> jdbcTemplate.queryForObject(sql, Integer.class, glAccount));
 
             if (count == null || count == 0) {
-                log.warn("GL account {} not found or inactive", glAccount);
+                UploadRowLog.warn(log, "GL account {} not found or inactive", glAccount);
                 return GL_ACCOUNT_DESC;
             }
 
             log.debug("GL account validation successful for: {}", glAccount);
+            accountValidationCache.put(cacheKey, RESULT_OK);
             return RESULT_OK;
+        } catch (TransientDataAccessException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error validating GL account {}: {}", glAccount, e.getMessage());
+            UploadContext.checkCurrent();
+            UploadRowLog.error(log, "Error validating GL account {}: {}", glAccount, e.getMessage());
             return GL_ACCOUNT_DESC;
         }
     }
@@ -220,56 +329,53 @@ public class AccountValidationService {
     /**
      * Validate account number format
      */
+    @NoLogging
     public String validateAccountFormat(String account) {
-        if (account == null || account.trim().isEmpty()) {
+        if (account == null) {
             return "Account number is required";
         }
 
-        String cleanAccount = account.trim();
-
-        // Customer account: exactly 15 digits
-        if (cleanAccount.length() == 15) {
-            if (!cleanAccount.matches("\\d{15}")) {
-                return "Customer account must be 15 digits";
-            }
-            return RESULT_OK;
-        }
-
-        // GL account: exactly 9 digits
-        if (cleanAccount.length() == 9) {
-            if (!cleanAccount.matches("\\d{9}")) {
-                return "GL account must be 9 digits";
-            }
-            return RESULT_OK;
+        int start = UploadValidationRules.trimStart(account);
+        int end = UploadValidationRules.trimEnd(account, start);
+
+        switch (end - start) {
+            case 0:
+                return "Account number is required";
+            case UploadValidationRules.CUSTOMER_ACCOUNT_LENGTH:
+                // Customer account: exactly 15 digits
+                return UploadValidationRules.isDigits(account, start, end) ? RESULT_OK : "Customer account must be 15 digits";
+            case UploadValidationRules.GL_ACCOUNT_LENGTH:
+                // GL account: exactly 9 digits
+                return UploadValidationRules.isDigits(account, start, end) ? RESULT_OK : "GL account must be 9 digits";
+            default:
+                return "Account number must be either 9 digits (GL) or 15 digits (Customer)";
         }
-
-        return "Account number must be either 9 digits (GL) or 15 digits (Customer)";
     }
 
     /**
      * Validate currency code
      */
+    @NoLogging
     public String validateCurrencyCode(String ccyCd) {
-        if (ccyCd == null || ccyCd.trim().isEmpty()) {
+        if (UploadValidationRules.isBlank(ccyCd)) {
             return "Currency code is required";
         }
 
-        String cleanCcy = ccyCd.trim().toUpperCase();
+        int start = UploadValidationRules.trimStart(ccyCd);
+        int end = UploadValidationRules.trimEnd(ccyCd, start);
 
         // Basic currency code validation (3 characters)
-        if (cleanCcy.length() != 3) {
+        if (end - start != UploadValidationRules.CURRENCY_CODE_LENGTH) {
             return "Currency code must be 3 characters";
         }
 
-        if (!cleanCcy.matches("[A-Z]{3}")) {
+        if (!UploadValidationRules.isLetters(ccyCd, start, end)) {
             return "Currency code must contain only letters";
         }
 
-        // Check if currency is supported (basic list)
-        List<String> supportedCurrencies = List.of("VND", "USD", "EUR", "JPY", "GBP", "AUD", "SGD");
-        if (!supportedCurrencies.contains(cleanCcy)) {
-            log.warn("Unsupported currency code: {}", cleanCcy);
-            // Don't fail validation for unknown currencies, just log warning
+        // Don't fail validation for unknown currencies, just log warning
+        if (!validationRules.isSupportedCurrency(ccyCd)) {
+            UploadRowLog.warn(log, "Unsupported currency code: {}", ccyCd);
         }
 
         return RESULT_OK;
@@ -278,14 +384,13 @@ public class AccountValidationService {
     /**
      * Validate Dr/Cr flag
      */
+    @NoLogging
     public String validateDrCr(String drCr) {
-        if (drCr == null || drCr.trim().isEmpty()) {
+        if (UploadValidationRules.isBlank(drCr)) {
             return "Dr/Cr flag is required";
         }
 
-        String cleanDrCr = drCr.trim().toUpperCase();
-
-        if (!"D".equals(cleanDrCr) && !"C".equals(cleanDrCr)) {
+        if (!UploadValidationRules.isDrCrFlag(drCr)) {
             return "Dr/Cr flag must be 'D' (Debit) or 'C' (Credit)";
         }
 
@@ -0,0 +1,32 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * A batch number claimed by one upload, identified by a random token so that only its owner can release it.
+ */
+public class BatchReservation {
+
+    private final String batchNo;
+    private final String token;
+    private volatile boolean completed;
+
+    public BatchReservation(String batchNo, String token) {
+        this.batchNo = batchNo;
+        this.token = token;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    void markCompleted() {
+        this.completed = true;
+    }
+}
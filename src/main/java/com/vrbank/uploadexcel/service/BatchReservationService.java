@@ -0,0 +1,175 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadBatch;
+import com.vrbank.uploadexcel.repository.UploadBatchRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for claiming batch numbers before an upload is parsed
+ * The claim is a RESERVED batch header committed in its own transaction, so the unique batch number
+ * makes a concurrent upload of the same batch fail straight away, on any node
+ */
+@Service
+public class BatchReservationService {
+
+    private final Logger log = LoggerFactory.getLogger(BatchReservationService.class);
+
+    private final UploadBatchRepository uploadBatchRepository;
+    private final TransactionTemplate newTransaction;
+    private final Duration reservationTtl;
+
+    public BatchReservationService(
+        UploadBatchRepository uploadBatchRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadBatchRepository = uploadBatchRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reservationTtl = Duration.ofSeconds(applicationProperties.getUpload().getReservationTtlSeconds());
+    }
+
+    /**
+     * Claim a batch number
+     * An expired claim left behind by a crashed upload is taken over
+     * @param contentHash SHA-256 of the uploaded file, recorded so that the same file is not uploaded twice meanwhile
+     * @param token identifies the reservation, unique to the upload
+     * @return the reservation, or empty if the batch number is already used or being uploaded
+     */
+    public Optional<BatchReservation> reserve(String batchNo, String branchCode, String sourceCode, String contentHash, String token) {
+        BatchReservation reservation = new BatchReservation(batchNo, token);
+        Instant now = Instant.now();
+        Instant reservedUntil = now.plus(reservationTtl);
+
+        boolean claimed;
+        try {
+            claimed = Boolean.TRUE.equals(
+                newTransaction.execute(status -> {
+                    if (uploadBatchRepository.findOneByBatchNo(batchNo).isPresent()) {
+                        return (
+                            uploadBatchRepository.takeOverExpiredReservation(
+                                batchNo,
+                                reservation.getToken(),
+                                contentHash,
+                                reservedUntil,
+                                now
+                            ) ==
+                            1
+                        );
+                    }
+                    UploadBatch batch = new UploadBatch(batchNo, branchCode, sourceCode);
+                    batch.setStatus(UploadBatch.STATUS_RESERVED);
+                    batch.setReservationToken(reservation.getToken());
+                    batch.setContentHash(contentHash);
+                    batch.setReservedUntil(reservedUntil);
+                    batch.setCreatedDate(now);
+                    uploadBatchRepository.saveAndFlush(batch);
+                    return true;
+                })
+            );
+        } catch (DataIntegrityViolationException e) {
+            // Another upload inserted the same batch number between our lookup and insert
+            claimed = false;
+        }
+
+        if (!claimed) {
+            log.warn("Batch {} is already used or being uploaded", batchNo);
+            return Optional.empty();
+        }
+        log.debug("Reserved batch {} until {}", batchNo, reservedUntil);
+        return Optional.of(reservation);
+    }
+
+    /**
+     * Release the reservation when the current transaction does not commit a completed batch
+     * Must be called within a transaction; the release itself runs in a new one
+     */
+    public void releaseUnlessCompleted(BatchReservation reservation) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED || !reservation.isCompleted()) {
+                        release(reservation);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Release a reservation so that the batch number can be uploaded again
+     */
+    public void release(BatchReservation reservation) {
+        try {
+            newTransaction.executeWithoutResult(status ->
+                uploadBatchRepository.deleteReservation(reservation.getBatchNo(), reservation.getToken())
+            );
+            log.debug("Released reservation of batch {}", reservation.getBatchNo());
+        } catch (RuntimeException e) {
+            // The claim expires on its own, so a failed release only delays re-uploading the batch
+            log.error("Error releasing reservation of batch {}: {}", reservation.getBatchNo(), e.getMessage());
+        }
+    }
+
+    /**
+     * Release the reservation held by an upload whose node died, without waiting for it to expire
+     * Only the reservation made with the given token is released, not one a new upload of the batch made since
+     * Runs in the caller's transaction
+     */
+    @Transactional
+    public void releaseAbandoned(String batchNo, String token) {
+        if (uploadBatchRepository.deleteReservation(batchNo, token) > 0) {
+            log.info("Released abandoned reservation of batch {}", batchNo);
+        }
+    }
+
+    /**
+     * Turn the reservation into a completed batch header, in the caller's transaction
+     * Only for an upload that saved rows: the content hash of a completed header marks its file as uploaded
+     */
+    @Transactional
+    public void complete(BatchReservation reservation, SpooledUpload spooledUpload, ValidatedUpload validatedUpload) {
+        UploadBatch batch = uploadBatchRepository
+            .findOneByBatchNo(reservation.getBatchNo())
+            .filter(b -> reservation.getToken().equals(b.getReservationToken()))
+            .orElseThrow(() -> new IllegalStateException("Reservation of batch " + reservation.getBatchNo() + " has expired"));
+        batch.setStatus(UploadBatch.STATUS_COMPLETED);
+        batch.setReservationToken(null);
+        batch.setReservedUntil(null);
+        batch.setContentHash(spooledUpload.getContentHash());
+        batch.setFileName(spooledUpload.getOriginalFilename());
+        batch.setTotalRows(validatedUpload.getTotalRows());
+        batch.setSuccessCount(validatedUpload.getSuccessCount());
+        batch.setErrorCount(validatedUpload.getErrors().size());
+        uploadBatchRepository.save(batch);
+        reservation.markCompleted();
+    }
+
+    /**
+     * Reservations whose upload neither completed nor released them are removed once expired.
+     * <p>
+     * This is scheduled to get fired every 5 minutes.
+     */
+    @Scheduled(cron = "0 */5 * * * ?")
+    public void removeExpiredReservations() {
+        int removed = uploadBatchRepository.deleteExpiredReservations(Instant.now());
+        if (removed > 0) {
+            log.info("Removed {} expired batch reservations", removed);
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package com.vrbank.uploadexcel.service;
 
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadBatch;
 import com.vrbank.uploadexcel.domain.UploadDetail;
+import com.vrbank.uploadexcel.repository.UploadBatchRepository;
 import com.vrbank.uploadexcel.repository.UploadDetailRepository;
 import com.vrbank.uploadexcel.service.dto.ExcelUploadDTO;
-import com.vrbank.uploadexcel.service.dto.UploadErrorDTO;
 import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import jakarta.persistence.EntityManager;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -27,13 +48,29 @@ import org.springframework.web.multipart.MultipartFile;
  * Handles file parsing, validation, and data persistence
  */
 @Service
+@UsesUploadPool
 @Transactional
 public class ExcelUploadService {
 
     private final Logger log = LoggerFactory.getLogger(ExcelUploadService.class);
 
     private final UploadDetailRepository uploadDetailRepository;
+    private final UploadBatchRepository uploadBatchRepository;
     private final AccountValidationService accountValidationService;
+    private final ValidatedUploadCache validatedUploadCache;
+    private final UploadSpooler uploadSpooler;
+    private final BatchReservationService batchReservationService;
+    private final UploadShardService uploadShardService;
+    private final UploadStagingService uploadStagingService;
+    private final Executor shardExecutor;
+    private final EntityManager entityManager;
+    private final int maxConsecutiveEmptyRows;
+    private final int maxRowsPerBatch;
+    private final boolean shardOversizedFiles;
+    private final boolean stagedValidation;
+    private final ApplicationProperties.Upload.Deadline deadlineProperties;
+    private final ApplicationProperties.Upload.RowLogging rowLoggingProperties;
+    private final long retryAfterSeconds;
 
     // Excel column indices (0-based)
     private static final int COL_REL_CUST = 1; // Column B
@@ -47,11 +84,38 @@ public class ExcelUploadService {
     private static final int COL_ADDL_TEXT = 9; // Column J
 
     private static final int START_ROW = 2; // Skip header rows (0-based, so row 3)
-    private static final int MAX_ROWS_PER_BATCH = 10000; // Configurable limit
-
-    public ExcelUploadService(UploadDetailRepository uploadDetailRepository, AccountValidationService accountValidationService) {
+    private static final int WRITE_CHUNK_SIZE = 1000; // Entities built and flushed at a time
+
+    public ExcelUploadService(
+        UploadDetailRepository uploadDetailRepository,
+        UploadBatchRepository uploadBatchRepository,
+        AccountValidationService accountValidationService,
+        ValidatedUploadCache validatedUploadCache,
+        UploadSpooler uploadSpooler,
+        BatchReservationService batchReservationService,
+        UploadShardService uploadShardService,
+        UploadStagingService uploadStagingService,
+        @Qualifier("excelShardTaskExecutor") Executor shardExecutor,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties
+    ) {
         this.uploadDetailRepository = uploadDetailRepository;
+        this.uploadBatchRepository = uploadBatchRepository;
         this.accountValidationService = accountValidationService;
+        this.validatedUploadCache = validatedUploadCache;
+        this.uploadSpooler = uploadSpooler;
+        this.batchReservationService = batchReservationService;
+        this.uploadShardService = uploadShardService;
+        this.uploadStagingService = uploadStagingService;
+        this.shardExecutor = shardExecutor;
+        this.entityManager = entityManager;
+        this.maxConsecutiveEmptyRows = applicationProperties.getUpload().getMaxConsecutiveEmptyRows();
+        this.maxRowsPerBatch = applicationProperties.getUpload().getMaxRowsPerBatch();
+        this.shardOversizedFiles = applicationProperties.getUpload().isShardOversizedFiles();
+        this.stagedValidation = applicationProperties.getUpload().isStagedValidation();
+        this.deadlineProperties = applicationProperties.getUpload().getDeadline();
+        this.rowLoggingProperties = applicationProperties.getUpload().getRowLogging();
+        this.retryAfterSeconds = applicationProperties.getUpload().getAdmission().getRetryAfterSeconds();
     }
 
     /**
@@ -59,7 +123,29 @@ public class ExcelUploadService {
      * Main method that orchestrates the entire upload process
      */
     public UploadResultDTO processExcelUpload(MultipartFile file, ExcelUploadDTO uploadParams) {
+        try (SpooledUpload spooledUpload = uploadSpooler.spool(file)) {
+            return processSpooledUpload(spooledUpload, uploadParams);
+        } catch (IOException e) {
+            log.error("Error spooling Excel file for batch {}: {}", uploadParams.getBatchNo(), e.getMessage(), e);
+            return UploadResultDTO.error(uploadParams.getBatchNo(), "Error reading uploaded file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Process an Excel file already copied to disk, either by this request or by a queued upload job
+     */
+    public UploadResultDTO processSpooledUpload(SpooledUpload spooledUpload, ExcelUploadDTO uploadParams) {
+        return processSpooledUpload(spooledUpload, uploadParams, new UploadContext(uploadParams.getBatchNo()));
+    }
+
+    /**
+     * Process an Excel file already copied to disk, until the upload context is cancelled or its deadline is reached
+     * A cancelled or timed out upload is rolled back and its batch number released
+     */
+    public UploadResultDTO processSpooledUpload(SpooledUpload spooledUpload, ExcelUploadDTO uploadParams, UploadContext context) {
         log.info("Starting Excel file upload processing for batch: {}", uploadParams.getBatchNo());
+        UploadFlightEvents.Upload uploadEvent = new UploadFlightEvents.Upload();
+        uploadEvent.begin();
 
         long startTime = System.currentTimeMillis();
         UploadResultDTO result = new UploadResultDTO();
@@ -67,6 +153,12 @@ public class ExcelUploadService {
         result.setErrors(new ArrayList<>());
         result.setUploadTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
 
+        Duration budget = timeBudget(uploadParams.getSourceCode());
+        if (budget != null) {
+            context.startDeadline(budget);
+        }
+        UploadRowLog rowLog = context.startRowLog(rowLoggingProperties.getMaxDetailedLines());
+        UploadContext previousContext = UploadContext.bind(context);
         try {
             // Validate upload parameters
             String paramValidation = validateUploadParameters(uploadParams);
@@ -74,19 +166,71 @@ public class ExcelUploadService {
                 return UploadResultDTO.error(uploadParams.getBatchNo(), paramValidation);
             }
 
-            // Check if batch already exists
-            if (uploadDetailRepository.existsByBatchNo(uploadParams.getBatchNo())) {
+            // Short-circuit files that were already uploaded, e.g. re-submitted after a timeout
+            Optional<UploadBatch> originalBatch = findBatchWithSameContent(spooledUpload);
+            if (originalBatch.isPresent()) {
+                return duplicateResult(uploadParams.getBatchNo(), originalBatch.orElseThrow());
+            }
+
+            // Claim the batch number before parsing, so that a concurrent upload of the same batch fails fast
+            Optional<BatchReservation> reservation = batchReservationService.reserve(
+                uploadParams.getBatchNo(),
+                uploadParams.getBranchCode(),
+                uploadParams.getSourceCode(),
+                spooledUpload.getContentHash(),
+                context.getReservationToken()
+            );
+            if (reservation.isEmpty()) {
+                String message = "Batch " + uploadParams.getBatchNo() + " already exists or is being uploaded";
+                return UploadResultDTO.error(uploadParams.getBatchNo(), message);
+            }
+            batchReservationService.releaseUnlessCompleted(reservation.orElseThrow());
+
+            // The same file reserved at the same time under another batch number: the earliest reservation goes on
+            Optional<UploadBatch> concurrentBatch = findBatchWithSameContent(spooledUpload).filter(
+                batch -> !uploadParams.getBatchNo().equals(batch.getBatchNo())
+            );
+            if (concurrentBatch.isPresent()) {
+                return duplicateResult(uploadParams.getBatchNo(), concurrentBatch.orElseThrow());
+            }
+
+            // Check if batch already exists (batches uploaded before headers were recorded)
+            if (hasRecords(uploadParams.getBatchNo())) {
                 String message = "Batch " + uploadParams.getBatchNo() + " already exists in the system";
                 log.warn(message);
                 return UploadResultDTO.error(uploadParams.getBatchNo(), message);
             }
 
             // Validate and process file
-            result = processExcelFile(file, uploadParams, startTime);
+            result = processExcelFile(spooledUpload, reservation.orElseThrow(), uploadParams, startTime);
         } catch (Exception e) {
-            log.error("Unexpected error during Excel upload processing for batch {}: {}", uploadParams.getBatchNo(), e.getMessage(), e);
-            result = UploadResultDTO.error(uploadParams.getBatchNo(), "Unexpected error during processing: " + e.getMessage());
+            if (context.isCancelled()) {
+                // Whatever failed, e.g. a cancelled statement, failed because of the cancellation
+                log.info("Upload of batch {} cancelled", uploadParams.getBatchNo());
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                result = UploadResultDTO.cancelled(uploadParams.getBatchNo());
+            } else if (context.isExpired()) {
+                // Likewise, e.g. a statement that timed out
+                log.warn("Upload of batch {} ran out of its {}s time budget: {}", uploadParams.getBatchNo(), budget.toSeconds(), e);
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                result = UploadResultDTO.timedOut(uploadParams.getBatchNo(), budget.toSeconds());
+            } else if (e instanceof TransientDataAccessException) {
+                // Master data lookups rejected under load: the rows were not checked, so the upload is retried as a whole
+                log.warn("Upload of batch {} rejected, master data lookups are overloaded: {}", uploadParams.getBatchNo(), e.getMessage());
+                throw overloaded(e);
+            } else {
+                log.error(
+                    "Unexpected error during Excel upload processing for batch {}: {}",
+                    uploadParams.getBatchNo(),
+                    e.getMessage(),
+                    e
+                );
+                result = UploadResultDTO.error(uploadParams.getBatchNo(), "Unexpected error during processing: " + e.getMessage());
+            }
+        } finally {
+            UploadContext.restore(previousContext);
         }
+        rowLog.logSummary(log, rowLoggingProperties.getTopMessages());
 
         long processingTime = System.currentTimeMillis() - startTime;
         result.setProcessingTimeMs(processingTime);
@@ -97,6 +241,114 @@ public class ExcelUploadService {
             result.isSuccess(),
             processingTime
         );
+        uploadEvent.finish(
+            uploadParams.getBatchNo(),
+            uploadParams.getSourceCode(),
+            spooledUpload.getOriginalFilename(),
+            spooledUpload.getSize(),
+            false,
+            result
+        );
+
+        return result;
+    }
+
+    /**
+     * Rejection of an upload whose master data lookups could not run, to be retried later
+     */
+    private UploadRejectedException overloaded(Exception cause) {
+        UploadRejectedException rejected = new UploadRejectedException(
+            "Account validation is overloaded, retry later: " + cause.getMessage(),
+            retryAfterSeconds,
+            0
+        );
+        rejected.initCause(cause);
+        return rejected;
+    }
+
+    /**
+     * Time budget of an upload from a source code, or null when uploads have none
+     */
+    private Duration timeBudget(String sourceCode) {
+        if (!deadlineProperties.isEnabled()) {
+            return null;
+        }
+        Integer seconds = sourceCode != null ? deadlineProperties.getSourceCodeSeconds().get(sourceCode) : null;
+        return Duration.ofSeconds(seconds != null ? seconds : deadlineProperties.getDefaultSeconds());
+    }
+
+    /**
+     * Validate Excel file without persisting anything (dry run)
+     * The validated rows are cached by content hash, so that an upload of the same file right after skips re-parsing
+     */
+    @Transactional(readOnly = true)
+    public UploadResultDTO validateExcelUpload(MultipartFile file, ExcelUploadDTO uploadParams) {
+        log.info("Starting Excel file validation for batch: {}", uploadParams.getBatchNo());
+        UploadFlightEvents.Upload uploadEvent = new UploadFlightEvents.Upload();
+        uploadEvent.begin();
+
+        long startTime = System.currentTimeMillis();
+        UploadResultDTO result;
+
+        UploadContext context = new UploadContext(uploadParams.getBatchNo());
+        UploadRowLog rowLog = context.startRowLog(rowLoggingProperties.getMaxDetailedLines());
+        UploadContext previousContext = UploadContext.bind(context);
+        try {
+            if (!uploadParams.hasValidEntryParameters()) {
+                return UploadResultDTO.error(uploadParams.getBatchNo(), "Invalid upload parameters");
+            }
+
+            // The batch number is optional for a dry run, but report a clash early when it is given
+            if (uploadParams.getBatchNo() != null && hasRecords(uploadParams.getBatchNo())) {
+                return UploadResultDTO.error(
+                    uploadParams.getBatchNo(),
+                    "Batch " + uploadParams.getBatchNo() + " already exists in the system"
+                );
+            }
+
+            try (SpooledUpload spooledUpload = uploadSpooler.spool(file)) {
+                Optional<UploadBatch> originalBatch = findBatchWithSameContent(spooledUpload);
+                if (originalBatch.isPresent()) {
+                    return duplicateResult(uploadParams.getBatchNo(), originalBatch.orElseThrow());
+                }
+
+                ValidatedUpload validatedUpload = readAndValidate(spooledUpload, uploadParams, true);
+
+                if (validatedUpload.hasStructureError()) {
+                    result = UploadResultDTO.error(uploadParams.getBatchNo(), validatedUpload.getStructureError());
+                } else {
+                    validatedUploadCache.put(spooledUpload.getContentHash(), validatedUpload);
+                    result = buildResult(uploadParams.getBatchNo(), validatedUpload);
+                    result.setMessage(
+                        String.format(
+                            "Validation completed. %d/%d rows are valid",
+                            validatedUpload.getSuccessCount(),
+                            validatedUpload.getTotalRows()
+                        )
+                    );
+                }
+            }
+        } catch (TransientDataAccessException e) {
+            log.warn("Validation of batch {} rejected, master data lookups are overloaded: {}", uploadParams.getBatchNo(), e.getMessage());
+            throw overloaded(e);
+        } catch (Exception e) {
+            log.error("Unexpected error during Excel validation for batch {}: {}", uploadParams.getBatchNo(), e.getMessage(), e);
+            result = UploadResultDTO.error(uploadParams.getBatchNo(), "Unexpected error during validation: " + e.getMessage());
+        } finally {
+            UploadContext.restore(previousContext);
+        }
+        rowLog.logSummary(log, rowLoggingProperties.getTopMessages());
+
+        result.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+        log.info("Excel validation completed for batch {}. Success: {}", uploadParams.getBatchNo(), result.isSuccess());
+        uploadEvent.finish(
+            uploadParams.getBatchNo(),
+            uploadParams.getSourceCode(),
+            file.getOriginalFilename(),
+            file.getSize(),
+            true,
+            result
+        );
 
         return result;
     }
@@ -116,92 +368,382 @@ public class ExcelUploadService {
     /**
      * Process the Excel file
      */
-    private UploadResultDTO processExcelFile(MultipartFile file, ExcelUploadDTO uploadParams, long startTime) throws IOException {
-        log.debug("Processing Excel file: {} ({}KB)", file.getOriginalFilename(), file.getSize() / 1024);
+    private UploadResultDTO processExcelFile(
+        SpooledUpload spooledUpload,
+        BatchReservation reservation,
+        ExcelUploadDTO uploadParams,
+        long startTime
+    ) throws IOException {
+        log.debug("Processing Excel file: {} ({}KB)", spooledUpload.getOriginalFilename(), spooledUpload.getSize() / 1024);
+
+        // Reuse the rows of a preceding dry run of the same file, if still cached
+        ValidatedUpload validatedUpload = validatedUploadCache.take(spooledUpload.getContentHash()).orElse(null);
+        boolean staged = false;
+        if (validatedUpload != null) {
+            // Batch-level fields are only applied when rows are written, so cached rows need no re-stamping
+            log.info("Using cached validation result for batch {}", uploadParams.getBatchNo());
+        } else {
+            validatedUpload = readAndValidate(spooledUpload, uploadParams, !stagedValidation);
+            staged = stagedValidation && !validatedUpload.hasStructureError();
+        }
+
+        if (validatedUpload.hasStructureError()) {
+            return UploadResultDTO.error(uploadParams.getBatchNo(), validatedUpload.getStructureError());
+        }
+
+        if (!staged) {
+            return saveValidatedUpload(spooledUpload, reservation, uploadParams, validatedUpload, false);
+        }
+
+        // Check accounts server-side; staged rows are keyed by the reservation token, which is unique to this upload
+        try {
+            UploadFlightEvents.Stage stagingEvent = new UploadFlightEvents.Stage();
+            stagingEvent.begin();
+            uploadStagingService.stageAndValidate(validatedUpload, reservation.getToken(), START_ROW);
+            stagingEvent.finish(UploadFlightEvents.STAGE_STAGING, validatedUpload.getTotalRows());
+            UploadContext.checkCurrent();
+            return saveValidatedUpload(spooledUpload, reservation, uploadParams, validatedUpload, true);
+        } finally {
+            uploadStagingService.clear(reservation.getToken());
+        }
+    }
+
+    /**
+     * Save the valid rows, complete the reservation and build the result
+     * @param staged whether the rows are in the staging table, from where they are copied with a single statement
+     */
+    private UploadResultDTO saveValidatedUpload(
+        SpooledUpload spooledUpload,
+        BatchReservation reservation,
+        ExcelUploadDTO uploadParams,
+        ValidatedUpload validatedUpload,
+        boolean staged
+    ) {
+        // Save successful records if any
+        UploadFlightEvents.Stage saveEvent = new UploadFlightEvents.Stage();
+        saveEvent.begin();
+        ParsedRowBuffer.BatchFields batchFields = batchFields(uploadParams);
+        List<String> subBatchNos = List.of();
+        if (shardOversizedFiles && spansSeveralBatches(validatedUpload)) {
+            if (!UploadShardService.canShard(uploadParams.getBatchNo())) {
+                return UploadResultDTO.error(
+                    uploadParams.getBatchNo(),
+                    "Batch number is too long to be split into sub-batches. Use at most 16 characters"
+                );
+            }
+            subBatchNos = uploadShardService.saveShards(
+                batchFields,
+                uploadParams.getBranchCode(),
+                uploadParams.getSourceCode(),
+                spooledUpload.getOriginalFilename(),
+                validatedUpload,
+                START_ROW
+            );
+        } else if (validatedUpload.getSuccessCount() > 0 && staged) {
+            int saved = uploadStagingService.insertValidRows(reservation.getToken(), batchFields);
+            log.info("Saved {} staged records for batch {}", saved, uploadParams.getBatchNo());
+        } else if (validatedUpload.getSuccessCount() > 0) {
+            saveRecords(validatedUpload, batchFields);
+            log.info("Saved {} records for batch {}", validatedUpload.getSuccessCount(), uploadParams.getBatchNo());
+        }
+
+        // With nothing saved, the reservation is released when the transaction ends, so the corrected file can be uploaded
+        if (validatedUpload.getSuccessCount() > 0) {
+            batchReservationService.complete(reservation, spooledUpload, validatedUpload);
+        }
+        saveEvent.finish(UploadFlightEvents.STAGE_SAVE, validatedUpload.getSuccessCount());
+
+        UploadResultDTO result = buildResult(uploadParams.getBatchNo(), validatedUpload);
+        result.setSubBatchNos(subBatchNos);
+        return result;
+    }
+
+    /**
+     * Check whether the rows of a file go beyond one batch
+     */
+    private boolean spansSeveralBatches(ValidatedUpload validatedUpload) {
+        BitSet validRows = validatedUpload.getValidRows();
+        int lastValidRow = validRows.length() - 1;
+        return lastValidRow >= 0 && validatedUpload.getRows().getCurrNo(lastValidRow) > maxRowsPerBatch;
+    }
+
+    /**
+     * Write the valid rows, building their entities a chunk at a time
+     * Each chunk is flushed and detached before the next one is built, so only one chunk of entities is on the heap
+     */
+    private void saveRecords(ValidatedUpload validatedUpload, ParsedRowBuffer.BatchFields batchFields) {
+        limitTransactionToDeadline();
+        ParsedRowBuffer rows = validatedUpload.getRows();
+        BitSet validRows = validatedUpload.getValidRows();
+        List<UploadDetail> chunk = new ArrayList<>(WRITE_CHUNK_SIZE);
+        for (int row = validRows.nextSetBit(0); row >= 0; row = validRows.nextSetBit(row + 1)) {
+            chunk.add(rows.toUploadDetail(row, batchFields));
+            if (chunk.size() == WRITE_CHUNK_SIZE) {
+                writeChunk(chunk);
+            }
+        }
+        writeChunk(chunk);
+    }
+
+    /**
+     * Time out the running transaction with the deadline of the upload, as the transactions of the sub-batches do
+     * The timeout applies to every statement of the transaction from now on, including the inserts flushed by JPA.
+     */
+    private void limitTransactionToDeadline() {
+        long remainingNanos = UploadContext.currentRemainingNanos();
+        if (remainingNanos == Long.MAX_VALUE) {
+            return;
+        }
+        long remainingSeconds = TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+        entityManager
+            .unwrap(SharedSessionContractImplementor.class)
+            .getJdbcCoordinator()
+            .setTransactionTimeOut((int) Math.max(1, Math.min(remainingSeconds, Integer.MAX_VALUE)));
+    }
+
+    private void writeChunk(List<UploadDetail> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        UploadContext.checkCurrent();
+        uploadDetailRepository.saveAll(chunk);
+        uploadDetailRepository.flush();
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+    }
+
+    /**
+     * Find an earlier batch uploaded, or still being uploaded, from a file with identical content
+     */
+    private Optional<UploadBatch> findBatchWithSameContent(SpooledUpload spooledUpload) {
+        Optional<UploadBatch> originalBatch = uploadBatchRepository
+            .findByContentHash(spooledUpload.getContentHash(), Instant.now())
+            .stream()
+            .findFirst();
+        originalBatch.ifPresent(batch ->
+            log.warn("File {} has the same content as batch {}", spooledUpload.getOriginalFilename(), batch.getBatchNo())
+        );
+        return originalBatch;
+    }
+
+    private UploadResultDTO duplicateResult(String batchNo, UploadBatch originalBatch) {
+        UploadResultDTO result = UploadResultDTO.duplicate(batchNo, originalBatch.getBatchNo());
+        if (UploadBatch.STATUS_RESERVED.equals(originalBatch.getStatus())) {
+            result.setMessage("This file is being uploaded as batch " + originalBatch.getBatchNo());
+        }
+        return result;
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            Workbook workbook = createWorkbook(file, inputStream);
+    /**
+     * Parse and validate every data row of the Excel file, without persisting anything
+     * @param accountChecks whether to look up the account of each row, rather than leaving it to staged validation
+     */
+    private ValidatedUpload readAndValidate(SpooledUpload spooledUpload, ExcelUploadDTO uploadParams, boolean accountChecks)
+        throws IOException {
+        UploadFlightEvents.WorkbookOpen openEvent = new UploadFlightEvents.WorkbookOpen();
+        openEvent.begin();
+        Workbook workbook = openWorkbook(spooledUpload);
+        openEvent.finish(spooledUpload);
+        try {
             Sheet sheet = workbook.getSheetAt(0);
 
             // Validate sheet structure
             String sheetValidation = validateSheetStructure(sheet);
             if (!AccountValidationService.RESULT_OK.equals(sheetValidation)) {
-                return UploadResultDTO.error(uploadParams.getBatchNo(), sheetValidation);
+                return ValidatedUpload.invalidStructure(sheetValidation);
             }
 
-            List<UploadDetail> uploadDetails = new ArrayList<>();
-            List<UploadErrorDTO> errors = new ArrayList<>();
-            int successCount = 0;
+            UploadFlightEvents.Stage parseEvent = new UploadFlightEvents.Stage();
+            parseEvent.begin();
+            ParsedRowBuffer parsedRows = new ParsedRowBuffer();
+            UploadErrors errors = new UploadErrors();
             int currentRow = START_ROW;
+            Integer skippedFromRow = null;
+            Integer skippedToRow = null;
 
-            // Process each data row
-            for (Row row : sheet) {
-                if (row.getRowNum() < START_ROW) {
-                    continue; // Skip header rows
-                }
-
+            // Parse each data row, skipping header rows and rows without values
+            SheetRowScanner dataRows = new SheetRowScanner(sheet, START_ROW, COL_ADDL_TEXT, maxConsecutiveEmptyRows);
+            for (Row row : dataRows) {
+                UploadContext.checkCurrent();
                 currentRow = row.getRowNum() + 1; // 1-based for user display
 
-                // Check row limit
-                if (currentRow - START_ROW > MAX_ROWS_PER_BATCH) {
-                    log.warn("Row limit exceeded for batch {}. Max rows: {}", uploadParams.getBatchNo(), MAX_ROWS_PER_BATCH);
+                // Check row limit, unless oversized files are split into sub-batches
+                if (!shardOversizedFiles && currentRow - START_ROW > maxRowsPerBatch) {
+                    log.warn("Row limit exceeded for batch {}. Max rows: {}", uploadParams.getBatchNo(), maxRowsPerBatch);
+                    skippedFromRow = currentRow;
+                    skippedToRow = sheet.getLastRowNum() + 1;
                     break;
                 }
 
                 try {
-                    UploadDetail uploadDetail = processRow(row, uploadParams, currentRow);
-                    if (uploadDetail != null) {
-                        // Validate the record
-                        List<UploadErrorDTO> rowErrors = validateUploadDetail(uploadDetail, currentRow);
-                        if (rowErrors.isEmpty()) {
-                            uploadDetails.add(uploadDetail);
-                            successCount++;
-                        } else {
-                            errors.addAll(rowErrors);
-                        }
-                    }
+                    processRow(row, parsedRows, currentRow);
                 } catch (Exception e) {
-                    log.error("Error processing row {}: {}", currentRow, e.getMessage());
-                    errors.add(UploadErrorDTO.processingError(currentRow, "Error processing row: " + e.getMessage()));
+                    UploadRowLog.error(log, "Error processing row {}: {}", currentRow, e.getMessage());
+                    errors.add(currentRow, UploadErrors.NO_ROW, UploadErrorCode.ROW_PROCESSING, e.getMessage());
                 }
             }
 
-            workbook.close();
-
-            // Save successful records if any
-            if (!uploadDetails.isEmpty()) {
-                uploadDetailRepository.saveAll(uploadDetails);
-                log.info("Saved {} records for batch {}", uploadDetails.size(), uploadParams.getBatchNo());
+            if (skippedFromRow == null && dataRows.getSkippedFromRow() != null) {
+                skippedFromRow = dataRows.getSkippedFromRow();
+                skippedToRow = dataRows.getSkippedToRow();
+            }
+            if (skippedFromRow != null) {
+                log.info("Rows {}-{} of batch {} were not read", skippedFromRow, skippedToRow, uploadParams.getBatchNo());
             }
 
-            // Build result
-            UploadResultDTO result = UploadResultDTO.partialSuccess(
-                uploadParams.getBatchNo(),
-                successCount + errors.size(),
-                successCount,
-                errors.size()
+            parseEvent.finish(UploadFlightEvents.STAGE_PARSE, parsedRows.size());
+
+            // Validate the records, in parallel chunks for large files
+            UploadFlightEvents.Stage validateEvent = new UploadFlightEvents.Stage();
+            validateEvent.begin();
+            BitSet validRows = validateRecords(parsedRows, batchFields(uploadParams), accountChecks, errors);
+            validateEvent.finish(UploadFlightEvents.STAGE_VALIDATE, parsedRows.size());
+            errors.sortByRowNumber();
+
+            return ValidatedUpload.of(parsedRows, validRows, errors).withSkippedRows(skippedFromRow, skippedToRow);
+        } finally {
+            closeWorkbook(workbook);
+        }
+    }
+
+    /**
+     * Validate parsed rows, recording the errors of invalid ones
+     * Files larger than one batch are validated in chunks of maxRowsPerBatch rows, in parallel
+     * @return the indexes of the valid rows
+     */
+    private BitSet validateRecords(
+        ParsedRowBuffer rows,
+        ParsedRowBuffer.BatchFields batchFields,
+        boolean accountChecks,
+        UploadErrors errors
+    ) {
+        if (rows.size() <= maxRowsPerBatch) {
+            BitSet validRows = new BitSet(rows.size());
+            validateChunk(rows, 0, rows.size(), batchFields, accountChecks, validRows, errors);
+            return validRows;
+        }
+
+        List<CompletableFuture<BitSet>> chunks = new ArrayList<>();
+        List<UploadErrors> chunkErrors = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += maxRowsPerBatch) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(from + maxRowsPerBatch, rows.size());
+            UploadErrors errorsOfChunk = new UploadErrors();
+            chunkErrors.add(errorsOfChunk);
+            chunks.add(
+                CompletableFuture.supplyAsync(
+                    UploadContext.propagate(() -> {
+                        BitSet validRowsOfChunk = new BitSet(chunkTo);
+                        validateChunk(rows, chunkFrom, chunkTo, batchFields, accountChecks, validRowsOfChunk, errorsOfChunk);
+                        return validRowsOfChunk;
+                    }),
+                    shardExecutor
+                )
             );
-            result.setErrors(errors);
-            result.setUploadTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+
+        BitSet validRows = new BitSet(rows.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                validRows.or(chunks.get(i).join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UploadCancelledException cancelled) {
+                    throw cancelled;
+                }
+                if (e.getCause() instanceof TransientDataAccessException transientFailure) {
+                    throw transientFailure;
+                }
+                throw e;
+            }
+            errors.addAll(chunkErrors.get(i));
+        }
+        return validRows;
+    }
 
-            return result;
+    private void validateChunk(
+        ParsedRowBuffer rows,
+        int from,
+        int to,
+        ParsedRowBuffer.BatchFields batchFields,
+        boolean accountChecks,
+        BitSet validRows,
+        UploadErrors errors
+    ) {
+        for (int row = from; row < to; row++) {
+            // Checked outside the try, so that the cancellation is not recorded as an error of the row
+            UploadContext.checkCurrent();
+            int rowNumber = rows.getCurrNo(row) + START_ROW;
+            try {
+                // The entity only lives while its row is validated
+                if (validateUploadDetail(rows.toUploadDetail(row, batchFields), rowNumber, row, accountChecks, errors)) {
+                    validRows.set(row);
+                }
+            } catch (UploadCancelledException | TransientDataAccessException e) {
+                throw e;
+            } catch (Exception e) {
+                UploadRowLog.error(log, "Error processing row {}: {}", rowNumber, e.getMessage());
+                errors.add(rowNumber, UploadErrors.NO_ROW, UploadErrorCode.ROW_PROCESSING, e.getMessage());
+            }
         }
     }
 
+    /**
+     * Build the result DTO from validated rows
+     */
+    private UploadResultDTO buildResult(String batchNo, ValidatedUpload validatedUpload) {
+        UploadResultDTO result = UploadResultDTO.partialSuccess(
+            batchNo,
+            validatedUpload.getTotalRows(),
+            validatedUpload.getSuccessCount(),
+            validatedUpload.getErrors().size()
+        );
+        result.setErrors(validatedUpload.getErrors().asDtoList(validatedUpload.getRows()));
+        result.setSkippedFromRow(validatedUpload.getSkippedFromRow());
+        result.setSkippedToRow(validatedUpload.getSkippedToRow());
+        result.setUploadTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return result;
+    }
+
     /**
      * Create appropriate workbook based on file type
+     * The workbook is opened read-only from the spooled file, so POI reads the archive by random access
+     * instead of first buffering the whole stream in memory
      */
-    private Workbook createWorkbook(MultipartFile file, InputStream inputStream) throws IOException {
-        String filename = file.getOriginalFilename();
+    private Workbook openWorkbook(SpooledUpload spooledUpload) throws IOException {
+        String filename = spooledUpload.getOriginalFilename();
+        File file = spooledUpload.getPath().toFile();
         if (filename != null && filename.toLowerCase().endsWith(".xlsx")) {
-            return new XSSFWorkbook(inputStream);
+            OPCPackage opcPackage;
+            try {
+                opcPackage = OPCPackage.open(file, PackageAccess.READ);
+            } catch (InvalidFormatException e) {
+                throw new IOException("Invalid .xlsx file: " + e.getMessage(), e);
+            }
+            try {
+                return new XSSFWorkbook(opcPackage);
+            } catch (IOException | RuntimeException e) {
+                opcPackage.revert();
+                throw e;
+            }
         } else if (filename != null && filename.toLowerCase().endsWith(".xls")) {
-            return new HSSFWorkbook(inputStream);
+            return new HSSFWorkbook(new POIFSFileSystem(file, true));
         } else {
             throw new IOException("Unsupported file format. Only .xlsx and .xls files are supported.");
         }
     }
 
+    /**
+     * Close the workbook and release the spooled file
+     * A read-only OPC package is reverted rather than closed, as closing it would try to save it
+     */
+    private void closeWorkbook(Workbook workbook) throws IOException {
+        if (workbook instanceof XSSFWorkbook xssfWorkbook) {
+            xssfWorkbook.getPackage().revert();
+        } else {
+            workbook.close();
+        }
+    }
+
     /**
      * Validate Excel sheet structure
      */
@@ -225,145 +767,133 @@ public class ExcelUploadService {
     }
 
     /**
-     * Process individual row from Excel
+     * Process individual row from Excel into the row buffer
      */
-    private UploadDetail processRow(Row row, ExcelUploadDTO uploadParams, int rowNumber) {
+    private void processRow(Row row, ParsedRowBuffer rows, int rowNumber) {
         // Check if row is empty
         if (isRowEmpty(row)) {
-            log.debug("Skipping empty row {}", rowNumber);
-            return null;
+            UploadRowLog.debug(log, "Skipping empty row {}", rowNumber);
+            return;
         }
 
-        UploadDetail detail = new UploadDetail();
-
         try {
-            // Set fixed parameters from upload form
-            detail.setBatchNo(uploadParams.getBatchNo());
-            detail.setBranchCode(uploadParams.getBranchCode());
-            detail.setSourceCode(uploadParams.getSourceCode());
-            detail.setExchRate(uploadParams.getExchRate());
-            detail.setInitiationDate(uploadParams.getEntryDate());
-            detail.setValueDate(uploadParams.getEntryDate());
-            detail.setUploadDate(LocalDate.now());
-            detail.setFinCycle("FY" + uploadParams.getEntryDate().getYear());
-            detail.setPeriodCode(getMonthString(uploadParams.getEntryDate().getMonthValue()));
-            detail.setCurrNo(String.valueOf(rowNumber - START_ROW));
-
             // Read data from Excel columns
-            detail.setAccount(getCellStringValue(row.getCell(COL_ACCOUNT)));
+            String account = getCellStringValue(row.getCell(COL_ACCOUNT));
 
             // Set REL_CUST based on account length (customer accounts are 15 digits)
-            String account = detail.getAccount();
+            String relCust = null;
             if (account != null && account.length() >= 15) {
-                detail.setRelCust(getCellStringValue(row.getCell(COL_REL_CUST)));
+                relCust = getCellStringValue(row.getCell(COL_REL_CUST));
             }
 
-            detail.setAccountBranch(getCellStringValue(row.getCell(COL_ACCOUNT_BRANCH)));
-            detail.setDrCr(getCellStringValue(row.getCell(COL_DR_CR)));
-            detail.setCcyCd(getCellStringValue(row.getCell(COL_CCY_CD)));
-            detail.setAmount(getCellNumericValue(row.getCell(COL_AMOUNT)));
-            detail.setLcyEquivalent(getCellNumericValue(row.getCell(COL_LCY_EQUIVALENT)));
-            detail.setTxnCode(getCellStringValue(row.getCell(COL_TXN_CODE)));
-            detail.setAddlText(getCellStringValue(row.getCell(COL_ADDL_TEXT)));
-
-            // Set default values
-            detail.setUploadStat("N");
-            detail.setDeleteStat("N");
-
-            return detail;
+            rows.add(
+                rowNumber - START_ROW,
+                relCust,
+                account,
+                getCellStringValue(row.getCell(COL_ACCOUNT_BRANCH)),
+                getCellStringValue(row.getCell(COL_DR_CR)),
+                getCellStringValue(row.getCell(COL_CCY_CD)),
+                getCellNumericValue(row.getCell(COL_AMOUNT)),
+                getCellNumericValue(row.getCell(COL_LCY_EQUIVALENT)),
+                getCellStringValue(row.getCell(COL_TXN_CODE)),
+                getCellStringValue(row.getCell(COL_ADDL_TEXT))
+            );
         } catch (Exception e) {
-            log.error("Error parsing row {}: {}", rowNumber, e.getMessage());
+            UploadRowLog.error(log, "Error parsing row {}: {}", rowNumber, e.getMessage());
             throw new RuntimeException("Error parsing Excel row data", e);
         }
     }
 
     /**
-     * Validate upload detail record
+     * Batch level fields that come from the upload form, shared by every row of the batch
      */
-    private List<UploadErrorDTO> validateUploadDetail(UploadDetail detail, int rowNumber) {
-        List<UploadErrorDTO> errors = new ArrayList<>();
+    private ParsedRowBuffer.BatchFields batchFields(ExcelUploadDTO uploadParams) {
+        return new ParsedRowBuffer.BatchFields(
+            uploadParams.getBatchNo(),
+            uploadParams.getBranchCode(),
+            uploadParams.getSourceCode(),
+            uploadParams.getExchRate(),
+            uploadParams.getEntryDate(),
+            LocalDate.now(),
+            "FY" + uploadParams.getEntryDate().getYear(),
+            getMonthString(uploadParams.getEntryDate().getMonthValue())
+        );
+    }
+
+    /**
+     * Validate upload detail record, recording its errors
+     * @param rowIndex index of the row in the parsed row buffer, for the row values shown with its errors
+     * @param accountChecks whether to look up the account, after the format checks
+     * @return true if the row passed validation
+     */
+    private boolean validateUploadDetail(UploadDetail detail, int rowNumber, int rowIndex, boolean accountChecks, UploadErrors errors) {
+        int errorsBefore = errors.size();
 
         // Basic field validations
         if (detail.getAccount() == null || detail.getAccount().trim().isEmpty()) {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "Account", "Account number is required"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.ACCOUNT_REQUIRED);
         } else {
             String accountValidation = accountValidationService.validateAccountFormat(detail.getAccount());
             if (!AccountValidationService.RESULT_OK.equals(accountValidation)) {
-                errors.add(UploadErrorDTO.validationError(rowNumber, "Account", accountValidation));
+                errors.add(rowNumber, rowIndex, UploadErrorCode.ACCOUNT_FORMAT, accountValidation);
             }
         }
 
         if (detail.getAmount() == null || detail.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "Amount", "Amount must be greater than zero"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.AMOUNT_NOT_POSITIVE);
         }
 
         if (detail.getLcyEquivalent() == null || detail.getLcyEquivalent().compareTo(BigDecimal.ZERO) <= 0) {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "LCY Equivalent", "LCY equivalent must be greater than zero"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.LCY_EQUIVALENT_NOT_POSITIVE);
         }
 
         // Currency validation
         if (detail.getCcyCd() != null) {
             String currencyValidation = accountValidationService.validateCurrencyCode(detail.getCcyCd());
             if (!AccountValidationService.RESULT_OK.equals(currencyValidation)) {
-                errors.add(UploadErrorDTO.validationError(rowNumber, "Currency", currencyValidation));
+                errors.add(rowNumber, rowIndex, UploadErrorCode.CURRENCY_FORMAT, currencyValidation);
             }
         } else {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "Currency", "Currency code is required"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.CURRENCY_REQUIRED);
         }
 
         // Dr/Cr validation
         if (detail.getDrCr() != null) {
             String drCrValidation = accountValidationService.validateDrCr(detail.getDrCr());
             if (!AccountValidationService.RESULT_OK.equals(drCrValidation)) {
-                errors.add(UploadErrorDTO.validationError(rowNumber, "Dr/Cr", drCrValidation));
+                errors.add(rowNumber, rowIndex, UploadErrorCode.DR_CR_FORMAT, drCrValidation);
             }
         } else {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "Dr/Cr", "Dr/Cr flag is required"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.DR_CR_REQUIRED);
         }
 
         // Transaction code validation
         if (detail.getTxnCode() == null || detail.getTxnCode().trim().isEmpty()) {
-            errors.add(UploadErrorDTO.validationError(rowNumber, "Transaction Code", "Transaction code is required"));
+            errors.add(rowNumber, rowIndex, UploadErrorCode.TXN_CODE_REQUIRED);
         }
 
         // Stop validation if basic fields are invalid
-        if (!errors.isEmpty()) {
-            // Add row data to first error for reference
-            if (!errors.isEmpty()) {
-                UploadErrorDTO firstError = errors.get(0);
-                populateErrorData(firstError, detail);
-            }
-            return errors;
+        if (errors.size() > errorsBefore) {
+            return false;
         }
 
         // Amount format validation for VND (must be integers)
         if ("VND".equals(detail.getCcyCd())) {
             if (!isInteger(detail.getAmount())) {
-                errors.add(
-                    UploadErrorDTO.amountError(rowNumber, "VND amount must be a whole number", detail.getAmount(), detail.getCcyCd())
-                );
+                errors.add(rowNumber, rowIndex, UploadErrorCode.VND_AMOUNT_NOT_WHOLE);
             }
             if (!isInteger(detail.getLcyEquivalent())) {
-                errors.add(
-                    UploadErrorDTO.amountError(
-                        rowNumber,
-                        "VND LCY equivalent must be a whole number",
-                        detail.getLcyEquivalent(),
-                        detail.getCcyCd()
-                    )
-                );
+                errors.add(rowNumber, rowIndex, UploadErrorCode.VND_LCY_EQUIVALENT_NOT_WHOLE);
             }
         } else {
             // For foreign currency, only LCY equivalent needs to be integer
             if (!isInteger(detail.getLcyEquivalent())) {
-                errors.add(
-                    UploadErrorDTO.amountError(rowNumber, "LCY equivalent must be a whole number", detail.getLcyEquivalent(), "VND")
-                );
+                errors.add(rowNumber, rowIndex, UploadErrorCode.LCY_EQUIVALENT_NOT_WHOLE);
             }
         }
 
         // Business validation using AccountValidationService
-        if (errors.isEmpty() && detail.getAccount() != null) {
+        if (accountChecks && errors.size() == errorsBefore && detail.getAccount() != null) {
             String businessValidation;
             if (detail.getAccount().length() >= 15) {
                 // Customer account validation
@@ -380,33 +910,11 @@ public class ExcelUploadService {
             }
 
             if (!AccountValidationService.RESULT_OK.equals(businessValidation)) {
-                UploadErrorDTO businessError = UploadErrorDTO.accountError(rowNumber, detail.getAccount(), businessValidation);
-                populateErrorData(businessError, detail);
-                errors.add(businessError);
+                errors.add(rowNumber, rowIndex, UploadErrorCode.ACCOUNT_REJECTED, businessValidation);
             }
         }
 
-        // Populate error data for display
-        errors.forEach(error -> populateErrorData(error, detail));
-
-        return errors;
-    }
-
-    /**
-     * Populate error DTO with data from upload detail
-     */
-    private void populateErrorData(UploadErrorDTO error, UploadDetail detail) {
-        if (detail != null) {
-            error.setRelCust(detail.getRelCust());
-            error.setAccount(detail.getAccount());
-            error.setAccountBranch(detail.getAccountBranch());
-            error.setDrCr(detail.getDrCr());
-            error.setCcyCd(detail.getCcyCd());
-            error.setAmount(detail.getAmount());
-            error.setLcyEquivalent(detail.getLcyEquivalent());
-            error.setTxnCode(detail.getTxnCode());
-            error.setAddlText(detail.getAddlText());
-        }
+        return errors.size() == errorsBefore;
     }
 
     /**
@@ -482,7 +990,7 @@ public class ExcelUploadService {
                     return null;
             }
         } catch (Exception e) {
-            log.warn("Error reading cell value: {}", e.getMessage());
+            UploadRowLog.warn(log, "Error reading cell value: {}", e.getMessage());
             return null;
         }
     }
@@ -513,10 +1021,10 @@ public class ExcelUploadService {
                     return null;
             }
         } catch (NumberFormatException e) {
-            log.warn("Invalid numeric value in cell: {}", e.getMessage());
+            UploadRowLog.warn(log, "Invalid numeric value in cell: {}", e.getMessage());
             return null;
         } catch (Exception e) {
-            log.warn("Error reading numeric cell value: {}", e.getMessage());
+            UploadRowLog.warn(log, "Error reading numeric cell value: {}", e.getMessage());
             return null;
         }
     }
@@ -540,19 +1048,34 @@ public class ExcelUploadService {
             return false;
         }
 
-        if (!uploadDetailRepository.existsByBatchNo(batchNo)) {
+        // A batch split into sub-batches is deleted together with them
+        List<String> batchNos = new ArrayList<>();
+        batchNos.add(batchNo);
+        uploadBatchRepository.findByParentBatchNoOrderByBatchNoAsc(batchNo).forEach(shard -> batchNos.add(shard.getBatchNo()));
+
+        // A completed header without records is left by a failed upload of an earlier version, and is deleted as well
+        if (batchNos.stream().noneMatch(this::hasRecords) && !hasCompletedHeader(batchNo)) {
             log.warn("Cannot delete batch {}: batch does not exist", batchNo);
             return false;
         }
 
-        // Check if batch is already processed
-        if (uploadDetailRepository.existsByBatchNoAndUploadStat(batchNo, "Y")) {
+        // Check if batch is already processed, archived records being processed ones
+        if (batchNos.stream().anyMatch(b -> uploadDetailRepository.existsByBatchNoAndUploadStat(b, "Y") || isArchived(b))) {
             log.error("Cannot delete processed batch: {}", batchNo);
             throw new RuntimeException("Cannot delete processed batch: " + batchNo);
         }
+        // Or claimed by a posting worker
+        String processing = UploadPostingService.STATUS_PROCESSING;
+        if (batchNos.stream().anyMatch(b -> uploadDetailRepository.existsByBatchNoAndUploadStat(b, processing))) {
+            log.error("Cannot delete batch being posted: {}", batchNo);
+            throw new RuntimeException("Cannot delete batch being posted: " + batchNo);
+        }
 
         try {
-            uploadDetailRepository.deleteByBatchNo(batchNo);
+            for (String b : batchNos) {
+                uploadDetailRepository.deleteByBatchNo(b);
+                uploadBatchRepository.deleteByBatchNo(b);
+            }
             log.info("Successfully deleted batch: {}", batchNo);
             return true;
         } catch (Exception e) {
@@ -562,18 +1085,38 @@ public class ExcelUploadService {
     }
 
     /**
-     * Check if batch exists
+     * Check if batch exists, its records being live or archived
      */
     public boolean batchExists(String batchNo) {
         if (batchNo == null || batchNo.trim().isEmpty()) {
             return false;
         }
-        return uploadDetailRepository.existsByBatchNo(batchNo);
+        return hasRecords(batchNo) || uploadBatchRepository.existsByParentBatchNo(batchNo);
+    }
+
+    /**
+     * Whether the batch has records, in detb_upload_detail or moved to detb_upload_detail_arch
+     */
+    private boolean hasRecords(String batchNo) {
+        return uploadDetailRepository.existsByBatchNo(batchNo) || isArchived(batchNo);
+    }
+
+    private boolean isArchived(String batchNo) {
+        return uploadDetailRepository.existsArchivedByBatchNo(batchNo) > 0;
+    }
+
+    private boolean hasCompletedHeader(String batchNo) {
+        return uploadBatchRepository
+            .findOneByBatchNo(batchNo)
+            .filter(batch -> UploadBatch.STATUS_COMPLETED.equals(batch.getStatus()))
+            .isPresent();
     }
 
     /**
      * Get batch summary
      */
+    @UsesReadReplica
+    @Transactional(readOnly = true)
     public List<Object[]> getBatchSummary() {
         try {
             return uploadDetailRepository.findBatchSummary();
@@ -585,10 +1128,14 @@ public class ExcelUploadService {
 
     /**
      * Get batch statistics
+     * A batch whose records were archived gets the statistics of its archived records
      */
+    @UsesReadReplica
+    @Transactional(readOnly = true)
     public Object[] getBatchStatistics(String batchNo) {
         try {
-            return uploadDetailRepository.getBatchStatistics(batchNo);
+            Object[] statistics = uploadDetailRepository.getBatchStatistics(batchNo);
+            return statistics != null ? statistics : uploadDetailRepository.getArchivedBatchStatistics(batchNo);
         } catch (Exception e) {
             log.error("Error getting batch statistics for {}: {}", batchNo, e.getMessage());
             return null;
@@ -0,0 +1,153 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * Open-addressing hash set of int values, with linear probing and backward-shift deletion.
+ * Values live in a primitive array, so neither a lookup nor an insert boxes or allocates.
+ * Not thread-safe: a set shared between threads must not be modified once published, see {@link #copy()}.
+ */
+public final class IntHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int EMPTY = 0;
+
+    private int[] values;
+    private int mask;
+    private int size;
+
+    // The empty-slot marker cannot be stored in the array, so value 0 is tracked on its own
+    private boolean hasZero;
+
+    public IntHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private IntHashSet(IntHashSet other) {
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+        this.hasZero = other.hasZero;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return hasZero;
+        }
+        for (int slot = slot(value);; slot = (slot + 1) & mask) {
+            int current = values[slot];
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true if the value was not in the set
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        for (int slot = slot(value);; slot = (slot + 1) & mask) {
+            int current = values[slot];
+            if (current == value) {
+                return false;
+            }
+            if (current == EMPTY) {
+                values[slot] = value;
+                if (++size > values.length * LOAD_FACTOR) {
+                    rehash(values.length << 1);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int slot = slot(value);
+        while (values[slot] != value) {
+            if (values[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move back the following entries of the probe chain, so that lookups still find them
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(values[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Independent copy, to be modified while readers keep using this set
+     */
+    public IntHashSet copy() {
+        return new IntHashSet(this);
+    }
+
+    /**
+     * Approximate heap used by the value array
+     */
+    public long memoryBytes() {
+        return (long) values.length * Integer.BYTES;
+    }
+
+    private int slot(int value) {
+        // Spread sequential GL codes over the table
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int value : oldValues) {
+            if (value != EMPTY) {
+                int slot = slot(value);
+                while (values[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                values[slot] = value;
+            }
+        }
+    }
+}
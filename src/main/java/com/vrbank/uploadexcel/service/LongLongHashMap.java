@@ -0,0 +1,149 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * Open-addressing hash map from long keys to long values, with linear probing.
+ * Keys and values live in two primitive arrays, so neither a lookup nor an insert boxes or allocates.
+ * Not thread-safe: a map shared between threads must not be modified once published, see {@link #copy()}.
+ */
+public final class LongLongHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    // The empty-slot marker cannot be stored in the arrays, so key 0 has its own slot
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private LongLongHashMap(LongLongHashMap other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+        this.hasZeroKey = other.hasZeroKey;
+        this.zeroValue = other.zeroValue;
+    }
+
+    /**
+     * Get the value of a key
+     * @return the value, or defaultValue when the key is not in the map
+     */
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Associate a value with a key, replacing any previous value
+     */
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > keys.length * LOAD_FACTOR) {
+                    rehash(keys.length << 1);
+                }
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Independent copy, to be modified while readers keep using this map
+     */
+    public LongLongHashMap copy() {
+        return new LongLongHashMap(this);
+    }
+
+    /**
+     * Approximate heap used by the key and value arrays
+     */
+    public long memoryBytes() {
+        return (long) keys.length * Long.BYTES * 2;
+    }
+
+    private int slot(long key) {
+        // Spread sequential account numbers over the table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.logging.NoLogging;
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process index of the account, customer and GL masters, used to check uploaded accounts without a database round trip
+ * Customer accounts (15 digits) and customer numbers are packed into longs, and GL codes (9 digits) into ints, so the
+ * index is made of primitive open-addressing tables and a lookup neither boxes nor allocates.
+ * The index is loaded by the first scheduled refresh after startup, by streaming the master tables, and then refreshed
+ * on a schedule: incrementally when a change column is configured, otherwise by a full reload.
+ * Lookups the index cannot answer exactly (e.g. values with surrounding spaces) are left to the database.
+ */
+@Service
+@UsesUploadPool
+@UsesReadReplica
+public class MasterDataIndex {
+
+    private static final String METER_PREFIX = "upload.master.index.";
+
+    private final Logger log = LoggerFactory.getLogger(MasterDataIndex.class);
+
+    static final long MISSING = -1L;
+
+    private static final int ACCOUNT_LENGTH = UploadValidationRules.CUSTOMER_ACCOUNT_LENGTH;
+    private static final int GL_CODE_LENGTH = UploadValidationRules.GL_ACCOUNT_LENGTH;
+    private static final int MAX_CUSTOMER_NO_LENGTH = 13;
+
+    // Packed account value: currency (15 bits) | active | authorized | ambiguous | customer key (45 bits)
+    private static final int CURRENCY_BITS = 15;
+    private static final long CURRENCY_MASK = (1L << CURRENCY_BITS) - 1;
+    private static final long NO_CURRENCY = CURRENCY_MASK;
+    private static final long ACTIVE = 1L << CURRENCY_BITS;
+    private static final long AUTHORIZED = 1L << (CURRENCY_BITS + 1);
+    private static final long AMBIGUOUS = 1L << (CURRENCY_BITS + 2);
+    private static final int CUSTOMER_SHIFT = CURRENCY_BITS + 3;
+    private static final long NO_CUSTOMER = 0L;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ApplicationProperties.Upload.MasterIndex properties;
+    private final Timer fullReloadTimer;
+    private final Timer incrementalRefreshTimer;
+
+    private volatile Snapshot snapshot;
+
+    public MasterDataIndex(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.properties = applicationProperties.getUpload().getMasterIndex();
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(properties.getFetchSize());
+
+        registerGauge(registry, "entries", "account", s -> s.accounts.size());
+        registerGauge(registry, "entries", "customer", s -> s.customers.size());
+        registerGauge(registry, "entries", "gl", s -> s.activeGlCodes.size());
+        Gauge.builder(METER_PREFIX + "memory", this, index -> index.snapshot != null ? index.snapshot.memoryBytes() : 0)
+            .description("Heap used by the tables of the master data index")
+            .baseUnit("bytes")
+            .register(registry);
+        this.fullReloadTimer = refreshTimer(registry, "full");
+        this.incrementalRefreshTimer = refreshTimer(registry, "incremental");
+    }
+
+    private void registerGauge(MeterRegistry registry, String name, String table, ToDoubleFunction<Snapshot> value) {
+        Gauge.builder(METER_PREFIX + name, this, index -> index.snapshot != null ? value.applyAsDouble(index.snapshot) : 0)
+            .description("Number of master rows in the index")
+            .tag("table", table)
+            .register(registry);
+    }
+
+    private static Timer refreshTimer(MeterRegistry registry, String mode) {
+        return Timer.builder(METER_PREFIX + "refresh")
+            .description("Time taken to refresh the master data index")
+            .tag("mode", mode)
+            .register(registry);
+    }
+
+    /**
+     * Whether the index is loaded and answering lookups
+     */
+    @NoLogging
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * Check a customer account like {@link AccountValidationService#validateCustomerAccount}, except for the amount
+     * @return the result of the check, or null when the index cannot answer and the database must be queried
+     */
+    @NoLogging
+    public String checkCustomerAccount(String relCust, String account, String ccyCd) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        long accountKey = accountKey(account);
+        long currency = currencyIndex(ccyCd);
+        if (accountKey == MISSING || currency == NO_CURRENCY) {
+            return null;
+        }
+        if (relCust == null) {
+            return AccountValidationService.ACCOUNT_NOT_FOUND_DESC;
+        }
+        long customerKey = customerKey(relCust);
+        if (customerKey == NO_CUSTOMER) {
+            // Only customer numbers the index could not pack may still match
+            return current.unindexedCustomers ? null : AccountValidationService.ACCOUNT_NOT_FOUND_DESC;
+        }
+
+        long accountValue = current.accounts.get(accountKey, MISSING);
+        if (accountValue == MISSING) {
+            return AccountValidationService.ACCOUNT_NOT_FOUND_DESC;
+        }
+        if ((accountValue & AMBIGUOUS) != 0) {
+            return null;
+        }
+        if ((accountValue & CURRENCY_MASK) != currency || (accountValue >>> CUSTOMER_SHIFT) != customerKey) {
+            return AccountValidationService.ACCOUNT_NOT_FOUND_DESC;
+        }
+        long customerValue = current.customers.get(customerKey, MISSING);
+        if (customerValue == MISSING) {
+            return AccountValidationService.ACCOUNT_NOT_FOUND_DESC;
+        }
+
+        if ((accountValue & ACTIVE) == 0) {
+            return AccountValidationService.ACCOUNT_INACTIVE_DESC;
+        }
+        if ((customerValue & ACTIVE) == 0) {
+            return AccountValidationService.CUSTOMER_INACTIVE_DESC;
+        }
+        if ((accountValue & AUTHORIZED) == 0) {
+            return AccountValidationService.AUTH_STAT_ACCT_DESC;
+        }
+        if ((customerValue & AUTHORIZED) == 0) {
+            return AccountValidationService.AUTH_STAT_CIF_DESC;
+        }
+        return AccountValidationService.RESULT_OK;
+    }
+
+    /**
+     * Check a GL account like {@link AccountValidationService#validateGLAccount}
+     * @return the result of the check, or null when the index cannot answer and the database must be queried
+     */
+    @NoLogging
+    public String checkGLAccount(String glAccount) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        int glKey = glKey(glAccount);
+        if (glKey < 0) {
+            return null;
+        }
+        return current.activeGlCodes.contains(glKey) ? AccountValidationService.RESULT_OK : AccountValidationService.GL_ACCOUNT_DESC;
+    }
+
+    /**
+     * Refresh the index, loading it entirely on the first run
+     * This is scheduled to get fired every application.upload.master-index.refresh-interval-ms, starting at startup.
+     */
+    @Scheduled(fixedDelayString = "${application.upload.master-index.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (snapshot == null || properties.getChangeColumn() == null || properties.getChangeColumn().isBlank()) {
+            reload();
+        } else {
+            refreshChangedRows();
+        }
+    }
+
+    /**
+     * Reload the whole index, dropping rows deleted from the master tables
+     * This is scheduled to get fired at application.upload.master-index.full-reload-cron, every night by default.
+     */
+    @Scheduled(cron = "${application.upload.master-index.full-reload-cron:0 30 2 * * ?}")
+    public void scheduledReload() {
+        if (properties.isEnabled() && snapshot != null) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        long startNanos = System.nanoTime();
+        try {
+            Snapshot loaded = new Snapshot(
+                new LongLongHashMap(countRows("account_master")),
+                new LongLongHashMap(countRows("customer_master")),
+                new IntHashSet(countRows("gl_master"))
+            );
+            loadRows(loaded, null);
+            snapshot = loaded;
+            long elapsedNanos = System.nanoTime() - startNanos;
+            fullReloadTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            log.info(
+                "Loaded master data index in {}ms: {} accounts, {} customers, {} active GL codes, {}KB",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                loaded.accounts.size(),
+                loaded.customers.size(),
+                loaded.activeGlCodes.size(),
+                loaded.memoryBytes() / 1024
+            );
+        } catch (RuntimeException e) {
+            log.error("Error loading master data index, account checks keep using the database: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void refreshChangedRows() {
+        long startNanos = System.nanoTime();
+        try {
+            // Readers keep using the published tables while changes are applied to copies
+            Snapshot current = snapshot;
+            Snapshot refreshed = new Snapshot(current.accounts.copy(), current.customers.copy(), current.activeGlCodes.copy());
+            refreshed.unindexedCustomers = current.unindexedCustomers;
+            refreshed.changedSince.addAll(current.changedSince);
+            loadRows(refreshed, current.changedSince);
+            snapshot = refreshed;
+            incrementalRefreshTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            log.error("Error refreshing master data index, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    private int countRows(String table) {
+        Integer count = streamingJdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stream the master rows into the tables of a snapshot
+     * @param changedSince for each table, the last change time already applied; null to load every row
+     */
+    private void loadRows(Snapshot target, List<Timestamp> changedSince) {
+        String changeColumn = properties.getChangeColumn();
+        boolean tracksChanges = changeColumn != null && !changeColumn.isBlank();
+        String[] sql = {
+            "SELECT customer_no, status, auth_stat",
+            "SELECT account_no, currency_code, customer_no, status, auth_stat",
+            "SELECT gl_code, status",
+        };
+        String[] tables = { "customer_master", "account_master", "gl_master" };
+        for (int table = 0; table < tables.length; table++) {
+            String query = sql[table] + (tracksChanges ? ", " + changeColumn + " AS changed_at" : "") + " FROM " + tables[table];
+            Object[] args = {};
+            if (changedSince != null && changedSince.get(table) != null) {
+                query += " WHERE " + changeColumn + " > ?";
+                args = new Object[] { changedSince.get(table) };
+            }
+            int tableIndex = table;
+            Timestamp[] lastChange = { changedSince != null ? changedSince.get(table) : null };
+            streamingJdbcTemplate.query(
+                query,
+                rs -> {
+                    switch (tableIndex) {
+                        case 0 -> putCustomer(target, rs);
+                        case 1 -> putAccount(target, rs);
+                        default -> putGlCode(target, rs);
+                    }
+                    if (tracksChanges) {
+                        Timestamp changedAt = rs.getTimestamp("changed_at");
+                        if (changedAt != null && (lastChange[0] == null || changedAt.after(lastChange[0]))) {
+                            lastChange[0] = changedAt;
+                        }
+                    }
+                },
+                args
+            );
+            if (target.changedSince.size() > table) {
+                target.changedSince.set(table, lastChange[0]);
+            } else {
+                target.changedSince.add(lastChange[0]);
+            }
+        }
+    }
+
+    private static void putCustomer(Snapshot target, ResultSet rs) throws SQLException {
+        long customerKey = customerKey(rs.getString("customer_no"));
+        if (customerKey == NO_CUSTOMER) {
+            target.unindexedCustomers = true;
+            return;
+        }
+        target.customers.put(customerKey, flags(rs.getString("status"), rs.getString("auth_stat")));
+    }
+
+    private static void putAccount(Snapshot target, ResultSet rs) throws SQLException {
+        long accountKey = accountKey(rs.getString("account_no"));
+        if (accountKey == MISSING) {
+            return;
+        }
+        long customerKey = customerKey(rs.getString("customer_no"));
+        long value = (customerKey << CUSTOMER_SHIFT) | currencyIndex(rs.getString("currency_code"));
+        value |= flags(rs.getString("status"), rs.getString("auth_stat"));
+        long previous = target.accounts.get(accountKey, MISSING);
+        if (customerKey == NO_CUSTOMER || (previous != MISSING && ((previous ^ value) & ~(ACTIVE | AUTHORIZED)) != 0)) {
+            // Several rows for the account (e.g. one per currency), or a customer number that cannot be packed
+            value |= AMBIGUOUS;
+        }
+        target.accounts.put(accountKey, value);
+    }
+
+    private static void putGlCode(Snapshot target, ResultSet rs) throws SQLException {
+        int glKey = glKey(rs.getString("gl_code"));
+        if (glKey < 0) {
+            return;
+        }
+        if ("A".equals(rs.getString("status"))) {
+            target.activeGlCodes.add(glKey);
+        } else {
+            target.activeGlCodes.remove(glKey);
+        }
+    }
+
+    private static long flags(String status, String authStat) {
+        return ("A".equals(status) ? ACTIVE : 0) | (AccountValidationService.AUTH_STAT.equals(authStat) ? AUTHORIZED : 0);
+    }
+
+    /**
+     * Pack an account number of exactly 15 digits
+     * @return the key, or {@link #MISSING} for any other value
+     */
+    static long accountKey(String account) {
+        if (account == null || account.length() != ACCOUNT_LENGTH || !UploadValidationRules.isDigits(account, 0, ACCOUNT_LENGTH)) {
+            return MISSING;
+        }
+        return Long.parseLong(account);
+    }
+
+    /**
+     * Pack a customer number of 1 to 13 digits, keeping leading zeros apart by prefixing a 1
+     * @return the key, or {@link #NO_CUSTOMER} for any other value
+     */
+    static long customerKey(String customerNo) {
+        if (
+            customerNo == null ||
+            customerNo.isEmpty() ||
+            customerNo.length() > MAX_CUSTOMER_NO_LENGTH ||
+            !UploadValidationRules.isDigits(customerNo, 0, customerNo.length())
+        ) {
+            return NO_CUSTOMER;
+        }
+        long key = 1;
+        for (int i = 0; i < customerNo.length(); i++) {
+            key = key * 10 + (customerNo.charAt(i) - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Pack a GL code of exactly 9 digits
+     * @return the key, or -1 for any other value
+     */
+    static int glKey(String glCode) {
+        if (glCode == null || glCode.length() != GL_CODE_LENGTH || !UploadValidationRules.isDigits(glCode, 0, GL_CODE_LENGTH)) {
+            return -1;
+        }
+        return Integer.parseInt(glCode);
+    }
+
+    /**
+     * Index of a currency code of three upper-case letters
+     * @return the index, or {@link #NO_CURRENCY} for any other value
+     */
+    static long currencyIndex(String ccyCd) {
+        if (ccyCd == null || ccyCd.length() != UploadValidationRules.CURRENCY_CODE_LENGTH) {
+            return NO_CURRENCY;
+        }
+        long index = 0;
+        for (int i = 0; i < UploadValidationRules.CURRENCY_CODE_LENGTH; i++) {
+            char c = ccyCd.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return NO_CURRENCY;
+            }
+            index = index * 26 + (c - 'A');
+        }
+        return index;
+    }
+
+    /**
+     * Tables of the index, published as a whole once loaded
+     */
+    private static class Snapshot {
+
+        private final LongLongHashMap accounts;
+        private final LongLongHashMap customers;
+        private final IntHashSet activeGlCodes;
+        private final List<Timestamp> changedSince = new ArrayList<>();
+        private boolean unindexedCustomers;
+
+        Snapshot(LongLongHashMap accounts, LongLongHashMap customers, IntHashSet activeGlCodes) {
+            this.accounts = accounts;
+            this.customers = customers;
+            this.activeGlCodes = activeGlCodes;
+        }
+
+        long memoryBytes() {
+            return accounts.memoryBytes() + customers.memoryBytes() + activeGlCodes.memoryBytes();
+        }
+    }
+}
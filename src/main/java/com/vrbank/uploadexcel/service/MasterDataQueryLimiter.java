@@ -0,0 +1,179 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.logging.NoLogging;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Adaptive concurrency limit on the master data lookups of the upload validation
+ * The limit follows an AIMD rule driven by the lookup latency: it grows by one for every window of fast lookups and is
+ * cut by the backoff ratio when a lookup is slow or fails, so that a slow database gets fewer concurrent lookups
+ * instead of more. Lookups over the limit wait for a free slot for a bounded time.
+ */
+@Service
+public class MasterDataQueryLimiter {
+
+    private static final String METER_PREFIX = "upload.master.query.";
+
+    private final Logger log = LoggerFactory.getLogger(MasterDataQueryLimiter.class);
+
+    private final ApplicationProperties.Upload.QueryLimiter properties;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    private final Timer waitTimer;
+    private final Timer latencyTimer;
+    private final Counter rejected;
+
+    public MasterDataQueryLimiter(ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.properties = applicationProperties.getUpload().getQueryLimiter();
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLatencyThresholdMs());
+        this.limit = Math.min(Math.max(properties.getInitialLimit(), properties.getMinLimit()), properties.getMaxLimit());
+
+        Gauge.builder(METER_PREFIX + "limit", this, MasterDataQueryLimiter::getLimit)
+            .description("Number of concurrent master data lookups currently allowed")
+            .register(registry);
+        Gauge.builder(METER_PREFIX + "inflight", this, MasterDataQueryLimiter::getInFlight)
+            .description("Number of master data lookups running")
+            .register(registry);
+        Gauge.builder(METER_PREFIX + "queue.depth", this, MasterDataQueryLimiter::getWaiting)
+            .description("Number of master data lookups waiting for a free slot")
+            .register(registry);
+        this.waitTimer = Timer.builder(METER_PREFIX + "wait").description("Time lookups spent waiting for a free slot").register(registry);
+        this.latencyTimer = Timer.builder(METER_PREFIX + "latency").description("Latency of the master data lookups").register(registry);
+        this.rejected = Counter.builder(METER_PREFIX + "rejected")
+            .description("Master data lookups rejected after waiting too long for a free slot")
+            .register(registry);
+    }
+
+    /**
+     * Run a lookup within the limit
+     * @throws TransientDataAccessResourceException when no slot was free within max-queue-wait-ms, or before the
+     * deadline of the upload
+     */
+    @NoLogging
+    public <T> T execute(Supplier<T> lookup) {
+        if (!properties.isEnabled()) {
+            return lookup.get();
+        }
+        acquire();
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = lookup.get();
+            failed = false;
+            return result;
+        } finally {
+            long latencyNanos = System.nanoTime() - startNanos;
+            latencyTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+            release(startNanos, latencyNanos, failed);
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void acquire() {
+        long startNanos = System.nanoTime();
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                waiting++;
+                // Not beyond the deadline of the upload, if any
+                long remainingNanos = Math.min(
+                    TimeUnit.MILLISECONDS.toNanos(properties.getMaxQueueWaitMs()),
+                    UploadContext.currentRemainingNanos()
+                );
+                try {
+                    while (inFlight >= (int) limit) {
+                        if (remainingNanos <= 0L) {
+                            rejected.increment();
+                            throw new TransientDataAccessResourceException(
+                                "Master data lookup waited too long for a free slot, limit is " + (int) limit
+                            );
+                        }
+                        remainingNanos = released.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TransientDataAccessResourceException("Master data lookup was interrupted while waiting for a free slot");
+                } finally {
+                    waiting--;
+                }
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Free the slot of a lookup and adjust the limit with its latency
+     * @param startNanos when the lookup started, to ignore the slow lookups that started before the last decrease
+     */
+    void release(long startNanos, long latencyNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                // The lookups running at the time of a decrease were slowed down by the same overload, count them once
+                if (startNanos - lastDecreaseNanos > 0) {
+                    double decreased = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+                    if ((int) decreased < (int) limit) {
+                        log.info("Master data lookup limit decreased to {} after a {}ms lookup", (int) decreased, latencyNanos / 1_000_000);
+                    }
+                    limit = decreased;
+                    lastDecreaseNanos = System.nanoTime();
+                }
+            } else if (inFlight + 1 >= limit / 2) {
+                // Only grow when the limit is actually used, so that a quiet period does not leave it wide open
+                limit = Math.min(properties.getMaxLimit(), limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented store of the rows read from an Excel file, kept until they are written.
+ * Values shared by the whole batch are not stored per row: they are supplied as {@link BatchFields}
+ * when rows are turned into {@link UploadDetail} entities at write time.
+ * Low-cardinality columns (account branch, Dr/Cr, currency, transaction code) are dictionary-encoded,
+ * and amounts are kept as an unscaled long plus a scale.
+ * Rows are appended by a single thread; once filled, the buffer may be read from several threads.
+ */
+public class ParsedRowBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NO_CODE = -1;
+
+    private int size;
+    private int[] currNos = new int[INITIAL_CAPACITY];
+    private String[] accounts = new String[INITIAL_CAPACITY];
+    private String[] relCusts = new String[INITIAL_CAPACITY];
+    private String[] addlTexts = new String[INITIAL_CAPACITY];
+    private int[] accountBranches = new int[INITIAL_CAPACITY];
+    private int[] drCrs = new int[INITIAL_CAPACITY];
+    private int[] ccyCds = new int[INITIAL_CAPACITY];
+    private int[] txnCodes = new int[INITIAL_CAPACITY];
+    private final DecimalColumn amounts = new DecimalColumn(INITIAL_CAPACITY);
+    private final DecimalColumn lcyEquivalents = new DecimalColumn(INITIAL_CAPACITY);
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+    /**
+     * Append a row
+     * @param currNo 1-based position of the row among the data rows of the sheet
+     * @return index of the row in this buffer
+     */
+    public int add(
+        int currNo,
+        String relCust,
+        String account,
+        String accountBranch,
+        String drCr,
+        String ccyCd,
+        BigDecimal amount,
+        BigDecimal lcyEquivalent,
+        String txnCode,
+        String addlText
+    ) {
+        if (size == currNos.length) {
+            grow();
+        }
+        int row = size++;
+        currNos[row] = currNo;
+        relCusts[row] = relCust;
+        accounts[row] = account;
+        addlTexts[row] = addlText;
+        accountBranches[row] = encode(accountBranch);
+        drCrs[row] = encode(drCr);
+        ccyCds[row] = encode(ccyCd);
+        txnCodes[row] = encode(txnCode);
+        amounts.set(row, amount);
+        lcyEquivalents.set(row, lcyEquivalent);
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCurrNo(int row) {
+        return currNos[row];
+    }
+
+    public String getRelCust(int row) {
+        return relCusts[row];
+    }
+
+    public String getAccount(int row) {
+        return accounts[row];
+    }
+
+    public String getAccountBranch(int row) {
+        return decode(accountBranches[row]);
+    }
+
+    public String getDrCr(int row) {
+        return decode(drCrs[row]);
+    }
+
+    public String getCcyCd(int row) {
+        return decode(ccyCds[row]);
+    }
+
+    public BigDecimal getAmount(int row) {
+        return amounts.get(row);
+    }
+
+    public BigDecimal getLcyEquivalent(int row) {
+        return lcyEquivalents.get(row);
+    }
+
+    public String getTxnCode(int row) {
+        return decode(txnCodes[row]);
+    }
+
+    public String getAddlText(int row) {
+        return addlTexts[row];
+    }
+
+    /**
+     * Number of distinct values stored in the dictionary-encoded columns.
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Build the entity of a row
+     */
+    public UploadDetail toUploadDetail(int row, BatchFields batch) {
+        UploadDetail detail = new UploadDetail(batch.batchNo, batch.branchCode, batch.sourceCode);
+        detail.setExchRate(batch.exchRate);
+        detail.setInitiationDate(batch.entryDate);
+        detail.setValueDate(batch.entryDate);
+        detail.setUploadDate(batch.uploadDate);
+        detail.setFinCycle(batch.finCycle);
+        detail.setPeriodCode(batch.periodCode);
+        detail.setCurrNo(String.valueOf(currNos[row]));
+        detail.setRelCust(relCusts[row]);
+        detail.setAccount(accounts[row]);
+        detail.setAccountBranch(getAccountBranch(row));
+        detail.setDrCr(getDrCr(row));
+        detail.setCcyCd(getCcyCd(row));
+        detail.setAmount(getAmount(row));
+        detail.setLcyEquivalent(getLcyEquivalent(row));
+        detail.setTxnCode(getTxnCode(row));
+        detail.setAddlText(addlTexts[row]);
+        detail.setUploadStat("N");
+        detail.setDeleteStat("N");
+        return detail;
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = dictionaryCodes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            dictionaryCodes.put(value, code);
+        }
+        return code;
+    }
+
+    private String decode(int code) {
+        return code == NO_CODE ? null : dictionary.get(code);
+    }
+
+    private void grow() {
+        int capacity = currNos.length + (currNos.length >> 1);
+        currNos = Arrays.copyOf(currNos, capacity);
+        accounts = Arrays.copyOf(accounts, capacity);
+        relCusts = Arrays.copyOf(relCusts, capacity);
+        addlTexts = Arrays.copyOf(addlTexts, capacity);
+        accountBranches = Arrays.copyOf(accountBranches, capacity);
+        drCrs = Arrays.copyOf(drCrs, capacity);
+        ccyCds = Arrays.copyOf(ccyCds, capacity);
+        txnCodes = Arrays.copyOf(txnCodes, capacity);
+        amounts.grow(capacity);
+        lcyEquivalents.grow(capacity);
+    }
+
+    /**
+     * Values shared by every row of a batch, created once per write and referenced by all its entities.
+     */
+    public static class BatchFields {
+
+        private final String batchNo;
+        private final String branchCode;
+        private final String sourceCode;
+        private final BigDecimal exchRate;
+        private final LocalDate entryDate;
+        private final LocalDate uploadDate;
+        private final String finCycle;
+        private final String periodCode;
+
+        public BatchFields(
+            String batchNo,
+            String branchCode,
+            String sourceCode,
+            BigDecimal exchRate,
+            LocalDate entryDate,
+            LocalDate uploadDate,
+            String finCycle,
+            String periodCode
+        ) {
+            this.batchNo = batchNo;
+            this.branchCode = branchCode;
+            this.sourceCode = sourceCode;
+            this.exchRate = exchRate;
+            this.entryDate = entryDate;
+            this.uploadDate = uploadDate;
+            this.finCycle = finCycle;
+            this.periodCode = periodCode;
+        }
+
+        /**
+         * Same fields, for a sub-batch of this batch.
+         */
+        public BatchFields withBatchNo(String batchNo) {
+            return new BatchFields(batchNo, branchCode, sourceCode, exchRate, entryDate, uploadDate, finCycle, periodCode);
+        }
+
+        public String getBatchNo() {
+            return batchNo;
+        }
+
+        public String getBranchCode() {
+            return branchCode;
+        }
+
+        public String getSourceCode() {
+            return sourceCode;
+        }
+
+        public BigDecimal getExchRate() {
+            return exchRate;
+        }
+
+        public LocalDate getEntryDate() {
+            return entryDate;
+        }
+
+        public LocalDate getUploadDate() {
+            return uploadDate;
+        }
+
+        public String getFinCycle() {
+            return finCycle;
+        }
+
+        public String getPeriodCode() {
+            return periodCode;
+        }
+    }
+
+    /**
+     * Decimal values as unscaled longs and scales; values that do not fit in a long are kept aside.
+     */
+    private static class DecimalColumn {
+
+        private static final int NULL_SCALE = Integer.MIN_VALUE;
+        private static final int OVERFLOW_SCALE = Integer.MAX_VALUE;
+
+        private long[] unscaledValues;
+        private int[] scales;
+        private final Map<Integer, BigDecimal> overflow = new HashMap<>();
+
+        DecimalColumn(int capacity) {
+            unscaledValues = new long[capacity];
+            scales = new int[capacity];
+        }
+
+        void set(int row, BigDecimal value) {
+            if (value == null) {
+                scales[row] = NULL_SCALE;
+            } else if (value.unscaledValue().bitLength() < Long.SIZE && value.scale() != NULL_SCALE && value.scale() != OVERFLOW_SCALE) {
+                unscaledValues[row] = value.unscaledValue().longValue();
+                scales[row] = value.scale();
+            } else {
+                scales[row] = OVERFLOW_SCALE;
+                overflow.put(row, value);
+            }
+        }
+
+        BigDecimal get(int row) {
+            int scale = scales[row];
+            if (scale == NULL_SCALE) {
+                return null;
+            }
+            if (scale == OVERFLOW_SCALE) {
+                return overflow.get(row);
+            }
+            return BigDecimal.valueOf(unscaledValues[row], scale);
+        }
+
+        void grow(int capacity) {
+            unscaledValues = Arrays.copyOf(unscaledValues, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+        }
+    }
+}
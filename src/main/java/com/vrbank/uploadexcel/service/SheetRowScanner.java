@@ -0,0 +1,148 @@
+package com.vrbank.uploadexcel.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+
+/**
+ * Iterates the data rows of a sheet, skipping rows that hold no values.
+ * Some exports format cells down to the last row Excel supports, so the scan stops after a run of
+ * consecutive empty rows, or past the used range declared by the sheet's dimension element.
+ * The rows left unread are exposed as a 1-based range once iteration is over.
+ */
+public class SheetRowScanner implements Iterable<Row> {
+
+    private final Sheet sheet;
+    private final int firstRow;
+    private final int lastColumn;
+    private final int maxConsecutiveEmptyRows;
+    private final int lastRowToScan;
+
+    private int lastDataRow;
+    private Integer skippedFromRow;
+    private Integer skippedToRow;
+
+    /**
+     * @param sheet the sheet to scan
+     * @param firstRow first data row, 0-based
+     * @param lastColumn last column holding data, 0-based
+     * @param maxConsecutiveEmptyRows number of consecutive empty rows after which the data is considered to end
+     */
+    public SheetRowScanner(Sheet sheet, int firstRow, int lastColumn, int maxConsecutiveEmptyRows) {
+        this.sheet = sheet;
+        this.firstRow = firstRow;
+        this.lastColumn = lastColumn;
+        this.maxConsecutiveEmptyRows = maxConsecutiveEmptyRows;
+        this.lastRowToScan = Math.min(sheet.getLastRowNum(), dimensionLastRow(sheet));
+        this.lastDataRow = firstRow - 1;
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        return new DataRowIterator();
+    }
+
+    /**
+     * First row left unread, 1-based, or null if every row was scanned.
+     */
+    public Integer getSkippedFromRow() {
+        return skippedFromRow;
+    }
+
+    /**
+     * Last row left unread, 1-based, or null if every row was scanned.
+     */
+    public Integer getSkippedToRow() {
+        return skippedToRow;
+    }
+
+    /**
+     * Check whether any cell up to the last data column holds a value, without converting cells to strings.
+     */
+    static boolean hasValueCells(Row row, int lastColumn) {
+        int lastCell = Math.min(row.getLastCellNum() - 1, lastColumn);
+        for (int cellNum = Math.max(row.getFirstCellNum(), 0); cellNum <= lastCell; cellNum++) {
+            Cell cell = row.getCell(cellNum);
+            if (cell == null || cell.getCellType() == CellType.BLANK) {
+                continue;
+            }
+            if (cell.getCellType() != CellType.STRING || !UploadValidationRules.isBlank(cell.getStringCellValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Last row of the used range declared by an .xlsx sheet, 0-based.
+     * A single-cell dimension is what some generators write regardless of content, so it is ignored.
+     */
+    private static int dimensionLastRow(Sheet sheet) {
+        if (sheet instanceof XSSFSheet xssfSheet) {
+            CTWorksheet worksheet = xssfSheet.getCTWorksheet();
+            if (worksheet.isSetDimension()) {
+                String ref = worksheet.getDimension().getRef();
+                if (ref != null && ref.indexOf(':') > 0) {
+                    return CellRangeAddress.valueOf(ref).getLastRow();
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private class DataRowIterator implements Iterator<Row> {
+
+        private final Iterator<Row> rows = sheet.rowIterator();
+        private Row next;
+        private boolean finished;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Row row = next;
+            next = null;
+            return row;
+        }
+
+        private Row advance() {
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                int rowNum = row.getRowNum();
+                if (rowNum < firstRow) {
+                    continue;
+                }
+                if (rowNum > lastRowToScan || rowNum - lastDataRow - 1 >= maxConsecutiveEmptyRows) {
+                    stopScan();
+                    return null;
+                }
+                if (hasValueCells(row, lastColumn)) {
+                    lastDataRow = rowNum;
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        private void stopScan() {
+            skippedFromRow = lastDataRow + 2;
+            skippedToRow = sheet.getLastRowNum() + 1;
+        }
+    }
+}
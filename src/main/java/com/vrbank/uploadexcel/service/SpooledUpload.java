@@ -0,0 +1,58 @@
+package com.vrbank.uploadexcel.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An uploaded file copied to the upload temp directory, together with the SHA-256 computed during the copy.
+ * Closing it deletes the temp file.
+ */
+public class SpooledUpload implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledUpload.class);
+
+    private final Path path;
+    private final String originalFilename;
+    private final long size;
+    private final String contentHash;
+
+    public SpooledUpload(Path path, String originalFilename, long size, String contentHash) {
+        this.path = path;
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public InputStream openInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}: {}", path, e.getMessage());
+        }
+    }
+}
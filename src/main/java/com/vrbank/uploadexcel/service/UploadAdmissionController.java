@@ -0,0 +1,237 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admission control for Excel uploads
+ * Limits the number of concurrent uploads globally and per branch, and the total size of the files being processed.
+ * Uploads over the limits wait in a FIFO queue for a bounded time, and are rejected when the queue is full or the wait times out.
+ */
+@Service
+public class UploadAdmissionController {
+
+    private static final String METER_PREFIX = "upload.admission.";
+
+    private final Logger log = LoggerFactory.getLogger(UploadAdmissionController.class);
+
+    private final ApplicationProperties.Upload.Admission properties;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private final List<Ticket> queue = new ArrayList<>();
+    private final Map<String, Integer> activeByBranch = new HashMap<>();
+    private int active;
+    private long inFlightBytes;
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public UploadAdmissionController(ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.properties = applicationProperties.getUpload().getAdmission();
+
+        Gauge.builder(METER_PREFIX + "queue.depth", this, UploadAdmissionController::getQueueDepth)
+            .description("Number of uploads waiting for admission")
+            .register(registry);
+        Gauge.builder(METER_PREFIX + "active", this, UploadAdmissionController::getActive)
+            .description("Number of uploads being processed")
+            .register(registry);
+        Gauge.builder(METER_PREFIX + "inflight.bytes", this, UploadAdmissionController::getInFlightBytes)
+            .description("Total size of the files being processed")
+            .baseUnit("bytes")
+            .register(registry);
+        this.waitTimer = Timer.builder(METER_PREFIX + "wait")
+            .description("Time uploads spent waiting for admission")
+            .register(registry);
+        this.rejectedQueueFull = rejectedCounter(registry, "queue-full");
+        this.rejectedTimeout = rejectedCounter(registry, "timeout");
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder(METER_PREFIX + "rejected")
+            .description("Uploads rejected by admission control")
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    /**
+     * Wait until the upload fits in the global, branch and size budgets
+     *
+     * @param branchCode branch of the upload
+     * @param fileSize size of the uploaded file, used as the weight of the upload
+     * @return the permit, to be closed when processing is finished
+     * @throws UploadRejectedException when the queue is full or the upload waited too long
+     */
+    public Permit acquire(String branchCode, long fileSize) {
+        String branch = branchCode != null ? branchCode.trim() : "";
+        // A file larger than the whole budget may still run, but only on its own
+        long weight = Math.min(Math.max(fileSize, 0), properties.getMaxInFlightBytes());
+        Ticket ticket = new Ticket(branch, weight);
+        long startNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            if (queue.isEmpty() && fits(ticket)) {
+                admit(ticket);
+                waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return new Permit(ticket);
+            }
+
+            if (queue.size() >= properties.getMaxQueueLength()) {
+                rejectedQueueFull.increment();
+                throw new UploadRejectedException(
+                    "Too many uploads are waiting, please retry later",
+                    properties.getRetryAfterSeconds(),
+                    queue.size() + 1
+                );
+            }
+
+            queue.add(ticket);
+            log.info("Upload for branch {} queued at position {}", branch, queue.size());
+            long remainingNanos = TimeUnit.SECONDS.toNanos(properties.getMaxQueueWaitSeconds());
+            try {
+                // Admitted in arrival order, but an upload blocked by its branch limit does not hold up other branches
+                while (!(fits(ticket) && isFirstAdmissible(ticket))) {
+                    if (remainingNanos <= 0L) {
+                        int position = queue.indexOf(ticket) + 1;
+                        rejectedTimeout.increment();
+                        throw new UploadRejectedException(
+                            "Upload waited too long for processing capacity, please retry later",
+                            properties.getRetryAfterSeconds(),
+                            position
+                        );
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UploadRejectedException(
+                    "Upload was interrupted while waiting for admission",
+                    properties.getRetryAfterSeconds(),
+                    0
+                );
+            } finally {
+                queue.remove(ticket);
+                // Whether admitted or given up, the head of the queue changed
+                released.signalAll();
+            }
+
+            admit(ticket);
+            waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            return new Permit(ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActive() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getInFlightBytes() {
+        lock.lock();
+        try {
+            return inFlightBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(Ticket ticket) {
+        return (
+            active < properties.getMaxConcurrentUploads() &&
+            activeByBranch.getOrDefault(ticket.branch, 0) < properties.getMaxConcurrentPerBranch() &&
+            (active == 0 || inFlightBytes + ticket.weight <= properties.getMaxInFlightBytes())
+        );
+    }
+
+    private boolean isFirstAdmissible(Ticket ticket) {
+        for (Ticket waiting : queue) {
+            if (waiting == ticket) {
+                return true;
+            }
+            if (fits(waiting)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void admit(Ticket ticket) {
+        active++;
+        inFlightBytes += ticket.weight;
+        activeByBranch.merge(ticket.branch, 1, Integer::sum);
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            active--;
+            inFlightBytes -= ticket.weight;
+            activeByBranch.computeIfPresent(ticket.branch, (branch, count) -> count > 1 ? count - 1 : null);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Ticket {
+
+        private final String branch;
+        private final long weight;
+
+        private Ticket(String branch, long weight) {
+            this.branch = branch;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * An admitted upload; closing it frees the capacity for the next one
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final Ticket ticket;
+        private boolean closed;
+
+        private Permit(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(ticket);
+            }
+        }
+    }
+}
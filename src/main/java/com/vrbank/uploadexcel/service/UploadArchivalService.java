@@ -0,0 +1,182 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service moving old processed batches from detb_upload_detail to detb_upload_detail_arch
+ * A batch is archived once all its rows are processed (uploadStat='Y') and it was last uploaded more than
+ * retention-days ago. Its rows are moved in chunks, each one copied with an INSERT ... SELECT and deleted in its own
+ * transaction, with a pause between chunks so that the online work keeps the database.
+ */
+@Service
+@UsesUploadPool
+public class UploadArchivalService {
+
+    private static final String METER_PREFIX = "upload.archival.";
+
+    private static final String ARCHIVE_COLUMNS =
+        """
+        id, batch_no, branch_code, source_code, rel_cust, account, account_branch, dr_cr, ccy_cd, amount, lcy_equivalent,
+        txn_code, addl_text, exch_rate, initiation_date, value_date, upload_date, fin_cycle, period_code, curr_no,
+        upload_stat, delete_stat\
+        """;
+
+    private static final String CHUNK_CONDITION = "batch_no = ? AND upload_stat = 'Y' AND id <= ?";
+
+    private final Logger log = LoggerFactory.getLogger(UploadArchivalService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate boundedJdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ApplicationProperties.Upload.Archival properties;
+
+    private final Counter rowsArchived;
+    private final Counter batchesArchived;
+    private final Timer runTimer;
+
+    public UploadArchivalService(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getUpload().getArchival();
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Same DataSource, limited to the rows of one chunk
+        this.boundedJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.boundedJdbcTemplate.setMaxRows(properties.getChunkSize());
+
+        this.rowsArchived = Counter.builder(METER_PREFIX + "rows")
+            .description("Upload detail rows moved to the archive table")
+            .register(registry);
+        this.batchesArchived = Counter.builder(METER_PREFIX + "batches")
+            .description("Batches moved to the archive table")
+            .register(registry);
+        this.runTimer = Timer.builder(METER_PREFIX + "run").description("Time taken by an archival run").register(registry);
+    }
+
+    /**
+     * Archive the processed batches older than the retention
+     * This is scheduled to get fired at application.upload.archival.cron, every night at 01:00 by default.
+     */
+    @Scheduled(cron = "${application.upload.archival.cron:0 0 1 * * ?}")
+    public void scheduledArchive() {
+        if (properties.isEnabled()) {
+            archiveOldBatches();
+        }
+    }
+
+    /**
+     * Archive the processed batches older than the retention, at most max-batches-per-run of them
+     * @return the number of rows moved
+     */
+    public long archiveOldBatches() {
+        long startNanos = System.nanoTime();
+        LocalDate cutoff = LocalDate.now().minusDays(properties.getRetentionDays());
+        JdbcTemplate candidateJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        candidateJdbcTemplate.setMaxRows(properties.getMaxBatchesPerRun());
+        List<String> batchNos = candidateJdbcTemplate.queryForList(
+            """
+            SELECT batch_no FROM detb_upload_detail
+            GROUP BY batch_no
+            HAVING MAX(upload_date) < ? AND SUM(CASE WHEN upload_stat = 'Y' THEN 0 ELSE 1 END) = 0
+            """,
+            String.class,
+            Date.valueOf(cutoff)
+        );
+
+        long moved = 0;
+        int batches = 0;
+        for (String batchNo : batchNos) {
+            try {
+                moved += archiveBatch(batchNo);
+                batches++;
+            } catch (DataIntegrityViolationException e) {
+                // Another node is archiving the same batch
+                log.warn("Could not archive batch {}: {}", batchNo, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info(
+            "Archived {} rows of {} batches uploaded before {} in {}ms",
+            moved,
+            batches,
+            cutoff,
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+        );
+        return moved;
+    }
+
+    /**
+     * Move the processed rows of a batch to the archive table, chunk by chunk
+     * @return the number of rows moved
+     * @throws InterruptedException when interrupted between two chunks
+     */
+    public long archiveBatch(String batchNo) throws InterruptedException {
+        long moved = 0;
+        int chunkRows;
+        do {
+            chunkRows = newTransaction.execute(status -> moveChunk(batchNo));
+            moved += chunkRows;
+            rowsArchived.increment(chunkRows);
+            if (chunkRows == properties.getChunkSize() && properties.getPauseMs() > 0) {
+                Thread.sleep(properties.getPauseMs());
+            }
+        } while (chunkRows == properties.getChunkSize());
+        batchesArchived.increment();
+        log.debug("Archived {} rows of batch {}", moved, batchNo);
+        return moved;
+    }
+
+    private int moveChunk(String batchNo) {
+        List<Long> ids = boundedJdbcTemplate.queryForList(
+            "SELECT id FROM detb_upload_detail WHERE batch_no = ? AND upload_stat = 'Y' ORDER BY id",
+            Long.class,
+            batchNo
+        );
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Long lastId = ids.get(ids.size() - 1);
+        int copied = jdbcTemplate.update(
+            "INSERT INTO detb_upload_detail_arch (" +
+            ARCHIVE_COLUMNS +
+            ", archived_date) SELECT " +
+            ARCHIVE_COLUMNS +
+            ", ? FROM detb_upload_detail WHERE " +
+            CHUNK_CONDITION,
+            Date.valueOf(LocalDate.now()),
+            batchNo,
+            lastId
+        );
+        int deleted = jdbcTemplate.update("DELETE FROM detb_upload_detail WHERE " + CHUNK_CONDITION, batchNo, lastId);
+        if (copied != deleted) {
+            throw new IllegalStateException("Archived " + copied + " rows of batch " + batchNo + " but deleted " + deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,17 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * Thrown by the threads working on an upload once it has been cancelled, or has run out of time
+ */
+public class UploadCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadCancelledException(String batchNo) {
+        this(batchNo, "was cancelled");
+    }
+
+    protected UploadCancelledException(String batchNo, String reason) {
+        super("Upload of batch " + batchNo + " " + reason);
+    }
+}
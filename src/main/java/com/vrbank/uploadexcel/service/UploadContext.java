@@ -0,0 +1,246 @@
+package com.vrbank.uploadexcel.service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * State of a running upload, shared by the threads working on it
+ * An upload is cancelled cooperatively: its threads check {@link #checkCancelled()} between rows and chunks, and the
+ * statements they are running are cancelled, so that a cancelled upload stops using CPU and connections straight away.
+ * An upload with a deadline stops the same way once it is reached, and its statements get the time left as query
+ * timeout.
+ * The context is bound to the thread processing the upload, and handed to the executor threads with
+ * {@link #propagate(Supplier)}.
+ */
+public class UploadContext {
+
+    private static final ThreadLocal<UploadContext> CURRENT = new ThreadLocal<>();
+
+    private final Logger log = LoggerFactory.getLogger(UploadContext.class);
+
+    private final String batchNo;
+    private final String reservationToken;
+    private volatile boolean cancelled;
+    private volatile boolean hasDeadline;
+    private volatile long deadlineNanos;
+    private volatile UploadRowLog rowLog;
+
+    /**
+     * Statement each thread of the upload is running
+     * An entry must not outlive its statement: once closed, the statement's connection is back in the pool, and
+     * cancelling it could cancel the query another request runs on that connection.
+     */
+    private final Map<Thread, Statement> runningStatements = new ConcurrentHashMap<>();
+
+    public UploadContext(String batchNo) {
+        this(batchNo, UUID.randomUUID().toString());
+    }
+
+    /**
+     * @param reservationToken token the upload reserves its batch number with, at most 36 characters
+     */
+    public UploadContext(String batchNo, String reservationToken) {
+        this.batchNo = batchNo;
+        this.reservationToken = reservationToken;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public String getReservationToken() {
+        return reservationToken;
+    }
+
+    /**
+     * The context of the upload the current thread works on, or null
+     */
+    public static UploadContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind a context to the current thread
+     * @return the context bound before, to be given back to {@link #restore(UploadContext)}
+     */
+    public static UploadContext bind(UploadContext context) {
+        UploadContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return previous;
+    }
+
+    /**
+     * Restore the context of the current thread
+     * @param previous the value returned by the matching {@link #bind(UploadContext)}
+     */
+    public static void restore(UploadContext previous) {
+        UploadContext context = CURRENT.get();
+        if (context != null) {
+            // The thread is done with the upload, and so with any statement left over by a failure
+            context.statementFinished();
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Wrap a task so that it runs with the context of the current thread, whichever thread runs it
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        UploadContext context = current();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            UploadContext previous = bind(context);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so that it runs with the context of the current thread, whichever thread runs it
+     */
+    public static Runnable propagate(Runnable task) {
+        Supplier<Void> supplier = propagate(() -> {
+            task.run();
+            return null;
+        });
+        return supplier::get;
+    }
+
+    /**
+     * Check the upload the current thread works on, if any, is neither cancelled nor past its deadline
+     * @throws UploadCancelledException if it is cancelled, {@link UploadTimeoutException} if past its deadline
+     */
+    public static void checkCurrent() {
+        UploadContext context = current();
+        if (context != null) {
+            context.checkCancelled();
+        }
+    }
+
+    /**
+     * Cancel the upload and the statements its threads are running
+     */
+    public void cancel() {
+        cancelled = true;
+        runningStatements.forEach((thread, statement) -> {
+            try {
+                if (!statement.isClosed()) {
+                    statement.cancel();
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Could not cancel statement of batch {} on thread {}: {}", batchNo, thread.getName(), e.getMessage());
+            }
+        });
+        log.info("Cancelled upload of batch {}", batchNo);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Give the upload a time budget, from now
+     */
+    public void startDeadline(Duration budget) {
+        deadlineNanos = System.nanoTime() + budget.toNanos();
+        hasDeadline = true;
+    }
+
+    public boolean isExpired() {
+        return hasDeadline && deadlineNanos - System.nanoTime() <= 0L;
+    }
+
+    /**
+     * Time left before the deadline, {@link Long#MAX_VALUE} without one
+     */
+    public long remainingNanos() {
+        return hasDeadline ? Math.max(0L, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Time left before the deadline of the upload the current thread works on, {@link Long#MAX_VALUE} without one
+     */
+    public static long currentRemainingNanos() {
+        UploadContext context = current();
+        return context != null ? context.remainingNanos() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Aggregate the per-row log messages of the upload, logging only the first ones in full
+     * @return the aggregated messages, to be summarized once the upload is done
+     */
+    public UploadRowLog startRowLog(int maxDetailedLines) {
+        rowLog = new UploadRowLog(batchNo, maxDetailedLines);
+        return rowLog;
+    }
+
+    /**
+     * The per-row log messages of the upload, or null when they are logged as they come
+     */
+    public UploadRowLog getRowLog() {
+        return rowLog;
+    }
+
+    /**
+     * @throws UploadCancelledException if the upload was cancelled, {@link UploadTimeoutException} if past its deadline
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new UploadCancelledException(batchNo);
+        }
+        if (isExpired()) {
+            throw new UploadTimeoutException(batchNo);
+        }
+    }
+
+    /**
+     * Record the statement the current thread is about to run, so that it can be cancelled, and limit its query timeout
+     * to the time left before the deadline
+     * @throws UploadCancelledException if the upload was cancelled, {@link UploadTimeoutException} if past its deadline
+     */
+    public void statementStarted(Statement statement) throws SQLException {
+        checkCancelled();
+        if (hasDeadline) {
+            // JDBC timeouts are whole seconds, 0 meaning none, so round up
+            long remainingSeconds = TimeUnit.NANOSECONDS.toSeconds(remainingNanos() + 999_999_999L);
+            int seconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, remainingSeconds));
+            if (statement.getQueryTimeout() == 0 || statement.getQueryTimeout() > seconds) {
+                statement.setQueryTimeout(seconds);
+            }
+        }
+        runningStatements.put(Thread.currentThread(), statement);
+        // A cancel() that did not see the statement has set the flag before
+        if (cancelled) {
+            runningStatements.remove(Thread.currentThread(), statement);
+            throw new UploadCancelledException(batchNo);
+        }
+    }
+
+    public void statementFinished(Statement statement) {
+        runningStatements.remove(Thread.currentThread(), statement);
+    }
+
+    /**
+     * Forget the statement of the current thread, whichever it is, when it failed or the thread leaves the upload
+     */
+    public void statementFinished() {
+        runningStatements.remove(Thread.currentThread());
+    }
+}
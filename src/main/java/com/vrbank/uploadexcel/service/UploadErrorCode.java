@@ -0,0 +1,67 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * The checks an uploaded row can fail.
+ * Each constant knows the error code and message reported to clients, so errors are recorded as a constant
+ * plus, for checks whose message comes from a validator, a detail text.
+ */
+public enum UploadErrorCode {
+    ACCOUNT_REQUIRED(Category.VALIDATION_ERROR, "Account", "Account number is required"),
+    ACCOUNT_FORMAT(Category.VALIDATION_ERROR, "Account", null),
+    AMOUNT_NOT_POSITIVE(Category.VALIDATION_ERROR, "Amount", "Amount must be greater than zero"),
+    LCY_EQUIVALENT_NOT_POSITIVE(Category.VALIDATION_ERROR, "LCY Equivalent", "LCY equivalent must be greater than zero"),
+    CURRENCY_FORMAT(Category.VALIDATION_ERROR, "Currency", null),
+    CURRENCY_REQUIRED(Category.VALIDATION_ERROR, "Currency", "Currency code is required"),
+    DR_CR_FORMAT(Category.VALIDATION_ERROR, "Dr/Cr", null),
+    DR_CR_REQUIRED(Category.VALIDATION_ERROR, "Dr/Cr", "Dr/Cr flag is required"),
+    TXN_CODE_REQUIRED(Category.VALIDATION_ERROR, "Transaction Code", "Transaction code is required"),
+    VND_AMOUNT_NOT_WHOLE(Category.AMOUNT_ERROR, null, "VND amount must be a whole number"),
+    VND_LCY_EQUIVALENT_NOT_WHOLE(Category.AMOUNT_ERROR, null, "VND LCY equivalent must be a whole number"),
+    LCY_EQUIVALENT_NOT_WHOLE(Category.AMOUNT_ERROR, null, "LCY equivalent must be a whole number"),
+    ACCOUNT_REJECTED(Category.ACCOUNT_ERROR, null, null),
+    ROW_PROCESSING(Category.PROCESSING_ERROR, null, null);
+
+    /**
+     * Error codes of the JSON contract, shared by several checks
+     */
+    public enum Category {
+        VALIDATION_ERROR,
+        AMOUNT_ERROR,
+        ACCOUNT_ERROR,
+        PROCESSING_ERROR,
+    }
+
+    private final Category category;
+    private final String prefix;
+    private final String fixedMessage;
+
+    UploadErrorCode(Category category, String field, String message) {
+        this.category = category;
+        if (field != null) {
+            this.prefix = "Field '" + field + "': ";
+        } else if (category == Category.PROCESSING_ERROR) {
+            this.prefix = "Error processing row: ";
+        } else {
+            this.prefix = "";
+        }
+        this.fixedMessage = message != null ? prefix + message : null;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    /**
+     * Whether the message depends on a detail text given when the error is recorded
+     */
+    public boolean hasDetail() {
+        return fixedMessage == null;
+    }
+
+    /**
+     * Render the message shown to the user
+     */
+    public String render(String detail) {
+        return fixedMessage != null ? fixedMessage : prefix + detail;
+    }
+}
@@ -0,0 +1,197 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.service.dto.UploadErrorDTO;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Compact record of the row errors of an upload.
+ * An error is stored as its row number, the index of the row in the {@link ParsedRowBuffer}, an {@link UploadErrorCode}
+ * and, for validator messages, a reference into a table of distinct detail texts. Messages and row values are only
+ * rendered into {@link UploadErrorDTO}s when the list returned by {@link #asDtoList(ParsedRowBuffer)} is read,
+ * typically while the response is serialized.
+ * Errors are recorded by a single thread; once filled, the record may be read from several threads.
+ */
+public class UploadErrors {
+
+    /**
+     * Row index of errors raised before the row could be buffered
+     */
+    public static final int NO_ROW = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_DETAIL = -1;
+    private static final UploadErrorCode[] CODES = UploadErrorCode.values();
+
+    private int size;
+    private int[] rowNumbers = new int[INITIAL_CAPACITY];
+    private int[] rowIndexes = new int[INITIAL_CAPACITY];
+    private byte[] codes = new byte[INITIAL_CAPACITY];
+    private int[] detailIds = new int[INITIAL_CAPACITY];
+
+    private final List<String> details = new ArrayList<>();
+    private final Map<String, Integer> detailIdsByText = new HashMap<>();
+
+    /**
+     * Record an error with a fixed message
+     */
+    public void add(int rowNumber, int rowIndex, UploadErrorCode code) {
+        add(rowNumber, rowIndex, code, null);
+    }
+
+    /**
+     * Record an error
+     * @param rowNumber 1-based row number in the sheet
+     * @param rowIndex index of the row in the {@link ParsedRowBuffer}, or {@link #NO_ROW}
+     * @param detail text completing the message of codes that {@link UploadErrorCode#hasDetail() have one}
+     */
+    public void add(int rowNumber, int rowIndex, UploadErrorCode code, String detail) {
+        if (size == rowNumbers.length) {
+            grow(size + (size >> 1));
+        }
+        rowNumbers[size] = rowNumber;
+        rowIndexes[size] = rowIndex;
+        codes[size] = (byte) code.ordinal();
+        detailIds[size] = code.hasDetail() ? detailId(String.valueOf(detail)) : NO_DETAIL;
+        size++;
+    }
+
+    /**
+     * Append the errors of another record, e.g. the one of a chunk validated in parallel
+     */
+    public void addAll(UploadErrors other) {
+        if (size + other.size > rowNumbers.length) {
+            grow(Math.max(size + other.size, size + (size >> 1)));
+        }
+        for (int i = 0; i < other.size; i++) {
+            rowNumbers[size] = other.rowNumbers[i];
+            rowIndexes[size] = other.rowIndexes[i];
+            codes[size] = other.codes[i];
+            detailIds[size] = other.detailIds[i] == NO_DETAIL ? NO_DETAIL : detailId(other.details.get(other.detailIds[i]));
+            size++;
+        }
+    }
+
+    /**
+     * Order the errors by row number, keeping the order of the errors of a same row
+     */
+    public void sortByRowNumber() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> rowNumbers[i]));
+
+        int[] sortedRowNumbers = new int[rowNumbers.length];
+        int[] sortedRowIndexes = new int[rowNumbers.length];
+        byte[] sortedCodes = new byte[rowNumbers.length];
+        int[] sortedDetailIds = new int[rowNumbers.length];
+        for (int i = 0; i < size; i++) {
+            sortedRowNumbers[i] = rowNumbers[order[i]];
+            sortedRowIndexes[i] = rowIndexes[order[i]];
+            sortedCodes[i] = codes[order[i]];
+            sortedDetailIds[i] = detailIds[order[i]];
+        }
+        rowNumbers = sortedRowNumbers;
+        rowIndexes = sortedRowIndexes;
+        codes = sortedCodes;
+        detailIds = sortedDetailIds;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getRowNumber(int error) {
+        return rowNumbers[error];
+    }
+
+    public UploadErrorCode getCode(int error) {
+        return CODES[codes[error]];
+    }
+
+    /**
+     * Number of distinct detail texts, each stored once however many errors refer to it
+     */
+    public int getDetailCount() {
+        return details.size();
+    }
+
+    /**
+     * View of the errors in the DTO form of the REST contract
+     * Each element is built when it is read; identical messages are rendered once and shared.
+     */
+    public List<UploadErrorDTO> asDtoList(ParsedRowBuffer rows) {
+        return new DtoView(rows);
+    }
+
+    private int detailId(String detail) {
+        Integer id = detailIdsByText.get(detail);
+        if (id == null) {
+            id = details.size();
+            details.add(detail);
+            detailIdsByText.put(detail, id);
+        }
+        return id;
+    }
+
+    private void grow(int capacity) {
+        rowNumbers = Arrays.copyOf(rowNumbers, capacity);
+        rowIndexes = Arrays.copyOf(rowIndexes, capacity);
+        codes = Arrays.copyOf(codes, capacity);
+        detailIds = Arrays.copyOf(detailIds, capacity);
+    }
+
+    private class DtoView extends AbstractList<UploadErrorDTO> implements RandomAccess {
+
+        private final ParsedRowBuffer rows;
+        private final int size = UploadErrors.this.size;
+        private final Map<Long, String> messages = new HashMap<>();
+
+        DtoView(ParsedRowBuffer rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public UploadErrorDTO get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            UploadErrorCode code = getCode(index);
+            UploadErrorDTO error = new UploadErrorDTO(rowNumbers[index], message(code, detailIds[index]), code.getCategory().name());
+            int row = rowIndexes[index];
+            if (row != NO_ROW) {
+                error.setRelCust(rows.getRelCust(row));
+                error.setAccount(rows.getAccount(row));
+                error.setAccountBranch(rows.getAccountBranch(row));
+                error.setDrCr(rows.getDrCr(row));
+                error.setCcyCd(rows.getCcyCd(row));
+                error.setAmount(rows.getAmount(row));
+                error.setLcyEquivalent(rows.getLcyEquivalent(row));
+                error.setTxnCode(rows.getTxnCode(row));
+                error.setAddlText(rows.getAddlText(row));
+            }
+            return error;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private synchronized String message(UploadErrorCode code, int detailId) {
+            long key = ((long) code.ordinal() << 32) | (detailId & 0xFFFFFFFFL);
+            return messages.computeIfAbsent(key, k -> code.render(detailId == NO_DETAIL ? null : details.get(detailId)));
+        }
+    }
+}
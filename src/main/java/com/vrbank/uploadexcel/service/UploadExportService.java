@@ -0,0 +1,127 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.repository.UploadBatchRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for exporting the records of a batch as CSV
+ * Reads both detb_upload_detail and detb_upload_detail_arch, so that archived batches stay exportable,
+ * streaming the rows to the writer instead of loading the whole batch
+ */
+@Service
+@UsesReadReplica
+@Transactional(readOnly = true)
+public class UploadExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String EXPORT_COLUMNS =
+        """
+        id, batch_no, branch_code, source_code, account, account_branch, dr_cr, ccy_cd, amount, lcy_equivalent, txn_code,
+        addl_text, exch_rate, value_date, upload_date, upload_stat\
+        """;
+
+    private final Logger log = LoggerFactory.getLogger(UploadExportService.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final UploadBatchRepository uploadBatchRepository;
+
+    public UploadExportService(JdbcTemplate jdbcTemplate, UploadBatchRepository uploadBatchRepository) {
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streamingJdbcTemplate);
+        this.uploadBatchRepository = uploadBatchRepository;
+    }
+
+    /**
+     * Whether the batch, or one of its sub-batches, has records, live or archived
+     */
+    public boolean batchExists(String batchNo) {
+        Map<String, List<String>> params = Map.of("batchNos", batchNos(batchNo));
+        for (String table : List.of("detb_upload_detail", "detb_upload_detail_arch")) {
+            String sql = "SELECT COUNT(*) FROM " + table + " WHERE batch_no IN (:batchNos)";
+            Integer count = jdbcTemplate.queryForObject(sql, params, Integer.class);
+            if (count != null && count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the records of the batch and of its sub-batches as CSV, ordered by id
+     * @return the number of records written
+     */
+    public long exportBatch(String batchNo, Writer writer) {
+        log.debug("Exporting batch {}", batchNo);
+        long[] rows = { 0 };
+        try {
+            writer.write(EXPORT_COLUMNS.replaceAll("\\s", "") + ",archived\n");
+            jdbcTemplate.query(
+                "SELECT " +
+                EXPORT_COLUMNS +
+                ", 'N' AS archived FROM detb_upload_detail WHERE batch_no IN (:batchNos) UNION ALL SELECT " +
+                EXPORT_COLUMNS +
+                ", 'Y' AS archived FROM detb_upload_detail_arch WHERE batch_no IN (:batchNos) ORDER BY id",
+                Map.of("batchNos", batchNos(batchNo)),
+                rs -> {
+                    writeRow(rs, writer);
+                    rows[0]++;
+                }
+            );
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Exported {} records of batch {}", rows[0], batchNo);
+        return rows[0];
+    }
+
+    private List<String> batchNos(String batchNo) {
+        List<String> batchNos = new ArrayList<>();
+        batchNos.add(batchNo);
+        uploadBatchRepository.findByParentBatchNoOrderByBatchNoAsc(batchNo).forEach(shard -> batchNos.add(shard.getBatchNo()));
+        return batchNos;
+    }
+
+    private static void writeRow(ResultSet rs, Writer writer) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        StringBuilder line = new StringBuilder();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (i > 1) {
+                line.append(',');
+            }
+            Object value = rs.getObject(i);
+            if (value != null) {
+                line.append(csvField(value.toString()));
+            }
+        }
+        try {
+            writer.write(line.append('\n').toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
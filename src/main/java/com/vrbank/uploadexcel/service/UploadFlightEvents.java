@@ -0,0 +1,197 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events of the upload pipeline
+ * An event costs nothing while no recording enables it; its fields are only filled in when it is going to be
+ * committed. Events are named after {@link #NAME_PREFIX}, so that a recording can enable them all.
+ */
+public final class UploadFlightEvents {
+
+    public static final String NAME_PREFIX = "com.vrbank.uploadexcel.";
+    public static final String UPLOAD = NAME_PREFIX + "Upload";
+    public static final String WORKBOOK_OPEN = NAME_PREFIX + "WorkbookOpen";
+    public static final String STAGE = NAME_PREFIX + "UploadStage";
+    public static final String MASTER_DATA_LOOKUP = NAME_PREFIX + "MasterDataLookup";
+
+    static final String STAGE_PARSE = "PARSE";
+    static final String STAGE_VALIDATE = "VALIDATE";
+    static final String STAGE_STAGING = "STAGING";
+    static final String STAGE_SAVE = "SAVE";
+
+    static final String LOOKUP_CUSTOMER_ACCOUNT = "CUSTOMER_ACCOUNT";
+    static final String LOOKUP_GL_ACCOUNT = "GL_ACCOUNT";
+
+    static final String SOURCE_INDEX = "INDEX";
+    static final String SOURCE_CACHE = "CACHE";
+    static final String SOURCE_DATABASE = "DATABASE";
+
+    private UploadFlightEvents() {}
+
+    private static String currentBatchNo() {
+        UploadContext context = UploadContext.current();
+        return context != null ? context.getBatchNo() : null;
+    }
+
+    /**
+     * Processing of an upload or of a dry run, from its start to its result
+     */
+    @Name(UPLOAD)
+    @Label("Excel Upload")
+    @Category({ "VR Bank", "Upload" })
+    @StackTrace(false)
+    static final class Upload extends Event {
+
+        @Label("Batch Number")
+        String batchNo;
+
+        @Label("Source Code")
+        String sourceCode;
+
+        @Label("File Name")
+        String fileName;
+
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+
+        @Label("Dry Run")
+        boolean dryRun;
+
+        @Label("Outcome")
+        @Description("SUCCESS, ERROR, CANCELLED or TIMEOUT")
+        String outcome;
+
+        @Label("Total Rows")
+        int totalRows;
+
+        @Label("Success Count")
+        int successCount;
+
+        @Label("Error Count")
+        int errorCount;
+
+        void finish(String batchNo, String sourceCode, String fileName, long fileSize, boolean dryRun, UploadResultDTO result) {
+            end();
+            if (shouldCommit()) {
+                this.batchNo = batchNo;
+                this.sourceCode = sourceCode;
+                this.fileName = fileName;
+                this.fileSize = fileSize;
+                this.dryRun = dryRun;
+                this.outcome = result.isCancelled()
+                    ? "CANCELLED"
+                    : result.isTimedOut() ? "TIMEOUT" : result.isSuccess() ? "SUCCESS" : "ERROR";
+                this.totalRows = result.getTotalRows();
+                this.successCount = result.getSuccessCount();
+                this.errorCount = result.getErrorCount();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Opening of the workbook of an upload, up to its first sheet being readable
+     */
+    @Name(WORKBOOK_OPEN)
+    @Label("Workbook Open")
+    @Category({ "VR Bank", "Upload" })
+    @StackTrace(false)
+    static final class WorkbookOpen extends Event {
+
+        @Label("Batch Number")
+        String batchNo;
+
+        @Label("File Name")
+        String fileName;
+
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+
+        void finish(SpooledUpload spooledUpload) {
+            end();
+            if (shouldCommit()) {
+                this.batchNo = currentBatchNo();
+                this.fileName = spooledUpload.getOriginalFilename();
+                this.fileSize = spooledUpload.getSize();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * One stage of the upload pipeline: parsing, validation, server-side staging or saving of the rows
+     */
+    @Name(STAGE)
+    @Label("Upload Stage")
+    @Category({ "VR Bank", "Upload" })
+    @StackTrace(false)
+    static final class Stage extends Event {
+
+        @Label("Batch Number")
+        String batchNo;
+
+        @Label("Stage")
+        String stage;
+
+        @Label("Rows")
+        int rows;
+
+        void finish(String stage, int rows) {
+            end();
+            if (shouldCommit()) {
+                this.batchNo = currentBatchNo();
+                this.stage = stage;
+                this.rows = rows;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Check of one account against the master data, from the index, the validation cache or the database
+     * Only lookups of at least 1 ms are recorded by default, which leaves out those answered from memory.
+     * The account number is left out: the recording is kept on disk, outside the masking of the application logs.
+     */
+    @Name(MASTER_DATA_LOOKUP)
+    @Label("Master Data Lookup")
+    @Category({ "VR Bank", "Upload" })
+    @StackTrace(false)
+    @Threshold("1 ms")
+    static final class MasterDataLookup extends Event {
+
+        @Label("Batch Number")
+        String batchNo;
+
+        @Label("Kind")
+        String kind;
+
+        @Label("Source")
+        @Description("INDEX, CACHE or DATABASE")
+        String source;
+
+        @Label("Result")
+        String result;
+
+        void finish(String kind, String source, String result) {
+            end();
+            if (shouldCommit()) {
+                this.batchNo = currentBatchNo();
+                this.kind = kind;
+                this.source = source;
+                this.result = result;
+                commit();
+            }
+        }
+    }
+}
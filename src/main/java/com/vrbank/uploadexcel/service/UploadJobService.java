@@ -0,0 +1,241 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadJob;
+import com.vrbank.uploadexcel.repository.UploadJobRepository;
+import com.vrbank.uploadexcel.service.dto.ExcelUploadDTO;
+import com.vrbank.uploadexcel.service.dto.UploadJobDTO;
+import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Service for the cluster-wide upload job queue
+ * Jobs are rows of detb_upload_job; nodes claim them with SELECT ... FOR UPDATE SKIP LOCKED,
+ * so every queued job is processed by exactly one node
+ */
+@Service
+@Transactional
+public class UploadJobService {
+
+    private final Logger log = LoggerFactory.getLogger(UploadJobService.class);
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final UploadJobRepository uploadJobRepository;
+    private final UploadSpooler uploadSpooler;
+    private final BatchReservationService batchReservationService;
+    private final Path storageDirectory;
+
+    public UploadJobService(
+        UploadJobRepository uploadJobRepository,
+        UploadSpooler uploadSpooler,
+        BatchReservationService batchReservationService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadJobRepository = uploadJobRepository;
+        this.uploadSpooler = uploadSpooler;
+        this.batchReservationService = batchReservationService;
+        this.storageDirectory = Path.of(applicationProperties.getUpload().getJobs().getStorageDirectory());
+    }
+
+    /**
+     * Queue an upload
+     * The file is moved to the shared storage directory, so that any node can process it
+     */
+    public UploadJobDTO submit(MultipartFile file, ExcelUploadDTO uploadParams) throws IOException {
+        Files.createDirectories(storageDirectory);
+
+        try (SpooledUpload spooledUpload = uploadSpooler.spool(file)) {
+            Path target = storageDirectory.resolve("job-" + UUID.randomUUID() + spooledUpload.getPath().getFileName());
+            Files.move(spooledUpload.getPath(), target, StandardCopyOption.REPLACE_EXISTING);
+
+            UploadJob job = new UploadJob();
+            job.setBatchNo(uploadParams.getBatchNo());
+            job.setBranchCode(uploadParams.getBranchCode());
+            job.setSourceCode(uploadParams.getSourceCode());
+            job.setExchRate(uploadParams.getExchRate());
+            job.setEntryDate(uploadParams.getEntryDate());
+            job.setFilePath(target.toAbsolutePath().toString());
+            job.setFileName(spooledUpload.getOriginalFilename());
+            job.setFileSize(spooledUpload.getSize());
+            job.setContentHash(spooledUpload.getContentHash());
+            job.setStatus(UploadJob.STATUS_QUEUED);
+            job.setCreatedDate(Instant.now());
+
+            try {
+                job = uploadJobRepository.save(job);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+
+            log.info("Queued upload job {} for batch {}", job.getId(), job.getBatchNo());
+            return new UploadJobDTO(job);
+        }
+    }
+
+    /**
+     * Get the status of a job
+     */
+    @Transactional(readOnly = true)
+    public Optional<UploadJobDTO> findOne(Long id) {
+        return uploadJobRepository.findById(id).map(UploadJobDTO::new);
+    }
+
+    /**
+     * Claim up to {@code limit} queued jobs for a node
+     * Jobs locked by another node's claim are skipped rather than waited for
+     */
+    public List<UploadJob> claimQueuedJobs(String nodeId, int limit) {
+        List<UploadJob> jobs = uploadJobRepository.findQueuedForUpdate(PageRequest.of(0, limit));
+        Instant now = Instant.now();
+        for (UploadJob job : jobs) {
+            job.setStatus(UploadJob.STATUS_RUNNING);
+            job.setOwnerNode(nodeId);
+            job.setHeartbeatAt(now);
+            job.setStartedDate(now);
+            job.setAttempts(job.getAttempts() + 1);
+        }
+        return jobs;
+    }
+
+    /**
+     * Token the current attempt of a job reserves its batch number with
+     * It tells the reservation of this attempt apart from those of other attempts and of interactive uploads.
+     */
+    public static String reservationToken(UploadJob job) {
+        return "job-" + job.getId() + "-" + job.getAttempts();
+    }
+
+    /**
+     * Put a claimed job back in the queue, e.g. when the executor rejected it
+     */
+    public void requeue(Long jobId, String nodeId) {
+        uploadJobRepository
+            .findById(jobId)
+            .filter(job -> nodeId.equals(job.getOwnerNode()))
+            .ifPresent(job -> {
+                job.setStatus(UploadJob.STATUS_QUEUED);
+                job.setOwnerNode(null);
+                job.setAttempts(job.getAttempts() - 1);
+            });
+    }
+
+    /**
+     * Record the result of a job
+     * Ignored if the job was meanwhile recovered by another node
+     */
+    public void finish(Long jobId, String nodeId, UploadResultDTO result) {
+        Optional<UploadJob> claimedJob = uploadJobRepository.findById(jobId).filter(job -> nodeId.equals(job.getOwnerNode()));
+        if (claimedJob.isEmpty()) {
+            log.warn("Upload job {} is no longer owned by node {}, result discarded", jobId, nodeId);
+            return;
+        }
+
+        UploadJob job = claimedJob.orElseThrow();
+        if (result.isCancelled()) {
+            job.setStatus(UploadJob.STATUS_CANCELLED);
+        } else if (result.isTimedOut()) {
+            job.setStatus(UploadJob.STATUS_TIMEOUT);
+        } else {
+            job.setStatus(result.isSuccess() ? UploadJob.STATUS_DONE : UploadJob.STATUS_FAILED);
+        }
+        job.setTotalRows(result.getTotalRows());
+        job.setSuccessCount(result.getSuccessCount());
+        job.setErrorCount(result.getErrorCount());
+        job.setResultMessage(truncate(result.getMessage()));
+        job.setFinishedDate(Instant.now());
+    }
+
+    /**
+     * Cancel a job
+     * A queued job is cancelled straight away; a running job is flagged, and cancelled by the node running it
+     * @return the job, or empty if not found
+     */
+    public Optional<UploadJobDTO> requestCancel(Long id) {
+        return uploadJobRepository
+            .findById(id)
+            .map(job -> {
+                if (UploadJob.STATUS_QUEUED.equals(job.getStatus())) {
+                    job.setStatus(UploadJob.STATUS_CANCELLED);
+                    job.setResultMessage("Cancelled before processing");
+                    job.setFinishedDate(Instant.now());
+                    deleteJobFile(job);
+                    log.info("Cancelled queued upload job {} for batch {}", job.getId(), job.getBatchNo());
+                } else if (UploadJob.STATUS_RUNNING.equals(job.getStatus())) {
+                    job.setCancelRequested(true);
+                    log.info("Requested cancellation of upload job {} running on node {}", job.getId(), job.getOwnerNode());
+                }
+                return new UploadJobDTO(job);
+            });
+    }
+
+    /**
+     * Find the running jobs of a node whose cancellation was requested
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findCancelRequested(String nodeId, Collection<Long> jobIds) {
+        return uploadJobRepository.findCancelRequested(jobIds, nodeId);
+    }
+
+    /**
+     * Refresh the heartbeat of the jobs running on a node
+     */
+    public void heartbeat(String nodeId, Collection<Long> jobIds) {
+        uploadJobRepository.updateHeartbeat(jobIds, nodeId, Instant.now());
+    }
+
+    /**
+     * Queue again the jobs of nodes that stopped sending heartbeats
+     * A job that already used all its attempts is failed instead, so that a file crashing nodes is not retried forever
+     * @return number of recovered jobs
+     */
+    public int recoverStaleJobs(Instant staleBefore, int maxAttempts) {
+        List<UploadJob> staleJobs = uploadJobRepository.findStaleForUpdate(staleBefore);
+        for (UploadJob job : staleJobs) {
+            log.warn("Upload job {} on node {} stopped sending heartbeats", job.getId(), job.getOwnerNode());
+            // The dead node's claim on the batch number would otherwise block the retry until it expires
+            batchReservationService.releaseAbandoned(job.getBatchNo(), reservationToken(job));
+            job.setOwnerNode(null);
+            if (job.isCancelRequested()) {
+                job.setStatus(UploadJob.STATUS_CANCELLED);
+                job.setFinishedDate(Instant.now());
+                deleteJobFile(job);
+            } else if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(UploadJob.STATUS_FAILED);
+                job.setResultMessage("Processing stopped after " + job.getAttempts() + " attempts");
+                job.setFinishedDate(Instant.now());
+                deleteJobFile(job);
+            } else {
+                job.setStatus(UploadJob.STATUS_QUEUED);
+            }
+        }
+        return staleJobs.size();
+    }
+
+    private void deleteJobFile(UploadJob job) {
+        try {
+            Files.deleteIfExists(Path.of(job.getFilePath()));
+        } catch (IOException e) {
+            log.warn("Could not delete file of upload job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+}
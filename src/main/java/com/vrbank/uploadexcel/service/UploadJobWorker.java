@@ -0,0 +1,186 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadJob;
+import com.vrbank.uploadexcel.service.dto.ExcelUploadDTO;
+import com.vrbank.uploadexcel.service.dto.UploadJobDTO;
+import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Polls the upload job queue and runs claimed jobs on the excelUploadTaskExecutor
+ * Every node runs a worker, so queued uploads are spread over the cluster whichever node received them.
+ * A job is processed once admitted by the {@link UploadAdmissionController}, under the same limits as interactive uploads.
+ */
+@Service
+public class UploadJobWorker {
+
+    private final Logger log = LoggerFactory.getLogger(UploadJobWorker.class);
+
+    private final UploadJobService uploadJobService;
+    private final ExcelUploadService excelUploadService;
+    private final UploadAdmissionController uploadAdmissionController;
+    private final Executor excelUploadTaskExecutor;
+    private final ApplicationProperties.Upload.Jobs jobProperties;
+
+    /**
+     * Identifies this node as the owner of the jobs it claims.
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * Jobs running on this node, with the context to cancel them.
+     */
+    private final Map<Long, UploadContext> runningJobs = new ConcurrentHashMap<>();
+
+    public UploadJobWorker(
+        UploadJobService uploadJobService,
+        ExcelUploadService excelUploadService,
+        UploadAdmissionController uploadAdmissionController,
+        @Qualifier("excelUploadTaskExecutor") Executor excelUploadTaskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadJobService = uploadJobService;
+        this.excelUploadService = excelUploadService;
+        this.uploadAdmissionController = uploadAdmissionController;
+        this.excelUploadTaskExecutor = excelUploadTaskExecutor;
+        this.jobProperties = applicationProperties.getUpload().getJobs();
+    }
+
+    /**
+     * Claim as many queued jobs as this node has free worker threads
+     */
+    @Scheduled(fixedDelayString = "${application.upload.jobs.poll-interval-ms:2000}")
+    public void pollQueuedJobs() {
+        if (!jobProperties.isEnabled()) {
+            return;
+        }
+        int freeWorkers = jobProperties.getWorkerThreads() - runningJobs.size();
+        if (freeWorkers <= 0) {
+            return;
+        }
+
+        List<UploadJob> jobs = uploadJobService.claimQueuedJobs(nodeId, freeWorkers);
+        for (UploadJob job : jobs) {
+            runningJobs.put(job.getId(), new UploadContext(job.getBatchNo(), UploadJobService.reservationToken(job)));
+            try {
+                excelUploadTaskExecutor.execute(() -> runJob(job));
+            } catch (RejectedExecutionException e) {
+                log.warn("Executor rejected upload job {}, putting it back in the queue", job.getId());
+                runningJobs.remove(job.getId());
+                uploadJobService.requeue(job.getId(), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Tell the other nodes that the jobs claimed by this node are still being processed
+     */
+    @Scheduled(fixedDelayString = "${application.upload.jobs.heartbeat-interval-ms:15000}")
+    public void sendHeartbeat() {
+        if (!runningJobs.isEmpty()) {
+            uploadJobService.heartbeat(nodeId, Set.copyOf(runningJobs.keySet()));
+        }
+    }
+
+    /**
+     * Cancel a job
+     * A job running on this node is cancelled straight away, one running on another node when that node next polls
+     * @return the job, or empty if not found
+     */
+    public Optional<UploadJobDTO> cancel(Long jobId) {
+        Optional<UploadJobDTO> job = uploadJobService.requestCancel(jobId);
+        UploadContext context = runningJobs.get(jobId);
+        if (context != null) {
+            context.cancel();
+        }
+        return job;
+    }
+
+    /**
+     * Cancel the jobs running on this node whose cancellation was requested on another node
+     */
+    @Scheduled(fixedDelayString = "${application.upload.jobs.poll-interval-ms:2000}")
+    public void pollCancelledJobs() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        for (Long jobId : uploadJobService.findCancelRequested(nodeId, Set.copyOf(runningJobs.keySet()))) {
+            UploadContext context = runningJobs.get(jobId);
+            if (context != null && !context.isCancelled()) {
+                context.cancel();
+            }
+        }
+    }
+
+    /**
+     * Queue again the jobs of nodes that died while processing them
+     */
+    @Scheduled(fixedDelayString = "${application.upload.jobs.heartbeat-interval-ms:15000}")
+    public void recoverStaleJobs() {
+        if (!jobProperties.isEnabled()) {
+            return;
+        }
+        Instant staleBefore = Instant.now().minusSeconds(jobProperties.getHeartbeatStaleSeconds());
+        int recovered = uploadJobService.recoverStaleJobs(staleBefore, jobProperties.getMaxAttempts());
+        if (recovered > 0) {
+            log.info("Recovered {} stale upload jobs", recovered);
+        }
+    }
+
+    private void runJob(UploadJob job) {
+        log.debug("Running upload job {} for batch {}", job.getId(), job.getBatchNo());
+        ExcelUploadDTO uploadParams = new ExcelUploadDTO(
+            job.getBatchNo(),
+            job.getBranchCode(),
+            job.getSourceCode(),
+            job.getExchRate(),
+            job.getEntryDate()
+        );
+
+        // Closed, which deletes the job file, only once the job is finished: a requeued job runs again from it
+        SpooledUpload spooledUpload = new SpooledUpload(
+            Path.of(job.getFilePath()),
+            job.getFileName(),
+            job.getFileSize(),
+            job.getContentHash()
+        );
+        UploadResultDTO result;
+        try (UploadAdmissionController.Permit permit = uploadAdmissionController.acquire(job.getBranchCode(), job.getFileSize())) {
+            result = excelUploadService.processSpooledUpload(spooledUpload, uploadParams, runningJobs.get(job.getId()));
+        } catch (UploadRejectedException e) {
+            // Not admitted, or nothing was saved; the job runs again once the load is down
+            log.warn("Upload job {} rejected, putting it back in the queue: {}", job.getId(), e.getMessage());
+            try {
+                uploadJobService.requeue(job.getId(), nodeId);
+            } finally {
+                runningJobs.remove(job.getId());
+            }
+            return;
+        } catch (RuntimeException e) {
+            log.error("Error running upload job {}: {}", job.getId(), e.getMessage(), e);
+            result = UploadResultDTO.error(job.getBatchNo(), "Error processing upload job: " + e.getMessage());
+        }
+
+        try {
+            uploadJobService.finish(job.getId(), nodeId, result);
+        } finally {
+            spooledUpload.close();
+            runningJobs.remove(job.getId());
+        }
+    }
+}
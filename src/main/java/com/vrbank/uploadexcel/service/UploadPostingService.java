@@ -0,0 +1,214 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository;
+import com.vrbank.uploadexcel.service.dto.UploadDetailDTO;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service handing the uploaded records to the posting workers
+ * Pending records are claimed in id order with SELECT ... FOR UPDATE SKIP LOCKED and marked 'P' in the same
+ * transaction, so several workers can drain them in parallel without posting a record twice.
+ * A claimed record is then completed ('Y') once posted, or released ('N') to be claimed again.
+ * Who claimed a record and when is kept in detb_upload_claim until then; records claimed longer than claim-ttl-seconds
+ * ago, e.g. by a worker that crashed, are released by {@link #reclaimStaleClaims()}.
+ */
+@Service
+@UsesUploadPool
+public class UploadPostingService {
+
+    public static final String STATUS_PENDING = "N";
+    public static final String STATUS_PROCESSING = "P";
+    public static final String STATUS_PROCESSED = "Y";
+
+    /**
+     * Upper bound of a claim, also the size of the IN lists (Oracle accepts at most 1000 values)
+     */
+    public static final int MAX_CLAIM_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(UploadPostingService.class);
+
+    /**
+     * Claimant of the records claimed by this node itself
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final UploadDetailRepository uploadDetailRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ApplicationProperties.Upload.Posting properties;
+
+    public UploadPostingService(
+        UploadDetailRepository uploadDetailRepository,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadDetailRepository = uploadDetailRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getUpload().getPosting();
+    }
+
+    /**
+     * Claim the next pending records for this node
+     * @see #claimPending(long, int, String)
+     */
+    public List<UploadDetailDTO> claimPending(long afterId, int size) {
+        return claimPending(afterId, size, nodeId);
+    }
+
+    /**
+     * Claim the next pending records
+     * The claim is committed before returning, so other workers skip these records from now on
+     * @param afterId only records with a greater id, the last id of the previous claim or 0
+     * @param size maximum number of records, at most {@link #MAX_CLAIM_SIZE}
+     * @param claimedBy the worker claiming the records
+     * @return the claimed records in id order, empty when there are no more pending records after the cursor
+     */
+    public List<UploadDetailDTO> claimPending(long afterId, int size, String claimedBy) {
+        int claimSize = Math.min(Math.max(size, 1), MAX_CLAIM_SIZE);
+        List<UploadDetailDTO> claimed = newTransaction.execute(status -> {
+            List<UploadDetail> pending = uploadDetailRepository.findPendingForUpdate(afterId, PageRequest.of(0, claimSize));
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            List<Long> ids = pending.stream().map(UploadDetail::getId).toList();
+            uploadDetailRepository.markClaimed(ids);
+            Timestamp claimedAt = Timestamp.from(Instant.now());
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO detb_upload_claim (detail_id, claimed_by, claimed_at) VALUES (?, ?, ?)",
+                ids,
+                ids.size(),
+                (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, claimedBy);
+                    ps.setTimestamp(3, claimedAt);
+                }
+            );
+            List<UploadDetailDTO> records = new ArrayList<>(pending.size());
+            for (UploadDetail detail : pending) {
+                UploadDetailDTO record = new UploadDetailDTO(detail);
+                record.setUploadStat(STATUS_PROCESSING);
+                records.add(record);
+            }
+            return records;
+        });
+        log.debug("{} claimed {} pending records after id {}", claimedBy, claimed.size(), afterId);
+        return claimed;
+    }
+
+    /**
+     * Mark claimed records as posted
+     * @return number of records completed, records not claimed are ignored
+     */
+    public int complete(Collection<Long> ids) {
+        return updateStatus(ids, STATUS_PROCESSING, STATUS_PROCESSED);
+    }
+
+    /**
+     * Give claimed records back, e.g. when posting failed
+     * @return number of records released, records not claimed are ignored
+     */
+    public int release(Collection<Long> ids) {
+        return updateStatus(ids, STATUS_PROCESSING, STATUS_PENDING);
+    }
+
+    /**
+     * Post all pending records, chunk by chunk
+     * Each chunk is completed when the poster returns, and released when it throws, which stops the draining.
+     * @param chunkSize number of records claimed at a time
+     * @param poster posts a chunk of records
+     * @return number of records posted
+     */
+    public long drainPending(int chunkSize, Consumer<List<UploadDetailDTO>> poster) {
+        long posted = 0;
+        long afterId = 0;
+        List<UploadDetailDTO> chunk;
+        while (!(chunk = claimPending(afterId, chunkSize)).isEmpty()) {
+            List<Long> ids = chunk.stream().map(UploadDetailDTO::getId).toList();
+            try {
+                poster.accept(chunk);
+            } catch (RuntimeException e) {
+                release(ids);
+                throw e;
+            }
+            posted += complete(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+        log.info("Posted {} pending records", posted);
+        return posted;
+    }
+
+    /**
+     * Give back the records claimed longer than claim-ttl-seconds ago
+     * This is scheduled to run every reclaim-interval-ms, like the recovery of the upload jobs of dead nodes.
+     */
+    @Scheduled(fixedDelayString = "${application.upload.posting.reclaim-interval-ms:60000}")
+    public void reclaimStaleClaims() {
+        int reclaimed = reclaimClaimsBefore(Instant.now().minusSeconds(properties.getClaimTtlSeconds()));
+        if (reclaimed > 0) {
+            log.warn("Released {} records whose posting worker stopped before completing or releasing them", reclaimed);
+        }
+    }
+
+    /**
+     * Give back the records claimed before a point in time
+     * @return number of records released
+     */
+    public int reclaimClaimsBefore(Instant claimedBefore) {
+        Timestamp staleBefore = Timestamp.from(claimedBefore);
+        Integer reclaimed = newTransaction.execute(status -> {
+            int released = jdbcTemplate.update(
+                """
+                UPDATE detb_upload_detail SET upload_stat = ?
+                WHERE upload_stat = ? AND id IN (SELECT detail_id FROM detb_upload_claim WHERE claimed_at < ?)
+                """,
+                STATUS_PENDING,
+                STATUS_PROCESSING,
+                staleBefore
+            );
+            jdbcTemplate.update("DELETE FROM detb_upload_claim WHERE claimed_at < ?", staleBefore);
+            return released;
+        });
+        return reclaimed != null ? reclaimed : 0;
+    }
+
+    private int updateStatus(Collection<Long> ids, String fromStatus, String toStatus) {
+        List<Long> idList = new ArrayList<>(ids);
+        Integer updated = newTransaction.execute(status -> {
+            int count = 0;
+            for (int from = 0; from < idList.size(); from += MAX_CLAIM_SIZE) {
+                List<Long> chunk = idList.subList(from, Math.min(from + MAX_CLAIM_SIZE, idList.size()));
+                count += uploadDetailRepository.updateUploadStatus(chunk, fromStatus, toStatus);
+            }
+            // The claims end with the status change
+            jdbcTemplate.batchUpdate(
+                "DELETE FROM detb_upload_claim WHERE detail_id = ?",
+                idList,
+                MAX_CLAIM_SIZE,
+                (ps, id) -> ps.setLong(1, id)
+            );
+            return count;
+        });
+        return updated != null ? updated : 0;
+    }
+}
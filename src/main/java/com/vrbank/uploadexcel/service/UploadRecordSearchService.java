@@ -0,0 +1,74 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesReadReplica;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository.UploadDetailView;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for searching uploaded records for reporting
+ * Reads projections page by page, without counting the matches or loading entities into the persistence context
+ */
+@Service
+@UsesReadReplica
+@Transactional(readOnly = true)
+public class UploadRecordSearchService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(UploadRecordSearchService.class);
+
+    private final UploadDetailRepository uploadDetailRepository;
+
+    public UploadRecordSearchService(UploadDetailRepository uploadDetailRepository) {
+        this.uploadDetailRepository = uploadDetailRepository;
+    }
+
+    /**
+     * Search uploaded records, null criteria being ignored
+     * At least one criterion is required, so that a search never walks the whole table
+     * @param pageable page to read, at most {@link #MAX_PAGE_SIZE} records, always ordered by id
+     * @return the records of the page, and whether there is a next one
+     * @throws IllegalArgumentException when no criterion is given
+     */
+    public Slice<UploadDetailView> search(
+        String batchNo,
+        String branchCode,
+        String sourceCode,
+        String account,
+        LocalDate startDate,
+        LocalDate endDate,
+        Pageable pageable
+    ) {
+        if (isBlank(batchNo) && isBlank(branchCode) && isBlank(sourceCode) && isBlank(account) && startDate == null && endDate == null) {
+            throw new IllegalArgumentException("At least one search criterion is required");
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), Sort.by("id"));
+        log.debug("Searching records of batch {}, branch {}, source {}, account {}", batchNo, branchCode, sourceCode, account);
+        return uploadDetailRepository.searchViews(
+            trimToNull(batchNo),
+            trimToNull(branchCode),
+            trimToNull(sourceCode),
+            trimToNull(account),
+            startDate,
+            endDate,
+            page
+        );
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String trimToNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+}
@@ -0,0 +1,29 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * Thrown when an upload is not admitted because the server is at capacity
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+    private final int queuePosition;
+
+    public UploadRejectedException(String message, long retryAfterSeconds, int queuePosition) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queuePosition = queuePosition;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Position the upload had in the admission queue, 0 if it was never queued
+     */
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+}
@@ -0,0 +1,107 @@
+package com.vrbank.uploadexcel.service;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * Per-row log messages of an upload, aggregated by message template
+ * A file with thousands of bad rows would otherwise log thousands of lines: only the first max-detailed-lines messages
+ * of the upload are logged, the others are counted, and {@link #logSummary(Logger, int)} logs one line with the most
+ * frequent templates once the upload is done.
+ * Without an upload context on the current thread, messages are logged as they come.
+ */
+public class UploadRowLog {
+
+    private final String batchNo;
+    private final int maxDetailedLines;
+    private final AtomicInteger detailedLines = new AtomicInteger();
+    private final Map<String, LongAdder> countsByTemplate = new ConcurrentHashMap<>();
+
+    public UploadRowLog(String batchNo, int maxDetailedLines) {
+        this.batchNo = batchNo;
+        this.maxDetailedLines = maxDetailedLines;
+    }
+
+    /**
+     * Log a per-row debug message of the upload the current thread works on
+     */
+    public static void debug(Logger log, String template, Object... args) {
+        if (log.isDebugEnabled()) {
+            log(log, Level.DEBUG, template, args);
+        }
+    }
+
+    /**
+     * Log a per-row warning of the upload the current thread works on
+     */
+    public static void warn(Logger log, String template, Object... args) {
+        if (log.isWarnEnabled()) {
+            log(log, Level.WARN, template, args);
+        }
+    }
+
+    /**
+     * Log a per-row error of the upload the current thread works on
+     */
+    public static void error(Logger log, String template, Object... args) {
+        if (log.isErrorEnabled()) {
+            log(log, Level.ERROR, template, args);
+        }
+    }
+
+    private static void log(Logger log, Level level, String template, Object... args) {
+        UploadContext context = UploadContext.current();
+        UploadRowLog rowLog = context != null ? context.getRowLog() : null;
+        if (rowLog == null || rowLog.record(template)) {
+            log.atLevel(level).log(template, args);
+        }
+    }
+
+    /**
+     * Count a message
+     * @return whether it should still be logged in full
+     */
+    boolean record(String template) {
+        countsByTemplate.computeIfAbsent(template, key -> new LongAdder()).increment();
+        return detailedLines.get() < maxDetailedLines && detailedLines.incrementAndGet() <= maxDetailedLines;
+    }
+
+    /**
+     * Number of messages recorded
+     */
+    public long getTotal() {
+        return countsByTemplate.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Number of messages recorded but not logged
+     */
+    public long getSuppressed() {
+        return Math.max(0L, getTotal() - Math.min(detailedLines.get(), maxDetailedLines));
+    }
+
+    /**
+     * Log one line with the number of messages of the upload and its most frequent templates, if it had any
+     */
+    public void logSummary(Logger log, int topMessages) {
+        long total = getTotal();
+        if (total == 0) {
+            return;
+        }
+        String top = countsByTemplate
+            .entrySet()
+            .stream()
+            .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(topMessages)
+            .map(entry -> entry.getValue() + " x \"" + entry.getKey() + "\"")
+            .collect(Collectors.joining(", "));
+        log.info("Batch {} logged {} row messages, {} of them not shown; most frequent: {}", batchNo, total, getSuppressed(), top);
+    }
+}
@@ -0,0 +1,232 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadBatch;
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import com.vrbank.uploadexcel.repository.UploadBatchRepository;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for saving oversized files as sub-batches
+ * Rows are split by position into sub-batches of maxRowsPerBatch rows, named after the uploaded batch
+ * (BATCH-001, BATCH-002, ...). Each sub-batch is saved in its own transaction, all of them in parallel.
+ * The upload stays all-or-nothing: sub-batches already saved are deleted again when another one fails
+ * or when the upload transaction rolls back.
+ * Within the deadline of the upload: the rows of a sub-batch are written a chunk at a time, checking the deadline
+ * before each chunk, and the transaction of the sub-batch times out with the time left.
+ */
+@Service
+@UsesUploadPool
+public class UploadShardService {
+
+    private final Logger log = LoggerFactory.getLogger(UploadShardService.class);
+
+    public static final int MAX_SHARDS = 999;
+    private static final int SUFFIX_LENGTH = 4; // "-001"
+    private static final int WRITE_CHUNK_SIZE = 1000; // Entities built and flushed at a time
+
+    private final UploadDetailRepository uploadDetailRepository;
+    private final UploadBatchRepository uploadBatchRepository;
+    private final Executor shardExecutor;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate newTransaction;
+    private final int maxRowsPerBatch;
+
+    public UploadShardService(
+        UploadDetailRepository uploadDetailRepository,
+        UploadBatchRepository uploadBatchRepository,
+        @Qualifier("excelShardTaskExecutor") Executor shardExecutor,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadDetailRepository = uploadDetailRepository;
+        this.uploadBatchRepository = uploadBatchRepository;
+        this.shardExecutor = shardExecutor;
+        this.entityManager = entityManager;
+        this.transactionManager = transactionManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxRowsPerBatch = applicationProperties.getUpload().getMaxRowsPerBatch();
+    }
+
+    /**
+     * Name of the n-th sub-batch (0-based) of a batch
+     */
+    public static String shardBatchNo(String parentBatchNo, int shardIndex) {
+        return String.format("%s-%03d", parentBatchNo, shardIndex + 1);
+    }
+
+    /**
+     * Check whether a batch number leaves room for the sub-batch suffix
+     */
+    public static boolean canShard(String parentBatchNo) {
+        return parentBatchNo.length() + SUFFIX_LENGTH <= 20;
+    }
+
+    /**
+     * Sub-batch of a row, from its 1-based position among the data rows
+     */
+    public int shardIndex(int dataRowIndex) {
+        return (dataRowIndex - 1) / maxRowsPerBatch;
+    }
+
+    /**
+     * Save the validated rows as sub-batches of the given batch
+     * Must be called within a transaction: when it rolls back, the sub-batches are deleted again
+     * @return the sub-batch numbers, in order
+     */
+    public List<String> saveShards(
+        ParsedRowBuffer.BatchFields batchFields,
+        String branchCode,
+        String sourceCode,
+        String fileName,
+        ValidatedUpload validatedUpload,
+        int firstDataRow
+    ) {
+        String parentBatchNo = batchFields.getBatchNo();
+        ParsedRowBuffer rows = validatedUpload.getRows();
+        BitSet validRows = validatedUpload.getValidRows();
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int row = validRows.nextSetBit(0); row >= 0; row = validRows.nextSetBit(row + 1)) {
+            rowsByShard.computeIfAbsent(shardIndex(rows.getCurrNo(row)), index -> new ArrayList<>()).add(row);
+        }
+        Map<Integer, Integer> errorCountByShard = new TreeMap<>();
+        UploadErrors errors = validatedUpload.getErrors();
+        for (int error = 0; error < errors.size(); error++) {
+            errorCountByShard.merge(shardIndex(errors.getRowNumber(error) - firstDataRow), 1, Integer::sum);
+        }
+        if (rowsByShard.size() > MAX_SHARDS) {
+            throw new IllegalStateException("File needs more than " + MAX_SHARDS + " sub-batches");
+        }
+
+        List<String> shardBatchNos = new ArrayList<>();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> shard : rowsByShard.entrySet()) {
+            String shardBatchNo = shardBatchNo(parentBatchNo, shard.getKey());
+            ParsedRowBuffer.BatchFields shardFields = batchFields.withBatchNo(shardBatchNo);
+            UploadBatch header = new UploadBatch(shardBatchNo, branchCode, sourceCode);
+            header.setParentBatchNo(parentBatchNo);
+            header.setFileName(fileName);
+            header.setSuccessCount(shard.getValue().size());
+            header.setErrorCount(errorCountByShard.getOrDefault(shard.getKey(), 0));
+            header.setTotalRows(header.getSuccessCount() + header.getErrorCount());
+            header.setCreatedDate(Instant.now());
+
+            shardBatchNos.add(shardBatchNo);
+            Runnable write = UploadContext.propagate(() -> writeShard(header, rows, shard.getValue(), shardFields));
+            writes.add(CompletableFuture.runAsync(write, shardExecutor));
+        }
+
+        // Sub-batches saved by now are deleted again if the upload transaction does not commit
+        deleteShardsUnlessCommitted(parentBatchNo);
+
+        try {
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Error saving sub-batches of batch {}: {}", parentBatchNo, cause.getMessage());
+            // allOf completes only once every write has finished, so no sub-batch is saved after this
+            deleteShards(parentBatchNo);
+            throw new IllegalStateException("Error saving sub-batches: " + cause.getMessage(), cause);
+        }
+
+        log.info("Saved batch {} as {} sub-batches", parentBatchNo, shardBatchNos.size());
+        return shardBatchNos;
+    }
+
+    private void writeShard(UploadBatch header, ParsedRowBuffer rows, List<Integer> shardRows, ParsedRowBuffer.BatchFields shardFields) {
+        UploadContext.checkCurrent();
+        shardTransaction().executeWithoutResult(status -> {
+            // The unique batch number makes this fail if the sub-batch number was already used
+            uploadBatchRepository.saveAndFlush(header);
+            List<UploadDetail> chunk = new ArrayList<>(Math.min(shardRows.size(), WRITE_CHUNK_SIZE));
+            for (int row : shardRows) {
+                chunk.add(rows.toUploadDetail(row, shardFields));
+                if (chunk.size() == WRITE_CHUNK_SIZE) {
+                    writeChunk(chunk);
+                }
+            }
+            writeChunk(chunk);
+        });
+        log.debug("Saved sub-batch {} with {} records", header.getBatchNo(), shardRows.size());
+    }
+
+    /**
+     * New transaction for a sub-batch, timing out with the deadline of the upload
+     * The timeout applies to every statement of the transaction, including the inserts flushed by JPA.
+     */
+    private TransactionTemplate shardTransaction() {
+        long remainingNanos = UploadContext.currentRemainingNanos();
+        if (remainingNanos == Long.MAX_VALUE) {
+            return newTransaction;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager, newTransaction);
+        long remainingSeconds = TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+        transaction.setTimeout((int) Math.max(1, Math.min(remainingSeconds, Integer.MAX_VALUE)));
+        return transaction;
+    }
+
+    private void writeChunk(List<UploadDetail> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        UploadContext.checkCurrent();
+        uploadDetailRepository.saveAll(chunk);
+        uploadDetailRepository.flush();
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+    }
+
+    private void deleteShardsUnlessCommitted(String parentBatchNo) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteShards(parentBatchNo);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Delete every sub-batch of a batch, with its records
+     */
+    public void deleteShards(String parentBatchNo) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                for (UploadBatch shard : uploadBatchRepository.findByParentBatchNoOrderByBatchNoAsc(parentBatchNo)) {
+                    uploadDetailRepository.deleteByBatchNo(shard.getBatchNo());
+                    uploadBatchRepository.deleteByBatchNo(shard.getBatchNo());
+                }
+            });
+            log.info("Deleted sub-batches of batch {}", parentBatchNo);
+        } catch (RuntimeException e) {
+            log.error("Error deleting sub-batches of batch {}: {}", parentBatchNo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Copies uploaded files to the upload temp directory, hashing the content in the same pass
+ */
+@Service
+public class UploadSpooler {
+
+    private final Logger log = LoggerFactory.getLogger(UploadSpooler.class);
+
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final Path tempDirectory;
+
+    public UploadSpooler(ApplicationProperties applicationProperties) {
+        this.tempDirectory = Path.of(applicationProperties.getUpload().getTempDirectory());
+    }
+
+    /**
+     * Spool the multipart file to disk, computing its SHA-256 while copying
+     */
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        Files.createDirectories(tempDirectory);
+        Path target = Files.createTempFile(tempDirectory, "upload-", fileSuffix(file.getOriginalFilename()));
+
+        MessageDigest digest = sha256();
+        long size;
+        try (
+            ReadableByteChannel source = Channels.newChannel(new DigestInputStream(file.getInputStream(), digest));
+            FileChannel destination = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+        ) {
+            size = transfer(source, destination);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        log.debug("Spooled {} ({} bytes) to {}, sha256={}", file.getOriginalFilename(), size, target, contentHash);
+        return new SpooledUpload(target, file.getOriginalFilename(), size, contentHash);
+    }
+
+    /**
+     * Copy the whole channel into the file, letting the file channel write straight from its own buffer
+     */
+    private static long transfer(ReadableByteChannel source, FileChannel destination) throws IOException {
+        long position = 0;
+        long transferred;
+        while ((transferred = destination.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+            position += transferred;
+        }
+        return position;
+    }
+
+    private static String fileSuffix(String filename) {
+        if (filename == null) {
+            return ".tmp";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 ? filename.substring(dot).toLowerCase() : ".tmp";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
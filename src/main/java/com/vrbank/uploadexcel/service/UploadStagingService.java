@@ -0,0 +1,177 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.aop.routing.UsesUploadPool;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for validating and saving uploaded rows with set-based SQL
+ * Rows are bulk-loaded into the detb_upload_staging table, checked against the account, customer and GL masters
+ * with one statement per check, and the good ones are copied to detb_upload_detail with a single INSERT ... SELECT.
+ * The checks give the same messages, in the same order, as {@link AccountValidationService#validateCustomerAccount}
+ * and {@link AccountValidationService#validateGLAccount}.
+ * Every method must run in the transaction of the upload, as staged rows are only visible to its session.
+ */
+@Service
+@UsesUploadPool
+@Transactional(propagation = Propagation.MANDATORY)
+public class UploadStagingService {
+
+    private final Logger log = LoggerFactory.getLogger(UploadStagingService.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final String CUSTOMER_ACCOUNT_MATCH =
+        """
+        SELECT 1 FROM account_master a
+        JOIN customer_master c ON a.customer_no = c.customer_no
+        WHERE a.account_no = s.account AND a.currency_code = s.ccy_cd AND c.customer_no = s.rel_cust\
+        """;
+
+    /**
+     * Customer account checks, in the order of {@link AccountValidationService#validateCustomerAccount}.
+     * Each one adds a condition to the previous ones, so a row is reported with the first check it fails.
+     * Whole-number VND amounts are already checked row by row before rows are staged.
+     */
+    private static final String[][] CUSTOMER_ACCOUNT_CHECKS = {
+        { AccountValidationService.ACCOUNT_NOT_FOUND_DESC, "" },
+        { AccountValidationService.ACCOUNT_INACTIVE_DESC, " AND a.status = 'A'" },
+        { AccountValidationService.CUSTOMER_INACTIVE_DESC, " AND a.status = 'A' AND c.status = 'A'" },
+        { AccountValidationService.AUTH_STAT_ACCT_DESC, " AND a.status = 'A' AND c.status = 'A' AND a.auth_stat = 'A'" },
+        {
+            AccountValidationService.AUTH_STAT_CIF_DESC,
+            " AND a.status = 'A' AND c.status = 'A' AND a.auth_stat = 'A' AND c.auth_stat = 'A'",
+        },
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UploadStagingService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stage the rows that passed the format checks and check their accounts
+     * Rows that fail are removed from the valid rows and their errors are added to the upload.
+     * @param stagingKey key of the staged rows, unique to the upload
+     * @param firstDataRow 0-based sheet row of the first data row
+     * @return the number of rows rejected
+     */
+    public int stageAndValidate(ValidatedUpload validatedUpload, String stagingKey, int firstDataRow) {
+        ParsedRowBuffer rows = validatedUpload.getRows();
+        BitSet validRows = validatedUpload.getValidRows();
+        List<Integer> stagedRows = new ArrayList<>(validRows.cardinality());
+        for (int row = validRows.nextSetBit(0); row >= 0; row = validRows.nextSetBit(row + 1)) {
+            stagedRows.add(row);
+        }
+
+        jdbcTemplate.batchUpdate(
+            """
+            INSERT INTO detb_upload_staging (staging_key, row_index, curr_no, rel_cust, account, account_branch,
+                dr_cr, ccy_cd, amount, lcy_equivalent, txn_code, addl_text)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """,
+            stagedRows,
+            LOAD_BATCH_SIZE,
+            (ps, row) -> setStagedRow(ps, stagingKey, rows, row)
+        );
+
+        for (String[] check : CUSTOMER_ACCOUNT_CHECKS) {
+            markFailed(stagingKey, check[0], "LENGTH(s.account) >= 15 AND NOT EXISTS (" + CUSTOMER_ACCOUNT_MATCH + check[1] + ")");
+        }
+        markFailed(
+            stagingKey,
+            AccountValidationService.GL_ACCOUNT_DESC,
+            "LENGTH(s.account) < 15 AND NOT EXISTS (SELECT 1 FROM gl_master g WHERE g.gl_code = s.account AND g.status = 'A')"
+        );
+
+        UploadErrors errors = validatedUpload.getErrors();
+        int errorsBefore = errors.size();
+        jdbcTemplate.query(
+            "SELECT row_index, error_detail FROM detb_upload_staging WHERE staging_key = ? AND error_detail IS NOT NULL",
+            rs -> {
+                int row = rs.getInt("row_index");
+                validRows.clear(row);
+                errors.add(rows.getCurrNo(row) + firstDataRow, row, UploadErrorCode.ACCOUNT_REJECTED, rs.getString("error_detail"));
+            },
+            stagingKey
+        );
+        int rejected = errors.size() - errorsBefore;
+        if (rejected > 0) {
+            errors.sortByRowNumber();
+        }
+
+        log.debug("Staged {} rows, {} rejected by account checks", stagedRows.size(), rejected);
+        return rejected;
+    }
+
+    /**
+     * Copy the staged rows that passed the account checks to the batch
+     * @return the number of rows inserted
+     */
+    public int insertValidRows(String stagingKey, ParsedRowBuffer.BatchFields batchFields) {
+        return jdbcTemplate.update(
+            """
+            INSERT INTO detb_upload_detail (batch_no, branch_code, source_code, rel_cust, account, account_branch, dr_cr,
+                ccy_cd, amount, lcy_equivalent, txn_code, addl_text, exch_rate, initiation_date, value_date, upload_date,
+                fin_cycle, period_code, curr_no, upload_stat, delete_stat)
+            SELECT ?, ?, ?, s.rel_cust, s.account, s.account_branch, s.dr_cr,
+                s.ccy_cd, s.amount, s.lcy_equivalent, s.txn_code, s.addl_text, ?, ?, ?, ?,
+                ?, ?, CAST(s.curr_no AS VARCHAR(10)), 'N', 'N'
+            FROM detb_upload_staging s
+            WHERE s.staging_key = ? AND s.error_detail IS NULL
+            ORDER BY s.row_index
+            """,
+            batchFields.getBatchNo(),
+            batchFields.getBranchCode(),
+            batchFields.getSourceCode(),
+            batchFields.getExchRate(),
+            batchFields.getEntryDate(),
+            batchFields.getEntryDate(),
+            batchFields.getUploadDate(),
+            batchFields.getFinCycle(),
+            batchFields.getPeriodCode(),
+            stagingKey
+        );
+    }
+
+    /**
+     * Delete the staged rows of an upload
+     */
+    public void clear(String stagingKey) {
+        jdbcTemplate.update("DELETE FROM detb_upload_staging WHERE staging_key = ?", stagingKey);
+    }
+
+    private void markFailed(String stagingKey, String message, String condition) {
+        jdbcTemplate.update(
+            "UPDATE detb_upload_staging s SET error_detail = ? WHERE s.staging_key = ? AND s.error_detail IS NULL AND " + condition,
+            message,
+            stagingKey
+        );
+    }
+
+    private static void setStagedRow(PreparedStatement ps, String stagingKey, ParsedRowBuffer rows, int row) throws SQLException {
+        ps.setString(1, stagingKey);
+        ps.setInt(2, row);
+        ps.setInt(3, rows.getCurrNo(row));
+        ps.setString(4, rows.getRelCust(row));
+        ps.setString(5, rows.getAccount(row));
+        ps.setString(6, rows.getAccountBranch(row));
+        ps.setString(7, rows.getDrCr(row));
+        ps.setString(8, rows.getCcyCd(row));
+        ps.setObject(9, rows.getAmount(row), Types.NUMERIC);
+        ps.setObject(10, rows.getLcyEquivalent(row), Types.NUMERIC);
+        ps.setString(11, rows.getTxnCode(row));
+        ps.setString(12, rows.getAddlText(row));
+    }
+}
@@ -0,0 +1,13 @@
+package com.vrbank.uploadexcel.service;
+
+/**
+ * Thrown by the threads working on an upload once its time budget is spent
+ */
+public class UploadTimeoutException extends UploadCancelledException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadTimeoutException(String batchNo) {
+        super(batchNo, "ran out of time");
+    }
+}
@@ -0,0 +1,122 @@
+package com.vrbank.uploadexcel.service;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Format rules applied to every uploaded row.
+ * All checks work on character ranges of the raw cell value, so validating a row
+ * neither compiles a regular expression nor allocates trimmed or upper-cased copies.
+ */
+public final class UploadValidationRules {
+
+    public static final int CUSTOMER_ACCOUNT_LENGTH = 15;
+    public static final int GL_ACCOUNT_LENGTH = 9;
+    public static final int CURRENCY_CODE_LENGTH = 3;
+
+    private static final int ALPHABET_SIZE = 26;
+
+    /**
+     * One bit per possible three-letter code (26^3 entries), set for supported currencies.
+     */
+    private final BitSet supportedCurrencies = new BitSet(ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE);
+
+    public UploadValidationRules(Collection<String> supportedCurrencies) {
+        for (String currency : supportedCurrencies) {
+            if (currency == null) {
+                continue;
+            }
+            int start = trimStart(currency);
+            int end = trimEnd(currency, start);
+            if (end - start == CURRENCY_CODE_LENGTH && isLetters(currency, start, end)) {
+                this.supportedCurrencies.set(currencyIndex(currency, start));
+            }
+        }
+    }
+
+    /**
+     * Check whether the trimmed value is a supported currency code (case-insensitive).
+     */
+    public boolean isSupportedCurrency(CharSequence value) {
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        return end - start == CURRENCY_CODE_LENGTH && isLetters(value, start, end) && supportedCurrencies.get(currencyIndex(value, start));
+    }
+
+    /**
+     * Index of the first character that is not whitespace, using the same definition as {@link String#trim()}.
+     */
+    public static int trimStart(CharSequence value) {
+        int start = 0;
+        int length = value.length();
+        while (start < length && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Exclusive index of the last character that is not whitespace, using the same definition as {@link String#trim()}.
+     */
+    public static int trimEnd(CharSequence value, int start) {
+        int end = value.length();
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Check whether the value contains only whitespace.
+     */
+    public static boolean isBlank(CharSequence value) {
+        return value == null || trimStart(value) == value.length();
+    }
+
+    /**
+     * Check whether every character in [start, end) is an ASCII digit.
+     */
+    public static boolean isDigits(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether every character in [start, end) is an ASCII letter of either case.
+     */
+    public static boolean isLetters(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the trimmed value is a single 'D' or 'C', ignoring case.
+     */
+    public static boolean isDrCrFlag(CharSequence value) {
+        int start = trimStart(value);
+        int end = trimEnd(value, start);
+        if (end - start != 1) {
+            return false;
+        }
+        char c = value.charAt(start);
+        return c == 'D' || c == 'd' || c == 'C' || c == 'c';
+    }
+
+    private static int currencyIndex(CharSequence value, int start) {
+        int index = 0;
+        for (int i = start; i < start + CURRENCY_CODE_LENGTH; i++) {
+            index = index * ALPHABET_SIZE + (Character.toUpperCase(value.charAt(i)) - 'A');
+        }
+        return index;
+    }
+}
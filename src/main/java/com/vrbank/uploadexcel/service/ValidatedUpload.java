@@ -0,0 +1,80 @@
+package com.vrbank.uploadexcel.service;
+
+import java.util.BitSet;
+
+/**
+ * Outcome of parsing and validating an Excel file, before anything is persisted.
+ * Holds the parsed rows, which of them passed validation, and the errors of the rows that did not.
+ */
+public class ValidatedUpload {
+
+    private final ParsedRowBuffer rows;
+    private final BitSet validRows;
+    private final UploadErrors errors;
+    private final String structureError;
+    private Integer skippedFromRow;
+    private Integer skippedToRow;
+
+    private ValidatedUpload(ParsedRowBuffer rows, BitSet validRows, UploadErrors errors, String structureError) {
+        this.rows = rows;
+        this.validRows = validRows;
+        this.errors = errors;
+        this.structureError = structureError;
+    }
+
+    public static ValidatedUpload of(ParsedRowBuffer rows, BitSet validRows, UploadErrors errors) {
+        return new ValidatedUpload(rows, validRows, errors, null);
+    }
+
+    public static ValidatedUpload invalidStructure(String structureError) {
+        return new ValidatedUpload(new ParsedRowBuffer(), new BitSet(), new UploadErrors(), structureError);
+    }
+
+    /**
+     * Record the trailing rows that were not read, 1-based, see {@link SheetRowScanner}.
+     */
+    public ValidatedUpload withSkippedRows(Integer skippedFromRow, Integer skippedToRow) {
+        this.skippedFromRow = skippedFromRow;
+        this.skippedToRow = skippedToRow;
+        return this;
+    }
+
+    public ParsedRowBuffer getRows() {
+        return rows;
+    }
+
+    /**
+     * Indexes in {@link #getRows()} of the rows that passed validation.
+     */
+    public BitSet getValidRows() {
+        return validRows;
+    }
+
+    public UploadErrors getErrors() {
+        return errors;
+    }
+
+    public String getStructureError() {
+        return structureError;
+    }
+
+    public Integer getSkippedFromRow() {
+        return skippedFromRow;
+    }
+
+    public Integer getSkippedToRow() {
+        return skippedToRow;
+    }
+
+    public boolean hasStructureError() {
+        return structureError != null;
+    }
+
+    public int getSuccessCount() {
+        return validRows.cardinality();
+    }
+
+    public int getTotalRows() {
+        return getSuccessCount() + errors.size();
+    }
+}
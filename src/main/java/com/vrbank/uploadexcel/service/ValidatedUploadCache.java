@@ -0,0 +1,53 @@
+package com.vrbank.uploadexcel.service;
+
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Short-lived cache of validated uploads keyed by the SHA-256 of the file content.
+ * Filled by the dry-run validation so that the real upload of the same file can skip parsing and validation.
+ */
+@Service
+public class ValidatedUploadCache {
+
+    public static final String CACHE_NAME = "validatedUploads";
+
+    private final Logger log = LoggerFactory.getLogger(ValidatedUploadCache.class);
+
+    private final CacheManager cacheManager;
+
+    public ValidatedUploadCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Store a validated upload for its content hash
+     */
+    public void put(String contentHash, ValidatedUpload validatedUpload) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null && contentHash != null && !validatedUpload.hasStructureError()) {
+            cache.put(contentHash, validatedUpload);
+            log.debug("Cached validated upload {} ({} rows)", contentHash, validatedUpload.getTotalRows());
+        }
+    }
+
+    /**
+     * Remove and return the validated upload for a content hash, so that it is used by a single upload only
+     */
+    public Optional<ValidatedUpload> take(String contentHash) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || contentHash == null) {
+            return Optional.empty();
+        }
+        ValidatedUpload validatedUpload = cache.get(contentHash, ValidatedUpload.class);
+        if (validatedUpload != null) {
+            cache.evict(contentHash);
+            log.debug("Reusing validated upload {} ({} rows)", contentHash, validatedUpload.getTotalRows());
+        }
+        return Optional.ofNullable(validatedUpload);
+    }
+}
@@ -85,9 +85,14 @@ public class ExcelUploadDTO {
 
     // Validation methods
     public boolean isValid() {
+        return batchNo != null && !batchNo.trim().isEmpty() && hasValidEntryParameters();
+    }
+
+    /**
+     * Check every parameter except the batch number, which is optional for a dry run
+     */
+    public boolean hasValidEntryParameters() {
         return (
-            batchNo != null &&
-            !batchNo.trim().isEmpty() &&
             branchCode != null &&
             !branchCode.trim().isEmpty() &&
             sourceCode != null &&
@@ -0,0 +1,251 @@
+package com.vrbank.uploadexcel.service.dto;
+
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for an uploaded record handed to the posting workers
+ */
+public class UploadDetailDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String batchNo;
+    private String branchCode;
+    private String sourceCode;
+    private String relCust;
+    private String account;
+    private String accountBranch;
+    private String drCr;
+    private String ccyCd;
+    private BigDecimal amount;
+    private BigDecimal lcyEquivalent;
+    private String txnCode;
+    private String addlText;
+    private BigDecimal exchRate;
+    private LocalDate initiationDate;
+    private LocalDate valueDate;
+    private LocalDate uploadDate;
+    private String finCycle;
+    private String periodCode;
+    private String currNo;
+    private String uploadStat;
+
+    // Constructors
+    public UploadDetailDTO() {}
+
+    public UploadDetailDTO(UploadDetail detail) {
+        this.id = detail.getId();
+        this.batchNo = detail.getBatchNo();
+        this.branchCode = detail.getBranchCode();
+        this.sourceCode = detail.getSourceCode();
+        this.relCust = detail.getRelCust();
+        this.account = detail.getAccount();
+        this.accountBranch = detail.getAccountBranch();
+        this.drCr = detail.getDrCr();
+        this.ccyCd = detail.getCcyCd();
+        this.amount = detail.getAmount();
+        this.lcyEquivalent = detail.getLcyEquivalent();
+        this.txnCode = detail.getTxnCode();
+        this.addlText = detail.getAddlText();
+        this.exchRate = detail.getExchRate();
+        this.initiationDate = detail.getInitiationDate();
+        this.valueDate = detail.getValueDate();
+        this.uploadDate = detail.getUploadDate();
+        this.finCycle = detail.getFinCycle();
+        this.periodCode = detail.getPeriodCode();
+        this.currNo = detail.getCurrNo();
+        this.uploadStat = detail.getUploadStat();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getBranchCode() {
+        return branchCode;
+    }
+
+    public void setBranchCode(String branchCode) {
+        this.branchCode = branchCode;
+    }
+
+    public String getSourceCode() {
+        return sourceCode;
+    }
+
+    public void setSourceCode(String sourceCode) {
+        this.sourceCode = sourceCode;
+    }
+
+    public String getRelCust() {
+        return relCust;
+    }
+
+    public void setRelCust(String relCust) {
+        this.relCust = relCust;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
+
+    public String getAccountBranch() {
+        return accountBranch;
+    }
+
+    public void setAccountBranch(String accountBranch) {
+        this.accountBranch = accountBranch;
+    }
+
+    public String getDrCr() {
+        return drCr;
+    }
+
+    public void setDrCr(String drCr) {
+        this.drCr = drCr;
+    }
+
+    public String getCcyCd() {
+        return ccyCd;
+    }
+
+    public void setCcyCd(String ccyCd) {
+        this.ccyCd = ccyCd;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getLcyEquivalent() {
+        return lcyEquivalent;
+    }
+
+    public void setLcyEquivalent(BigDecimal lcyEquivalent) {
+        this.lcyEquivalent = lcyEquivalent;
+    }
+
+    public String getTxnCode() {
+        return txnCode;
+    }
+
+    public void setTxnCode(String txnCode) {
+        this.txnCode = txnCode;
+    }
+
+    public String getAddlText() {
+        return addlText;
+    }
+
+    public void setAddlText(String addlText) {
+        this.addlText = addlText;
+    }
+
+    public BigDecimal getExchRate() {
+        return exchRate;
+    }
+
+    public void setExchRate(BigDecimal exchRate) {
+        this.exchRate = exchRate;
+    }
+
+    public LocalDate getInitiationDate() {
+        return initiationDate;
+    }
+
+    public void setInitiationDate(LocalDate initiationDate) {
+        this.initiationDate = initiationDate;
+    }
+
+    public LocalDate getValueDate() {
+        return valueDate;
+    }
+
+    public void setValueDate(LocalDate valueDate) {
+        this.valueDate = valueDate;
+    }
+
+    public LocalDate getUploadDate() {
+        return uploadDate;
+    }
+
+    public void setUploadDate(LocalDate uploadDate) {
+        this.uploadDate = uploadDate;
+    }
+
+    public String getFinCycle() {
+        return finCycle;
+    }
+
+    public void setFinCycle(String finCycle) {
+        this.finCycle = finCycle;
+    }
+
+    public String getPeriodCode() {
+        return periodCode;
+    }
+
+    public void setPeriodCode(String periodCode) {
+        this.periodCode = periodCode;
+    }
+
+    public String getCurrNo() {
+        return currNo;
+    }
+
+    public void setCurrNo(String currNo) {
+        this.currNo = currNo;
+    }
+
+    public String getUploadStat() {
+        return uploadStat;
+    }
+
+    public void setUploadStat(String uploadStat) {
+        this.uploadStat = uploadStat;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "UploadDetailDTO{" +
+            "id=" +
+            id +
+            ", batchNo='" +
+            batchNo +
+            '\'' +
+            ", account='" +
+            account +
+            '\'' +
+            ", uploadStat='" +
+            uploadStat +
+            '\'' +
+            '}'
+        );
+    }
+}
@@ -43,7 +43,7 @@ public class UploadErrorDTO {
         UploadErrorDTO error = new UploadErrorDTO();
         error.setRowNumber(rowNumber);
         error.setErrorCode("VALIDATION_ERROR");
-        error.setErrorMessage(String.format("Field '%s': %s", field, message));
+        error.setErrorMessage("Field '" + field + "': " + message);
         error.setSeverity("ERROR");
         return error;
     }
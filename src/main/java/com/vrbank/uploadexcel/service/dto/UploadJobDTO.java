@@ -0,0 +1,128 @@
+package com.vrbank.uploadexcel.service.dto;
+
+import com.vrbank.uploadexcel.domain.UploadJob;
+import java.time.Instant;
+
+/**
+ * DTO for the status of a queued upload job
+ */
+public class UploadJobDTO {
+
+    private Long id;
+    private String batchNo;
+    private String status;
+    private Integer totalRows;
+    private Integer successCount;
+    private Integer errorCount;
+    private String message;
+    private Instant createdDate;
+    private Instant finishedDate;
+
+    // Constructors
+    public UploadJobDTO() {}
+
+    public UploadJobDTO(UploadJob job) {
+        this.id = job.getId();
+        this.batchNo = job.getBatchNo();
+        this.status = job.getStatus();
+        this.totalRows = job.getTotalRows();
+        this.successCount = job.getSuccessCount();
+        this.errorCount = job.getErrorCount();
+        this.message = job.getResultMessage();
+        this.createdDate = job.getCreatedDate();
+        this.finishedDate = job.getFinishedDate();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(Integer totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public Integer getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Integer successCount) {
+        this.successCount = successCount;
+    }
+
+    public Integer getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(Integer errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "UploadJobDTO{" +
+            "id=" +
+            id +
+            ", batchNo='" +
+            batchNo +
+            '\'' +
+            ", status='" +
+            status +
+            '\'' +
+            ", successCount=" +
+            successCount +
+            ", errorCount=" +
+            errorCount +
+            '}'
+        );
+    }
+}
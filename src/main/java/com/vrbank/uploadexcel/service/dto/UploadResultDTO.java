@@ -18,6 +18,12 @@ public class UploadResultDTO {
     private List<UploadErrorDTO> errors;
     private long processingTimeMs;
     private String uploadTimestamp;
+    private String duplicateOfBatchNo;
+    private Integer skippedFromRow;
+    private Integer skippedToRow;
+    private List<String> subBatchNos = new ArrayList<>();
+    private boolean cancelled;
+    private boolean timedOut;
 
     // Constructors
     public UploadResultDTO() {
@@ -55,6 +61,27 @@ public class UploadResultDTO {
         return result;
     }
 
+    public static UploadResultDTO duplicate(String batchNo, String originalBatchNo) {
+        UploadResultDTO result = error(batchNo, "This file has already been uploaded as batch " + originalBatchNo);
+        result.setDuplicateOfBatchNo(originalBatchNo);
+        return result;
+    }
+
+    public static UploadResultDTO cancelled(String batchNo) {
+        UploadResultDTO result = error(batchNo, "Upload of batch " + batchNo + " was cancelled. Nothing was saved");
+        result.setCancelled(true);
+        return result;
+    }
+
+    public static UploadResultDTO timedOut(String batchNo, long budgetSeconds) {
+        UploadResultDTO result = error(
+            batchNo,
+            "TIMEOUT: upload of batch " + batchNo + " did not complete within " + budgetSeconds + " seconds. Nothing was saved"
+        );
+        result.setTimedOut(true);
+        return result;
+    }
+
     public static UploadResultDTO partialSuccess(String batchNo, int totalRows, int successCount, int errorCount) {
         UploadResultDTO result = new UploadResultDTO();
         result.setSuccess(errorCount == 0);
@@ -144,10 +171,73 @@ public class UploadResultDTO {
         this.uploadTimestamp = uploadTimestamp;
     }
 
+    public String getDuplicateOfBatchNo() {
+        return duplicateOfBatchNo;
+    }
+
+    public void setDuplicateOfBatchNo(String duplicateOfBatchNo) {
+        this.duplicateOfBatchNo = duplicateOfBatchNo;
+    }
+
+    /**
+     * First of the trailing rows that were not read because the data had ended (1-based), or null
+     */
+    public Integer getSkippedFromRow() {
+        return skippedFromRow;
+    }
+
+    public void setSkippedFromRow(Integer skippedFromRow) {
+        this.skippedFromRow = skippedFromRow;
+    }
+
+    public Integer getSkippedToRow() {
+        return skippedToRow;
+    }
+
+    public void setSkippedToRow(Integer skippedToRow) {
+        this.skippedToRow = skippedToRow;
+    }
+
+    /**
+     * Sub-batches the file was split into, empty unless it had more rows than one batch holds
+     */
+    public List<String> getSubBatchNos() {
+        return subBatchNos;
+    }
+
+    public void setSubBatchNos(List<String> subBatchNos) {
+        this.subBatchNos = subBatchNos != null ? subBatchNos : new ArrayList<>();
+    }
+
+    /**
+     * Whether the upload was cancelled before completing, in which case nothing was saved
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Whether the upload was stopped because its time budget was spent, in which case nothing was saved
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
     // Helper methods
     public void addError(UploadErrorDTO error) {
         if (this.errors == null) {
             this.errors = new ArrayList<>();
+        } else if (!(this.errors instanceof ArrayList)) {
+            // Errors set from a read-only view are copied on first change
+            this.errors = new ArrayList<>(this.errors);
         }
         this.errors.add(error);
         this.errorCount = this.errors.size();
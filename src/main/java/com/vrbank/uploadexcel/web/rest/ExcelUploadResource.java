@@ -1,19 +1,42 @@
 package com.vrbank.uploadexcel.web.rest;
 
+import com.vrbank.uploadexcel.repository.UploadDetailRepository.UploadDetailView;
+import com.vrbank.uploadexcel.security.SecurityUtils;
 import com.vrbank.uploadexcel.service.AccountValidationService;
 import com.vrbank.uploadexcel.service.ExcelUploadService;
+import com.vrbank.uploadexcel.service.UploadAdmissionController;
+import com.vrbank.uploadexcel.service.UploadExportService;
+import com.vrbank.uploadexcel.service.UploadJobService;
+import com.vrbank.uploadexcel.service.UploadJobWorker;
+import com.vrbank.uploadexcel.service.UploadPostingService;
+import com.vrbank.uploadexcel.service.UploadRecordSearchService;
+import com.vrbank.uploadexcel.service.UploadRejectedException;
 import com.vrbank.uploadexcel.service.dto.ExcelUploadDTO;
+import com.vrbank.uploadexcel.service.dto.UploadDetailDTO;
+import com.vrbank.uploadexcel.service.dto.UploadJobDTO;
 import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import com.vrbank.uploadexcel.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing Excel file uploads
@@ -22,14 +45,48 @@ import org.springframework.web.multipart.MultipartFile;
 @RequestMapping("/api/excel-upload")
 public class ExcelUploadResource {
 
+    private static final String ENTITY_NAME_JOB = "uploadJob";
+    private static final String ENTITY_NAME_RECORD = "uploadDetail";
+
+    /**
+     * Header carrying the cursor of the next claim of pending records.
+     */
+    public static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
+    /**
+     * Header telling whether a search has a next page.
+     */
+    public static final String HAS_NEXT_PAGE_HEADER = "X-Has-Next-Page";
+
     private final Logger log = LoggerFactory.getLogger(ExcelUploadResource.class);
 
     private final ExcelUploadService excelUploadService;
     private final AccountValidationService accountValidationService;
-
-    public ExcelUploadResource(ExcelUploadService excelUploadService, AccountValidationService accountValidationService) {
+    private final UploadAdmissionController uploadAdmissionController;
+    private final UploadJobService uploadJobService;
+    private final UploadJobWorker uploadJobWorker;
+    private final UploadPostingService uploadPostingService;
+    private final UploadRecordSearchService uploadRecordSearchService;
+    private final UploadExportService uploadExportService;
+
+    public ExcelUploadResource(
+        ExcelUploadService excelUploadService,
+        AccountValidationService accountValidationService,
+        UploadAdmissionController uploadAdmissionController,
+        UploadJobService uploadJobService,
+        UploadJobWorker uploadJobWorker,
+        UploadPostingService uploadPostingService,
+        UploadRecordSearchService uploadRecordSearchService,
+        UploadExportService uploadExportService
+    ) {
         this.excelUploadService = excelUploadService;
         this.accountValidationService = accountValidationService;
+        this.uploadAdmissionController = uploadAdmissionController;
+        this.uploadJobService = uploadJobService;
+        this.uploadJobWorker = uploadJobWorker;
+        this.uploadPostingService = uploadPostingService;
+        this.uploadRecordSearchService = uploadRecordSearchService;
+        this.uploadExportService = uploadExportService;
     }
 
     /**
@@ -48,32 +105,30 @@ public class ExcelUploadResource {
 
         try {
             // Validate file
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResult("File is empty", batchNo));
-            }
-
-            String filename = file.getOriginalFilename();
-            if (filename == null || (!filename.toLowerCase().endsWith(".xlsx") && !filename.toLowerCase().endsWith(".xls"))) {
-                return ResponseEntity.badRequest()
-                    .body(createErrorResult("Invalid file format. Only .xlsx and .xls files are supported", batchNo));
+            String fileValidation = validateFile(file);
+            if (fileValidation != null) {
+                return ResponseEntity.badRequest().body(createErrorResult(fileValidation, batchNo));
             }
 
             // Create upload parameters
-            ExcelUploadDTO uploadParams = new ExcelUploadDTO();
-            uploadParams.setBatchNo(batchNo.trim());
-            uploadParams.setBranchCode(branchCode.trim());
-            uploadParams.setSourceCode(sourceCode.trim());
-            uploadParams.setExchRate(new java.math.BigDecimal(exchRate));
-            uploadParams.setEntryDate(java.time.LocalDate.parse(entryDate));
+            ExcelUploadDTO uploadParams = createUploadParams(batchNo, branchCode, sourceCode, exchRate, entryDate);
 
-            // Process upload
-            UploadResultDTO result = excelUploadService.processExcelUpload(file, uploadParams);
+            // Process upload once admitted, so that a burst of uploads cannot exhaust CPU and connections
+            UploadResultDTO result;
+            try (UploadAdmissionController.Permit permit = uploadAdmissionController.acquire(branchCode, file.getSize())) {
+                result = excelUploadService.processExcelUpload(file, uploadParams);
+            }
 
             if (result.isSuccess()) {
                 return ResponseEntity.ok(result);
+            } else if (result.getDuplicateOfBatchNo() != null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
             } else {
                 return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(result);
             }
+        } catch (UploadRejectedException e) {
+            log.warn("Upload for batch {} rejected: {}", batchNo, e.getMessage());
+            return createRejectedResponse(e, batchNo);
         } catch (Exception e) {
             log.error("Error uploading Excel file", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
@@ -82,6 +137,99 @@ public class ExcelUploadResource {
         }
     }
 
+    /**
+     * POST /api/excel-upload/validate : Validate Excel file without saving anything
+     */
+    @PostMapping(value = "/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadResultDTO> validateExcelFile(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam(value = "batchNo", required = false) String batchNo,
+        @RequestParam("branchCode") String branchCode,
+        @RequestParam("sourceCode") String sourceCode,
+        @RequestParam("exchRate") String exchRate,
+        @RequestParam("entryDate") String entryDate
+    ) {
+        log.debug("REST request to validate Excel file for batch: {}", batchNo);
+
+        try {
+            String fileValidation = validateFile(file);
+            if (fileValidation != null) {
+                return ResponseEntity.badRequest().body(createErrorResult(fileValidation, batchNo));
+            }
+
+            ExcelUploadDTO uploadParams = createUploadParams(batchNo, branchCode, sourceCode, exchRate, entryDate);
+            UploadResultDTO result;
+            try (UploadAdmissionController.Permit permit = uploadAdmissionController.acquire(branchCode, file.getSize())) {
+                result = excelUploadService.validateExcelUpload(file, uploadParams);
+            }
+
+            if (result.isSuccess()) {
+                return ResponseEntity.ok(result);
+            } else if (result.getDuplicateOfBatchNo() != null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+            } else {
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(result);
+            }
+        } catch (UploadRejectedException e) {
+            log.warn("Validation for batch {} rejected: {}", batchNo, e.getMessage());
+            return createRejectedResponse(e, batchNo);
+        } catch (Exception e) {
+            log.error("Error validating Excel file", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                createErrorResult("Error validating file: " + e.getMessage(), batchNo)
+            );
+        }
+    }
+
+    /**
+     * POST /api/excel-upload/jobs : Queue Excel file for processing by any node
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadJobDTO> submitUploadJob(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam("batchNo") String batchNo,
+        @RequestParam("branchCode") String branchCode,
+        @RequestParam("sourceCode") String sourceCode,
+        @RequestParam("exchRate") String exchRate,
+        @RequestParam("entryDate") String entryDate
+    ) throws IOException {
+        log.debug("REST request to queue Excel file for batch: {}", batchNo);
+
+        String fileValidation = validateFile(file);
+        if (fileValidation != null) {
+            throw new BadRequestAlertException(fileValidation, ENTITY_NAME_JOB, "invalidfile");
+        }
+
+        ExcelUploadDTO uploadParams = createUploadParams(batchNo, branchCode, sourceCode, exchRate, entryDate);
+        if (!uploadParams.isValid()) {
+            throw new BadRequestAlertException("Invalid upload parameters", ENTITY_NAME_JOB, "invalidparameters");
+        }
+
+        UploadJobDTO job = uploadJobService.submit(file, uploadParams);
+        return ResponseEntity.accepted().location(URI.create("/api/excel-upload/jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * GET /api/excel-upload/jobs/{id} : Get status of a queued upload
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<UploadJobDTO> getUploadJob(@PathVariable Long id) {
+        log.debug("REST request to get upload job: {}", id);
+
+        return ResponseUtil.wrapOrNotFound(uploadJobService.findOne(id));
+    }
+
+    /**
+     * POST /api/excel-upload/jobs/{id}/cancel : Cancel a queued or running upload
+     * A running upload stops at its next row or chunk and is rolled back; the job status tells when it has stopped
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<UploadJobDTO> cancelUploadJob(@PathVariable Long id) {
+        log.debug("REST request to cancel upload job: {}", id);
+
+        return ResponseUtil.wrapOrNotFound(uploadJobWorker.cancel(id));
+    }
+
     /**
      * DELETE /api/excel-upload/batch/{batchNo} : Delete batch data
      */
@@ -127,6 +275,27 @@ public class ExcelUploadResource {
         return ResponseEntity.ok(Map.of("exists", exists, "batchNo", batchNo));
     }
 
+    /**
+     * GET /api/excel-upload/batch/{batchNo}/export : Export the records of a batch as CSV
+     * Archived batches are exported as well, their records flagged as archived
+     */
+    @GetMapping("/batch/{batchNo}/export")
+    public ResponseEntity<StreamingResponseBody> exportBatch(@PathVariable String batchNo) {
+        log.debug("REST request to export batch: {}", batchNo);
+
+        if (!uploadExportService.batchExists(batchNo)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            uploadExportService.exportBatch(batchNo, writer);
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", batchNo + ".csv");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
     /**
      * GET /api/excel-upload/batches : Get batch summary
      */
@@ -171,6 +340,72 @@ public class ExcelUploadResource {
         return ResponseEntity.ok(Map.of("workingDay", workingDay.toString(), "branchCode", branchCode));
     }
 
+    /**
+     * GET /api/excel-upload/records : Search uploaded records
+     * At least one criterion is required; the X-Has-Next-Page header tells whether to read the next page
+     * Only live records are searched: the records of archived batches are read with the CSV export of their batch
+     */
+    @GetMapping("/records")
+    public ResponseEntity<List<UploadDetailView>> searchRecords(
+        @RequestParam(required = false) String batchNo,
+        @RequestParam(required = false) String branchCode,
+        @RequestParam(required = false) String sourceCode,
+        @RequestParam(required = false) String account,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search records of batch {}, branch {}, account {}", batchNo, branchCode, account);
+
+        Slice<UploadDetailView> records;
+        try {
+            records = uploadRecordSearchService.search(batchNo, branchCode, sourceCode, account, startDate, endDate, pageable);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME_RECORD, "nocriteria");
+        }
+        return ResponseEntity.ok().header(HAS_NEXT_PAGE_HEADER, String.valueOf(records.hasNext())).body(records.getContent());
+    }
+
+    /**
+     * POST /api/excel-upload/records/claim : Claim the next pending records for posting
+     * The X-Next-After-Id header is the afterId of the next claim; an empty list means no more pending records
+     * Records neither completed nor released within the claim TTL are given back to be claimed again
+     * @param worker name of the posting worker, recorded with the claim; the current user by default
+     */
+    @PostMapping("/records/claim")
+    public ResponseEntity<List<UploadDetailDTO>> claimPendingRecords(
+        @RequestParam(defaultValue = "0") long afterId,
+        @RequestParam(defaultValue = "500") int size,
+        @RequestParam(required = false) String worker
+    ) {
+        log.debug("REST request to claim {} pending records after id {}", size, afterId);
+
+        String claimedBy = worker != null ? worker : SecurityUtils.getCurrentUserLogin().orElse("anonymous");
+        List<UploadDetailDTO> records = uploadPostingService.claimPending(afterId, size, claimedBy);
+        long nextAfterId = records.isEmpty() ? afterId : records.get(records.size() - 1).getId();
+        return ResponseEntity.ok().header(NEXT_AFTER_ID_HEADER, String.valueOf(nextAfterId)).body(records);
+    }
+
+    /**
+     * POST /api/excel-upload/records/complete : Mark claimed records as posted
+     */
+    @PostMapping("/records/complete")
+    public ResponseEntity<Map<String, Object>> completeRecords(@RequestBody List<Long> ids) {
+        log.debug("REST request to complete {} claimed records", ids.size());
+
+        return ResponseEntity.ok(Map.of("updated", uploadPostingService.complete(ids)));
+    }
+
+    /**
+     * POST /api/excel-upload/records/release : Give claimed records back to be claimed again
+     */
+    @PostMapping("/records/release")
+    public ResponseEntity<Map<String, Object>> releaseRecords(@RequestBody List<Long> ids) {
+        log.debug("REST request to release {} claimed records", ids.size());
+
+        return ResponseEntity.ok(Map.of("updated", uploadPostingService.release(ids)));
+    }
+
     /**
      * GET /api/excel-upload/template : Download Excel template
      */
@@ -193,6 +428,44 @@ public class ExcelUploadResource {
         }
     }
 
+    /**
+     * Check the uploaded file, returning an error message or null when the file is acceptable
+     */
+    private String validateFile(MultipartFile file) {
+        if (file.isEmpty()) {
+            return "File is empty";
+        }
+
+        String filename = file.getOriginalFilename();
+        if (filename == null || (!filename.toLowerCase().endsWith(".xlsx") && !filename.toLowerCase().endsWith(".xls"))) {
+            return "Invalid file format. Only .xlsx and .xls files are supported";
+        }
+        return null;
+    }
+
+    /**
+     * Create upload parameters from the request parameters
+     */
+    private ExcelUploadDTO createUploadParams(String batchNo, String branchCode, String sourceCode, String exchRate, String entryDate) {
+        ExcelUploadDTO uploadParams = new ExcelUploadDTO();
+        uploadParams.setBatchNo(batchNo != null && !batchNo.trim().isEmpty() ? batchNo.trim() : null);
+        uploadParams.setBranchCode(branchCode.trim());
+        uploadParams.setSourceCode(sourceCode.trim());
+        uploadParams.setExchRate(new java.math.BigDecimal(exchRate));
+        uploadParams.setEntryDate(java.time.LocalDate.parse(entryDate));
+        return uploadParams;
+    }
+
+    /**
+     * Create the 429 response for an upload that was not admitted
+     */
+    private ResponseEntity<UploadResultDTO> createRejectedResponse(UploadRejectedException e, String batchNo) {
+        String message = e.getQueuePosition() > 0 ? e.getMessage() + " (queue position " + e.getQueuePosition() + ")" : e.getMessage();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(createErrorResult(message, batchNo));
+    }
+
     /**
      * Create error result DTO
      */
@@ -0,0 +1,88 @@
+package com.vrbank.uploadexcel.aop.logging;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.service.AccountValidationService;
+import com.vrbank.uploadexcel.service.AdvisedFormatCheck;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Microbenchmark of the per-row cost of the {@link LoggingAspect}: a format check called directly, through the
+ * aspect in log and timing mode, and through a proxy on which it is opted out with {@link NoLogging}.
+ * <p>
+ * Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.vrbank.uploadexcel.aop.logging.LoggingAspectBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private static final String ACCOUNT = "123456789012345";
+
+    private AccountValidationService direct;
+    private AdvisedFormatCheck logged;
+    private AdvisedFormatCheck timed;
+    private AccountValidationService optedOut;
+
+    @Setup
+    public void setUp() {
+        direct = new AccountValidationService(null, new ApplicationProperties(), null, null, null);
+        ApplicationProperties.LoggingAspect logMode = new ApplicationProperties.LoggingAspect();
+        ApplicationProperties.LoggingAspect timingMode = new ApplicationProperties.LoggingAspect();
+        timingMode.setMode(ApplicationProperties.LoggingAspect.Mode.TIMING);
+
+        logged = proxy(new AdvisedFormatCheck(direct), logMode);
+        timed = proxy(new AdvisedFormatCheck(direct), timingMode);
+        optedOut = proxy(direct, logMode);
+    }
+
+    private static <T> T proxy(T target, ApplicationProperties.LoggingAspect properties) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect(new StandardEnvironment(), properties, new SimpleMeterRegistry()));
+        return proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public String direct() {
+        return direct.validateAccountFormat(ACCOUNT);
+    }
+
+    @Benchmark
+    public String logged() {
+        return logged.validateAccountFormat(ACCOUNT);
+    }
+
+    @Benchmark
+    public String timed() {
+        return timed.validateAccountFormat(ACCOUNT);
+    }
+
+    @Benchmark
+    public String optedOut() {
+        return optedOut.validateAccountFormat(ACCOUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LoggingAspectBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,38 @@
+package com.vrbank.uploadexcel.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.service.AccountValidationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Test class for the {@link LoggingAspect}.
+ */
+class LoggingAspectTest {
+
+    @Test
+    void testTimingModeSkipsNoLoggingMethods() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.LoggingAspect properties = new ApplicationProperties.LoggingAspect();
+        properties.setMode(ApplicationProperties.LoggingAspect.Mode.TIMING);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+            new AccountValidationService(null, new ApplicationProperties(), null, null, null)
+        );
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LoggingAspect(new StandardEnvironment(), properties, meterRegistry));
+        AccountValidationService service = proxyFactory.getProxy();
+
+        assertThat(service.validateAccountFormat("123456789")).isEqualTo(AccountValidationService.RESULT_OK);
+        // Fails without a JdbcTemplate, and returns no branches
+        assertThat(service.getBranches()).isEmpty();
+
+        assertThat(meterRegistry.find("method.latency").tag("method", "validateAccountFormat").timer()).isNull();
+        assertThat(meterRegistry.get("method.latency").tag("method", "getBranches").timer().count()).isEqualTo(1);
+    }
+}
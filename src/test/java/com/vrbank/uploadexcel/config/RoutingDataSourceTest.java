@@ -0,0 +1,152 @@
+package com.vrbank.uploadexcel.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.aop.routing.DataSourceRouting;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for the {@link RoutingDataSource}.
+ */
+class RoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("routing-primary", "primary");
+        replica = database("routing-replica", "replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase database(String name, String label) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE db_label (label VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO db_label (label) VALUES (?)", label);
+        return database;
+    }
+
+    private static String label(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT label FROM db_label", String.class);
+    }
+
+    @Test
+    void testRoutesUploadWorkToUploadPool() {
+        RoutingDataSource dataSource = new RoutingDataSource(new SimpleDriverDataSource(), new SimpleDriverDataSource(), null, 0);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(RoutingDataSource.Pool.INTERACTIVE);
+
+        boolean outer = DataSourceRouting.enterUploadWork();
+        try {
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(RoutingDataSource.Pool.UPLOAD);
+
+            // A nested call does not end the upload work of its caller
+            boolean inner = DataSourceRouting.enterUploadWork();
+            DataSourceRouting.exitUploadWork(inner);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(RoutingDataSource.Pool.UPLOAD);
+        } finally {
+            DataSourceRouting.exitUploadWork(outer);
+        }
+
+        assertThat(DataSourceRouting.isUploadWork()).isFalse();
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(RoutingDataSource.Pool.INTERACTIVE);
+    }
+
+    @Test
+    void testExecutorThreadsUseThePoolOfTheSubmittingThread() throws Exception {
+        RoutingDataSource dataSource = new RoutingDataSource(new SimpleDriverDataSource(), new SimpleDriverDataSource(), null, 0);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setTaskDecorator(DataSourceRouting::propagate);
+        executor.initialize();
+        try {
+            boolean wasUploadWork = DataSourceRouting.enterUploadWork();
+            try {
+                CompletableFuture<Object> uploadTask = CompletableFuture.supplyAsync(dataSource::determineCurrentLookupKey, executor);
+                assertThat(uploadTask.get()).isEqualTo(RoutingDataSource.Pool.UPLOAD);
+            } finally {
+                DataSourceRouting.exitUploadWork(wasUploadWork);
+            }
+
+            // The executor thread does not keep the mark for the next task
+            CompletableFuture<Object> interactiveTask = CompletableFuture.supplyAsync(dataSource::determineCurrentLookupKey, executor);
+            assertThat(interactiveTask.get()).isEqualTo(RoutingDataSource.Pool.INTERACTIVE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testReadsFromReplica() {
+        RoutingDataSource dataSource = new RoutingDataSource(primary, null, replica, 60000);
+        dataSource.afterPropertiesSet();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertThat(label(jdbcTemplate)).isEqualTo("primary");
+
+        boolean wasReadReplica = DataSourceRouting.enterReadReplica();
+        try {
+            assertThat(label(jdbcTemplate)).isEqualTo("replica");
+
+            // A read-write transaction stays on the primary database; the connection is acquired lazily, like Hibernate does
+            LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(dataSource);
+            JdbcTemplate transactionalJdbcTemplate = new JdbcTemplate(lazyDataSource);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(lazyDataSource));
+            assertThat(transactionTemplate.<String>execute(status -> label(transactionalJdbcTemplate))).isEqualTo("primary");
+
+            transactionTemplate.setReadOnly(true);
+            assertThat(transactionTemplate.<String>execute(status -> label(transactionalJdbcTemplate))).isEqualTo("replica");
+        } finally {
+            DataSourceRouting.exitReadReplica(wasReadReplica);
+        }
+    }
+
+    @Test
+    void testFallsBackToPrimaryWhenReplicaIsDown() {
+        AbstractDataSource downReplica = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("Connection refused");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        };
+        RoutingDataSource dataSource = new RoutingDataSource(primary, null, downReplica, 60000);
+        dataSource.afterPropertiesSet();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertThat(dataSource.isReplicaAvailable()).isTrue();
+        boolean wasReadReplica = DataSourceRouting.enterReadReplica();
+        try {
+            assertThat(label(jdbcTemplate)).isEqualTo("primary");
+        } finally {
+            DataSourceRouting.exitReadReplica(wasReadReplica);
+        }
+        assertThat(dataSource.isReplicaAvailable()).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.vrbank.uploadexcel.service;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Microbenchmark comparing the per-row format checks of {@link AccountValidationService}
+ * with the previous regex and {@code toUpperCase} based implementation.
+ * <p>
+ * Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.vrbank.uploadexcel.service.AccountFormatValidationBenchmark}
+ * and add {@code -prof gc} to the options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountFormatValidationBenchmark {
+
+    private static final List<String> LEGACY_CURRENCIES = List.of("VND", "USD", "EUR", "JPY", "GBP", "AUD", "SGD");
+
+    private final String[] accounts = { "123456789012345", "123456789", " 123456789012345 ", "12345678901234X", "1234" };
+    private final String[] currencies = { "VND", "usd", " EUR ", "GBP", "U5D" };
+    private final String[] drCrFlags = { "D", "c", " C ", "X" };
+
+    private AccountValidationService service;
+
+    @Setup
+    public void setUp() {
+        service = new AccountValidationService(null, new ApplicationProperties(), null, null, null);
+    }
+
+    @Benchmark
+    public void rules(Blackhole blackhole) {
+        for (String account : accounts) {
+            blackhole.consume(service.validateAccountFormat(account));
+        }
+        for (String currency : currencies) {
+            blackhole.consume(service.validateCurrencyCode(currency));
+        }
+        for (String drCr : drCrFlags) {
+            blackhole.consume(service.validateDrCr(drCr));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String account : accounts) {
+            blackhole.consume(legacyAccountFormat(account));
+        }
+        for (String currency : currencies) {
+            blackhole.consume(legacyCurrencyCode(currency));
+        }
+        for (String drCr : drCrFlags) {
+            blackhole.consume(legacyDrCr(drCr));
+        }
+    }
+
+    private static String legacyAccountFormat(String account) {
+        if (account == null || account.trim().isEmpty()) {
+            return "Account number is required";
+        }
+        String cleanAccount = account.trim();
+        if (cleanAccount.length() == 15) {
+            return cleanAccount.matches("\\d{15}") ? AccountValidationService.RESULT_OK : "Customer account must be 15 digits";
+        }
+        if (cleanAccount.length() == 9) {
+            return cleanAccount.matches("\\d{9}") ? AccountValidationService.RESULT_OK : "GL account must be 9 digits";
+        }
+        return "Account number must be either 9 digits (GL) or 15 digits (Customer)";
+    }
+
+    private static String legacyCurrencyCode(String ccyCd) {
+        if (ccyCd == null || ccyCd.trim().isEmpty()) {
+            return "Currency code is required";
+        }
+        String cleanCcy = ccyCd.trim().toUpperCase();
+        if (cleanCcy.length() != 3) {
+            return "Currency code must be 3 characters";
+        }
+        if (!cleanCcy.matches("[A-Z]{3}")) {
+            return "Currency code must contain only letters";
+        }
+        List<String> supportedCurrencies = List.copyOf(LEGACY_CURRENCIES);
+        return supportedCurrencies.contains(cleanCcy) ? AccountValidationService.RESULT_OK : "Unsupported";
+    }
+
+    private static String legacyDrCr(String drCr) {
+        if (drCr == null || drCr.trim().isEmpty()) {
+            return "Dr/Cr flag is required";
+        }
+        String cleanDrCr = drCr.trim().toUpperCase();
+        if (!"D".equals(cleanDrCr) && !"C".equals(cleanDrCr)) {
+            return "Dr/Cr flag must be 'D' (Debit) or 'C' (Credit)";
+        }
+        return AccountValidationService.RESULT_OK;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AccountFormatValidationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
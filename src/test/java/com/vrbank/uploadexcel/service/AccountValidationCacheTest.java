@@ -0,0 +1,52 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * Test class for the {@link AccountValidationCache}.
+ */
+class AccountValidationCacheTest {
+
+    private ApplicationProperties applicationProperties;
+    private ConcurrentMapCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        cacheManager = new ConcurrentMapCacheManager(AccountValidationCache.CACHE_NAME);
+    }
+
+    @Test
+    void testOnlySuccessfulLookupsAreCached() {
+        applicationProperties.getUpload().getAccountCache().setEnabled(true);
+        AccountValidationCache cache = new AccountValidationCache(cacheManager, applicationProperties);
+
+        cache.put("G:1", AccountValidationService.RESULT_OK);
+        cache.put("G:2", AccountValidationService.GL_ACCOUNT_DESC);
+        int stored = cache.putAll(
+            Map.of("C:A", AccountValidationService.RESULT_OK, "C:B", AccountValidationService.ACCOUNT_NOT_FOUND_DESC)
+        );
+
+        assertThat(stored).isEqualTo(1);
+        assertThat(cache.get("G:1")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(cache.get("C:A")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(cache.get("G:2")).isNull();
+        assertThat(cache.get("C:B")).isNull();
+    }
+
+    @Test
+    void testCacheIsOffByDefault() {
+        AccountValidationCache cache = new AccountValidationCache(cacheManager, applicationProperties);
+
+        cache.put("G:1", AccountValidationService.RESULT_OK);
+
+        assertThat(cache.get("G:1")).isNull();
+        assertThat(cache.putAll(Map.of("C:A", AccountValidationService.RESULT_OK))).isZero();
+    }
+}
@@ -0,0 +1,59 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for the {@link AccountValidationService}.
+ */
+class AccountValidationServiceTest {
+
+    private MasterDataQueryLimiter queryLimiter;
+    private AccountValidationService accountValidationService;
+
+    @BeforeEach
+    void setUp() {
+        queryLimiter = mock(MasterDataQueryLimiter.class);
+        accountValidationService = new AccountValidationService(
+            mock(JdbcTemplate.class),
+            new ApplicationProperties(),
+            mock(MasterDataIndex.class),
+            mock(AccountValidationCache.class),
+            queryLimiter
+        );
+    }
+
+    @Test
+    void testRejectedLookupFailsTheUpload() {
+        when(queryLimiter.execute(any())).thenThrow(new TransientDataAccessResourceException("no free slot"));
+
+        assertThatThrownBy(() -> accountValidationService.validateGLAccount("123456789")).isInstanceOf(
+            TransientDataAccessResourceException.class
+        );
+        assertThatThrownBy(() ->
+            accountValidationService.validateCustomerAccount("CUST001", "123456789012345", "EUR", BigDecimal.TEN, "D")
+        ).isInstanceOf(TransientDataAccessResourceException.class);
+    }
+
+    @Test
+    void testFailedLookupRejectsTheRow() {
+        when(queryLimiter.execute(any())).thenThrow(new BadSqlGrammarException("lookup", "SELECT", new SQLException("bad")));
+
+        assertThat(accountValidationService.validateGLAccount("123456789")).isEqualTo(AccountValidationService.GL_ACCOUNT_DESC);
+        assertThat(
+            accountValidationService.validateCustomerAccount("CUST001", "123456789012345", "EUR", BigDecimal.TEN, "D")
+        ).isEqualTo(AccountValidationService.OTHER_DESC);
+    }
+}
@@ -0,0 +1,25 @@
+package com.vrbank.uploadexcel.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Same check as {@link AccountValidationService#validateAccountFormat(String)}, without its opt-out of the logging
+ * aspect, for {@link com.vrbank.uploadexcel.aop.logging.LoggingAspectBenchmark}.
+ * It is a service of this package so that the aspect advises it, and only exists in the "benchmark" profile so that
+ * the component scan of the integration tests leaves it out.
+ */
+@Service
+@Profile("benchmark")
+public class AdvisedFormatCheck {
+
+    private final AccountValidationService accountValidationService;
+
+    public AdvisedFormatCheck(AccountValidationService accountValidationService) {
+        this.accountValidationService = accountValidationService;
+    }
+
+    public String validateAccountFormat(String account) {
+        return accountValidationService.validateAccountFormat(account);
+    }
+}
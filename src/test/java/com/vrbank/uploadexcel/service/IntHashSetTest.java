@@ -0,0 +1,52 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link IntHashSet}.
+ */
+class IntHashSetTest {
+
+    @Test
+    void testAddContainsRemove() {
+        IntHashSet set = new IntHashSet(0);
+
+        assertThat(set.add(123456789)).isTrue();
+        assertThat(set.add(123456789)).isFalse();
+        assertThat(set.add(0)).isTrue();
+        assertThat(set.contains(123456789)).isTrue();
+        assertThat(set.contains(0)).isTrue();
+        assertThat(set.contains(987654321)).isFalse();
+        assertThat(set.size()).isEqualTo(2);
+
+        assertThat(set.remove(0)).isTrue();
+        assertThat(set.remove(987654321)).isFalse();
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testRemoveKeepsProbeChains() {
+        IntHashSet set = new IntHashSet(4);
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int value = 100_000_000 + random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(set.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (int value = 100_000_000; value < 100_020_000; value++) {
+            assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link LongLongHashMap}.
+ */
+class LongLongHashMapTest {
+
+    @Test
+    void testPutAndGet() {
+        LongLongHashMap map = new LongLongHashMap(0);
+        map.put(123456789012345L, 7L);
+        map.put(0L, 3L);
+
+        assertThat(map.get(123456789012345L, -1L)).isEqualTo(7L);
+        assertThat(map.get(0L, -1L)).isEqualTo(3L);
+        assertThat(map.get(42L, -1L)).isEqualTo(-1L);
+        assertThat(map.containsKey(0L)).isTrue();
+        assertThat(map.containsKey(42L)).isFalse();
+        assertThat(map.size()).isEqualTo(2);
+
+        map.put(123456789012345L, 8L);
+        assertThat(map.get(123456789012345L, -1L)).isEqualTo(8L);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testGrowsAndMatchesHashMap() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // Sequential account numbers, as in account_master
+            long key = 100_000_000_000_000L + random.nextInt(100_000);
+            map.put(key, i);
+            expected.put(key, (long) i);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key, -1L)).isEqualTo(value));
+        assertThat(map.memoryBytes()).isGreaterThanOrEqualTo(expected.size() * 16L);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        map.put(1L, 1L);
+        LongLongHashMap copy = map.copy();
+        copy.put(1L, 2L);
+        copy.put(2L, 2L);
+
+        assertThat(map.get(1L, -1L)).isEqualTo(1L);
+        assertThat(map.containsKey(2L)).isFalse();
+        assertThat(copy.get(1L, -1L)).isEqualTo(2L);
+    }
+}
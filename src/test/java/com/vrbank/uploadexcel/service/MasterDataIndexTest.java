@@ -0,0 +1,297 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Test class for the {@link MasterDataIndex}.
+ */
+class MasterDataIndexTest {
+
+    private static final String LOADED_AT = "2026-01-01 00:00:00";
+    private static final String CHANGED_AT = "2026-01-02 00:00:00";
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationProperties applicationProperties;
+    private MasterDataIndex masterDataIndex;
+    private AccountValidationService databaseLookup;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("masterindex").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute(
+            "CREATE TABLE customer_master (customer_no VARCHAR(20), status VARCHAR(1), auth_stat VARCHAR(1), changed_at TIMESTAMP)"
+        );
+        jdbcTemplate.execute(
+            """
+            CREATE TABLE account_master (account_no VARCHAR(20), currency_code VARCHAR(3), customer_no VARCHAR(20),
+            status VARCHAR(1), auth_stat VARCHAR(1), acy_avl_bal DECIMAL(21,2), changed_at TIMESTAMP)\
+            """
+        );
+        jdbcTemplate.execute("CREATE TABLE gl_master (gl_code VARCHAR(9), status VARCHAR(1), changed_at TIMESTAMP)");
+
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getUpload().getMasterIndex().setEnabled(true);
+        applicationProperties.getUpload().getMasterIndex().setChangeColumn("changed_at");
+        masterDataIndex = new MasterDataIndex(jdbcTemplate, applicationProperties, new SimpleMeterRegistry());
+        // Without a loaded index, every check goes to the database
+        databaseLookup = new AccountValidationService(
+            jdbcTemplate,
+            applicationProperties,
+            new MasterDataIndex(jdbcTemplate, applicationProperties, new SimpleMeterRegistry()),
+            new AccountValidationCache(new ConcurrentMapCacheManager(AccountValidationCache.CACHE_NAME), applicationProperties),
+            new MasterDataQueryLimiter(applicationProperties, new SimpleMeterRegistry())
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private void insertCustomer(String customerNo, String status, String authStat, String changedAt) {
+        jdbcTemplate.update(
+            "INSERT INTO customer_master (customer_no, status, auth_stat, changed_at) VALUES (?, ?, ?, TIMESTAMP '" + changedAt + "')",
+            customerNo,
+            status,
+            authStat
+        );
+    }
+
+    private void insertAccount(String accountNo, String currency, String customerNo, String status, String authStat, String changedAt) {
+        jdbcTemplate.update(
+            """
+            INSERT INTO account_master (account_no, currency_code, customer_no, status, auth_stat, acy_avl_bal, changed_at)
+            VALUES (?, ?, ?, ?, ?, 0, TIMESTAMP '\
+            """ +
+            changedAt +
+            "')",
+            accountNo,
+            currency,
+            customerNo,
+            status,
+            authStat
+        );
+    }
+
+    private String lookupCustomerAccount(String relCust, String account, String ccyCd) {
+        return databaseLookup.validateCustomerAccount(relCust, account, ccyCd, BigDecimal.ONE, "D");
+    }
+
+    /**
+     * The index answers like the database, or leaves the check to it
+     */
+    private void assertSameAsDatabase(String relCust, String account, String ccyCd) {
+        String indexed = masterDataIndex.checkCustomerAccount(relCust, account, ccyCd);
+        if (indexed != null) {
+            assertThat(indexed).as("%s / %s / %s", relCust, account, ccyCd).isEqualTo(lookupCustomerAccount(relCust, account, ccyCd));
+        }
+    }
+
+    @Test
+    void testCurrencyAndCustomerMismatchesAreNotFound() {
+        insertCustomer("1001", "A", "A", LOADED_AT);
+        insertCustomer("1002", "A", "A", LOADED_AT);
+        insertAccount("100000000000001", "USD", "1001", "A", "A", LOADED_AT);
+        masterDataIndex.refresh();
+
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "100000000000001", "USD")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "100000000000001", "EUR")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        assertThat(masterDataIndex.checkCustomerAccount("1002", "100000000000001", "USD")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        assertThat(masterDataIndex.checkCustomerAccount("01001", "100000000000001", "USD")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        assertThat(masterDataIndex.checkCustomerAccount(null, "100000000000001", "USD")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "100000000000002", "USD")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        for (String relCust : new String[] { "1001", "1002", "01001", "1003", null }) {
+            for (String ccyCd : new String[] { "USD", "EUR" }) {
+                assertSameAsDatabase(relCust, "100000000000001", ccyCd);
+                assertSameAsDatabase(relCust, "100000000000002", ccyCd);
+            }
+        }
+        // Values the index cannot pack are left to the database
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "10000000000001 ", "USD")).isNull();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "100000000000001", "usd")).isNull();
+    }
+
+    @Test
+    void testStatusChecksFollowCustomerAccountStatusOrder() {
+        String[] statuses = { "A", "C" };
+        String[] authStats = { "A", "U" };
+        int combination = 0;
+        for (String accountStatus : statuses) {
+            for (String customerStatus : statuses) {
+                for (String authStatAcct : authStats) {
+                    for (String authStatCif : authStats) {
+                        String customerNo = String.valueOf(2000 + combination);
+                        insertCustomer(customerNo, customerStatus, authStatCif, LOADED_AT);
+                        String account = String.valueOf(200000000000000L + combination);
+                        insertAccount(account, "VND", customerNo, accountStatus, authStatAcct, LOADED_AT);
+                        combination++;
+                    }
+                }
+            }
+        }
+        masterDataIndex.refresh();
+
+        combination = 0;
+        for (String accountStatus : statuses) {
+            for (String customerStatus : statuses) {
+                for (String authStatAcct : authStats) {
+                    for (String authStatCif : authStats) {
+                        String customerNo = String.valueOf(2000 + combination);
+                        String account = String.valueOf(200000000000000L + combination);
+                        String expected = AccountValidationService.customerAccountStatus(
+                            accountStatus,
+                            customerStatus,
+                            authStatAcct,
+                            authStatCif
+                        );
+                        assertThat(masterDataIndex.checkCustomerAccount(customerNo, account, "VND")).isEqualTo(expected);
+                        assertThat(lookupCustomerAccount(customerNo, account, "VND")).isEqualTo(expected);
+                        combination++;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMultiCurrencyAccountsAreLeftToTheDatabase() {
+        insertCustomer("1001", "A", "A", LOADED_AT);
+        insertAccount("300000000000001", "USD", "1001", "A", "A", LOADED_AT);
+        insertAccount("300000000000001", "EUR", "1001", "C", "A", LOADED_AT);
+        masterDataIndex.refresh();
+
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "300000000000001", "USD")).isNull();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "300000000000001", "EUR")).isNull();
+        assertThat(lookupCustomerAccount("1001", "300000000000001", "USD")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(lookupCustomerAccount("1001", "300000000000001", "EUR")).isEqualTo(AccountValidationService.ACCOUNT_INACTIVE_DESC);
+    }
+
+    @Test
+    void testCustomerNumbersThatCannotBePackedAreLeftToTheDatabase() {
+        insertCustomer("1001", "A", "A", LOADED_AT);
+        insertAccount("400000000000001", "USD", "1001", "A", "A", LOADED_AT);
+        masterDataIndex.refresh();
+
+        // No such customer in the masters, so the index can tell
+        assertThat(masterDataIndex.checkCustomerAccount("CIF001", "400000000000001", "USD")).isEqualTo(
+            AccountValidationService.ACCOUNT_NOT_FOUND_DESC
+        );
+        assertSameAsDatabase("CIF001", "400000000000001", "USD");
+
+        insertCustomer("CIF001", "A", "A", LOADED_AT);
+        insertAccount("400000000000002", "USD", "CIF001", "A", "A", LOADED_AT);
+        insertCustomer("12345678901234", "A", "U", LOADED_AT);
+        insertAccount("400000000000003", "USD", "12345678901234", "A", "A", LOADED_AT);
+        masterDataIndex.scheduledReload();
+
+        assertThat(masterDataIndex.checkCustomerAccount("CIF001", "400000000000002", "USD")).isNull();
+        assertThat(masterDataIndex.checkCustomerAccount("12345678901234", "400000000000003", "USD")).isNull();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "400000000000002", "USD")).isNull();
+        assertThat(lookupCustomerAccount("CIF001", "400000000000002", "USD")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(lookupCustomerAccount("12345678901234", "400000000000003", "USD")).isEqualTo(
+            AccountValidationService.AUTH_STAT_CIF_DESC
+        );
+        assertThat(lookupCustomerAccount("1001", "400000000000002", "USD")).isEqualTo(AccountValidationService.ACCOUNT_NOT_FOUND_DESC);
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "400000000000001", "USD")).isEqualTo(AccountValidationService.RESULT_OK);
+    }
+
+    @Test
+    void testIncrementalRefreshMakesAnAccountAmbiguous() {
+        insertCustomer("1001", "A", "A", LOADED_AT);
+        insertAccount("500000000000001", "USD", "1001", "A", "A", LOADED_AT);
+        masterDataIndex.refresh();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "500000000000001", "USD")).isEqualTo(AccountValidationService.RESULT_OK);
+
+        insertAccount("500000000000001", "EUR", "1001", "A", "A", CHANGED_AT);
+        masterDataIndex.refresh();
+
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "500000000000001", "USD")).isNull();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "500000000000001", "EUR")).isNull();
+
+        // A later status change of one of its rows does not make the account unambiguous again
+        jdbcTemplate.update(
+            "UPDATE account_master SET status = 'C', changed_at = TIMESTAMP '2026-01-03 00:00:00' WHERE currency_code = 'USD'"
+        );
+        masterDataIndex.refresh();
+
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "500000000000001", "USD")).isNull();
+        assertThat(lookupCustomerAccount("1001", "500000000000001", "USD")).isEqualTo(AccountValidationService.ACCOUNT_INACTIVE_DESC);
+        assertThat(lookupCustomerAccount("1001", "500000000000001", "EUR")).isEqualTo(AccountValidationService.RESULT_OK);
+    }
+
+    @Test
+    void testGlChecksMatchTheDatabase() {
+        jdbcTemplate.update("INSERT INTO gl_master (gl_code, status, changed_at) VALUES ('100000001', 'A', TIMESTAMP '" + LOADED_AT + "')");
+        jdbcTemplate.update("INSERT INTO gl_master (gl_code, status, changed_at) VALUES ('100000002', 'C', TIMESTAMP '" + LOADED_AT + "')");
+        masterDataIndex.refresh();
+
+        for (String glAccount : new String[] { "100000001", "100000002", "100000003" }) {
+            assertThat(masterDataIndex.checkGLAccount(glAccount)).isEqualTo(databaseLookup.validateGLAccount(glAccount));
+        }
+        assertThat(masterDataIndex.checkGLAccount("100000001")).isEqualTo(AccountValidationService.RESULT_OK);
+        assertThat(masterDataIndex.checkGLAccount("10000000 ")).isNull();
+
+        jdbcTemplate.update("UPDATE gl_master SET status = 'C', changed_at = TIMESTAMP '" + CHANGED_AT + "' WHERE gl_code = '100000001'");
+        masterDataIndex.refresh();
+
+        assertThat(masterDataIndex.checkGLAccount("100000001")).isEqualTo(AccountValidationService.GL_ACCOUNT_DESC);
+    }
+
+    @Test
+    void testIndexIsNotUsedBeforeItIsLoaded() {
+        assertThat(masterDataIndex.isLoaded()).isFalse();
+        assertThat(masterDataIndex.checkCustomerAccount("1001", "100000000000001", "USD")).isNull();
+        assertThat(masterDataIndex.checkGLAccount("100000001")).isNull();
+    }
+
+    @Test
+    void testAccountKeys() {
+        assertThat(MasterDataIndex.accountKey("123456789012345")).isEqualTo(123456789012345L);
+        assertThat(MasterDataIndex.accountKey("000000000000001")).isEqualTo(1L);
+        assertThat(MasterDataIndex.accountKey(" 23456789012345")).isEqualTo(MasterDataIndex.MISSING);
+        assertThat(MasterDataIndex.accountKey("12345678901234")).isEqualTo(MasterDataIndex.MISSING);
+        assertThat(MasterDataIndex.accountKey(null)).isEqualTo(MasterDataIndex.MISSING);
+    }
+
+    @Test
+    void testCustomerKeysKeepLeadingZerosApart() {
+        assertThat(MasterDataIndex.customerKey("7")).isNotEqualTo(MasterDataIndex.customerKey("007"));
+        assertThat(MasterDataIndex.customerKey("9999999999999")).isLessThan(1L << 45);
+        assertThat(MasterDataIndex.customerKey("99999999999999")).isZero();
+        assertThat(MasterDataIndex.customerKey("CIF001")).isZero();
+        assertThat(MasterDataIndex.customerKey("")).isZero();
+    }
+
+    @Test
+    void testGlKeysAndCurrencies() {
+        assertThat(MasterDataIndex.glKey("123456789")).isEqualTo(123456789);
+        assertThat(MasterDataIndex.glKey("12345678 ")).isNegative();
+        assertThat(MasterDataIndex.currencyIndex("AAA")).isZero();
+        assertThat(MasterDataIndex.currencyIndex("VND")).isNotEqualTo(MasterDataIndex.currencyIndex("USD"));
+        assertThat(MasterDataIndex.currencyIndex("vnd")).isEqualTo(MasterDataIndex.currencyIndex(null));
+    }
+}
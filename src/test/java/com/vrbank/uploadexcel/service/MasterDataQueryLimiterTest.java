@@ -0,0 +1,95 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Test class for the {@link MasterDataQueryLimiter}.
+ */
+class MasterDataQueryLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Upload.QueryLimiter queryLimiter = applicationProperties.getUpload().getQueryLimiter();
+        queryLimiter.setInitialLimit(4);
+        queryLimiter.setMinLimit(2);
+        queryLimiter.setMaxLimit(5);
+        queryLimiter.setLatencyThresholdMs(200);
+        queryLimiter.setBackoffRatio(0.5);
+        queryLimiter.setMaxQueueWaitMs(0);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testRejectsOverLimit() {
+        MasterDataQueryLimiter limiter = new MasterDataQueryLimiter(applicationProperties, registry);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        assertThatThrownBy(limiter::acquire).isInstanceOf(TransientDataAccessResourceException.class);
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+        assertThat(limiter.getWaiting()).isZero();
+        assertThat(registry.get("upload.master.query.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testSlowLookupsDecreaseOncePerRound() {
+        MasterDataQueryLimiter limiter = new MasterDataQueryLimiter(applicationProperties, registry);
+
+        long startNanos = System.nanoTime();
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(startNanos, SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        // Started before the decrease, so it does not count again
+        limiter.release(startNanos, SLOW, false);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        // Never below the minimum
+        limiter.acquire();
+        limiter.release(System.nanoTime(), 0, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(registry.get("upload.master.query.limit").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testFastLookupsIncreaseUpToMax() {
+        MasterDataQueryLimiter limiter = new MasterDataQueryLimiter(applicationProperties, registry);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release(System.nanoTime(), FAST, false);
+            limiter.release(System.nanoTime(), FAST, false);
+            limiter.release(System.nanoTime(), FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void testDisabledRunsDirectly() {
+        applicationProperties.getUpload().getQueryLimiter().setEnabled(false);
+        MasterDataQueryLimiter limiter = new MasterDataQueryLimiter(applicationProperties, registry);
+
+        assertThat(limiter.execute(() -> "OK")).isEqualTo("OK");
+        assertThat(limiter.getInFlight()).isZero();
+    }
+}
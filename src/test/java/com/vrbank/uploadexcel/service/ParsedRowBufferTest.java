@@ -0,0 +1,89 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link ParsedRowBuffer}.
+ */
+class ParsedRowBufferTest {
+
+    private static final ParsedRowBuffer.BatchFields BATCH_FIELDS = new ParsedRowBuffer.BatchFields(
+        "BATCH01",
+        "001",
+        "SRC",
+        new BigDecimal("24500.5"),
+        LocalDate.of(2026, 10, 19),
+        LocalDate.of(2026, 10, 20),
+        "FY2026",
+        "OCT"
+    );
+
+    @Test
+    void testRowsRoundTripToEntities() {
+        ParsedRowBuffer buffer = new ParsedRowBuffer();
+        buffer.add(
+            1,
+            "CIF001",
+            "123456789012345",
+            "001",
+            "D",
+            "VND",
+            new BigDecimal("1500000"),
+            new BigDecimal("1500000.00"),
+            "T01",
+            "Salary"
+        );
+        buffer.add(2, null, "123456789", null, "C", "USD", new BigDecimal("12.34"), null, "T01", null);
+
+        UploadDetail first = buffer.toUploadDetail(0, BATCH_FIELDS);
+        assertThat(first.getBatchNo()).isEqualTo("BATCH01");
+        assertThat(first.getFinCycle()).isEqualTo("FY2026");
+        assertThat(first.getUploadDate()).isEqualTo(LocalDate.of(2026, 10, 20));
+        assertThat(first.getCurrNo()).isEqualTo("1");
+        assertThat(first.getRelCust()).isEqualTo("CIF001");
+        assertThat(first.getAccount()).isEqualTo("123456789012345");
+        assertThat(first.getAccountBranch()).isEqualTo("001");
+        assertThat(first.getDrCr()).isEqualTo("D");
+        assertThat(first.getCcyCd()).isEqualTo("VND");
+        assertThat(first.getAmount()).isEqualTo(new BigDecimal("1500000"));
+        assertThat(first.getLcyEquivalent()).isEqualTo(new BigDecimal("1500000.00"));
+        assertThat(first.getAddlText()).isEqualTo("Salary");
+
+        UploadDetail second = buffer.toUploadDetail(1, BATCH_FIELDS.withBatchNo("BATCH01-002"));
+        assertThat(second.getBatchNo()).isEqualTo("BATCH01-002");
+        assertThat(second.getRelCust()).isNull();
+        assertThat(second.getAccountBranch()).isNull();
+        assertThat(second.getAmount()).isEqualTo(new BigDecimal("12.34"));
+        assertThat(second.getLcyEquivalent()).isNull();
+        assertThat(second.getAddlText()).isNull();
+    }
+
+    @Test
+    void testLowCardinalityColumnsShareDictionary() {
+        ParsedRowBuffer buffer = new ParsedRowBuffer();
+        for (int i = 0; i < 1000; i++) {
+            String drCr = i % 2 == 0 ? "D" : "C";
+            buffer.add(i + 1, null, "12345678" + (i % 10), "001", drCr, "VND", BigDecimal.TEN, BigDecimal.TEN, "T01", null);
+        }
+
+        assertThat(buffer.size()).isEqualTo(1000);
+        assertThat(buffer.getDictionarySize()).isEqualTo(5); // 001, D, C, VND, T01
+        assertThat(buffer.getCurrNo(999)).isEqualTo(1000);
+        assertThat(buffer.getDrCr(999)).isEqualTo("C");
+    }
+
+    @Test
+    void testAmountsBeyondLongRangeAreKept() {
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+        ParsedRowBuffer buffer = new ParsedRowBuffer();
+        buffer.add(1, null, "123456789", null, "D", "VND", huge, BigDecimal.ONE, "T01", null);
+
+        assertThat(buffer.getAmount(0)).isEqualTo(huge);
+        assertThat(buffer.getLcyEquivalent(0)).isEqualTo(BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SheetRowScanner}.
+ */
+class SheetRowScannerTest {
+
+    private static final int FIRST_ROW = 2;
+    private static final int LAST_COLUMN = 9;
+
+    @Test
+    void testSkipsHeaderAndEmptyRows() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(1).setCellValue("Header");
+            sheet.createRow(2).createCell(2).setCellValue("123456789");
+            sheet.createRow(3).createCell(2).setCellValue("   ");
+            sheet.createRow(4).createCell(2).setCellValue(42);
+
+            SheetRowScanner scanner = new SheetRowScanner(sheet, FIRST_ROW, LAST_COLUMN, 10);
+
+            assertThat(rowNumbers(scanner)).containsExactly(2, 4);
+            assertThat(scanner.getSkippedFromRow()).isNull();
+            assertThat(scanner.getSkippedToRow()).isNull();
+        }
+    }
+
+    @Test
+    void testStopsAfterConsecutiveFormattedEmptyRows() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            CellStyle style = workbook.createCellStyle();
+            sheet.createRow(2).createCell(2).setCellValue("123456789");
+            for (int rowNum = 3; rowNum < 1000; rowNum++) {
+                sheet.createRow(rowNum).createCell(2).setCellStyle(style);
+            }
+
+            SheetRowScanner scanner = new SheetRowScanner(sheet, FIRST_ROW, LAST_COLUMN, 5);
+
+            assertThat(rowNumbers(scanner)).containsExactly(2);
+            assertThat(scanner.getSkippedFromRow()).isEqualTo(4);
+            assertThat(scanner.getSkippedToRow()).isEqualTo(1000);
+        }
+    }
+
+    @Test
+    void testIgnoresValuesBeyondLastColumn() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row row = sheet.createRow(2);
+            row.createCell(LAST_COLUMN + 1).setCellValue("note");
+
+            assertThat(SheetRowScanner.hasValueCells(row, LAST_COLUMN)).isFalse();
+            row.createCell(LAST_COLUMN).setCellValue("text");
+            assertThat(SheetRowScanner.hasValueCells(row, LAST_COLUMN)).isTrue();
+        }
+    }
+
+    private static List<Integer> rowNumbers(SheetRowScanner scanner) {
+        List<Integer> rowNumbers = new ArrayList<>();
+        for (Row row : scanner) {
+            rowNumbers.add(row.getRowNum());
+        }
+        return rowNumbers;
+    }
+}
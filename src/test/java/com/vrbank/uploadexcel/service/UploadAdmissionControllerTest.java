@@ -0,0 +1,78 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link UploadAdmissionController}.
+ */
+class UploadAdmissionControllerTest {
+
+    private ApplicationProperties applicationProperties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Upload.Admission admission = applicationProperties.getUpload().getAdmission();
+        admission.setMaxConcurrentUploads(2);
+        admission.setMaxConcurrentPerBranch(1);
+        admission.setMaxInFlightBytes(1000);
+        admission.setMaxQueueWaitSeconds(0);
+        admission.setRetryAfterSeconds(15);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testBranchLimitRejectsAfterWait() {
+        UploadAdmissionController controller = new UploadAdmissionController(applicationProperties, registry);
+
+        UploadAdmissionController.Permit permit = controller.acquire("001", 10);
+        assertThatThrownBy(() -> controller.acquire("001", 10))
+            .isInstanceOf(UploadRejectedException.class)
+            .satisfies(e -> assertThat(((UploadRejectedException) e).getRetryAfterSeconds()).isEqualTo(15));
+
+        // Another branch is still admitted
+        try (UploadAdmissionController.Permit other = controller.acquire("002", 10)) {
+            assertThat(controller.getActive()).isEqualTo(2);
+        }
+
+        permit.close();
+        permit.close();
+        assertThat(controller.getActive()).isZero();
+        assertThat(controller.getInFlightBytes()).isZero();
+        assertThat(registry.get("upload.admission.rejected").tag("reason", "timeout").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testSizeBudget() {
+        UploadAdmissionController controller = new UploadAdmissionController(applicationProperties, registry);
+
+        // A file over the whole budget runs alone
+        try (UploadAdmissionController.Permit big = controller.acquire("001", 5000)) {
+            assertThat(controller.getInFlightBytes()).isEqualTo(1000);
+            assertThatThrownBy(() -> controller.acquire("002", 1)).isInstanceOf(UploadRejectedException.class);
+        }
+        try (UploadAdmissionController.Permit small = controller.acquire("002", 1)) {
+            assertThat(controller.getActive()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testFullQueueRejectsImmediately() {
+        applicationProperties.getUpload().getAdmission().setMaxQueueLength(0);
+        UploadAdmissionController controller = new UploadAdmissionController(applicationProperties, registry);
+
+        try (UploadAdmissionController.Permit permit = controller.acquire("001", 10)) {
+            assertThatThrownBy(() -> controller.acquire("001", 10))
+                .isInstanceOf(UploadRejectedException.class)
+                .satisfies(e -> assertThat(((UploadRejectedException) e).getQueuePosition()).isEqualTo(1));
+        }
+        assertThat(registry.get("upload.admission.rejected").tag("reason", "queue-full").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Date;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Test class for the {@link UploadArchivalService}.
+ */
+class UploadArchivalServiceTest {
+
+    private static final String DETAIL_COLUMNS =
+        """
+        id BIGINT PRIMARY KEY, batch_no VARCHAR(20), branch_code VARCHAR(10), source_code VARCHAR(10), rel_cust VARCHAR(20),
+        account VARCHAR(20), account_branch VARCHAR(10), dr_cr VARCHAR(1), ccy_cd VARCHAR(3), amount DECIMAL(21,2),
+        lcy_equivalent DECIMAL(21,2), txn_code VARCHAR(10), addl_text VARCHAR(200), exch_rate DECIMAL(15,6),
+        initiation_date DATE, value_date DATE, upload_date DATE, fin_cycle VARCHAR(10), period_code VARCHAR(10),
+        curr_no VARCHAR(10), upload_stat VARCHAR(1), delete_stat VARCHAR(1)\
+        """;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UploadArchivalService uploadArchivalService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("archival").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE detb_upload_detail (" + DETAIL_COLUMNS + ")");
+        jdbcTemplate.execute("CREATE TABLE detb_upload_detail_arch (" + DETAIL_COLUMNS + ", archived_date DATE NOT NULL)");
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getUpload().getArchival().setChunkSize(2);
+        applicationProperties.getUpload().getArchival().setPauseMs(0);
+        applicationProperties.getUpload().getArchival().setRetentionDays(90);
+        uploadArchivalService = new UploadArchivalService(
+            jdbcTemplate,
+            new DataSourceTransactionManager(database),
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private void insertRecord(long id, String batchNo, String uploadStat, LocalDate uploadDate) {
+        jdbcTemplate.update(
+            "INSERT INTO detb_upload_detail (id, batch_no, account, amount, upload_date, upload_stat) VALUES (?, ?, ?, ?, ?, ?)",
+            id,
+            batchNo,
+            "123456789",
+            100,
+            Date.valueOf(uploadDate),
+            uploadStat
+        );
+    }
+
+    private long count(String table, String batchNo) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE batch_no = ?", Long.class, batchNo);
+        return count != null ? count : 0;
+    }
+
+    @Test
+    void testArchiveBatchMovesItsProcessedRowsChunkByChunk() throws Exception {
+        LocalDate uploadDate = LocalDate.now().minusDays(100);
+        for (long id = 1; id <= 5; id++) {
+            insertRecord(id, "BATCH1", "Y", uploadDate);
+        }
+        insertRecord(6, "BATCH2", "Y", uploadDate);
+
+        assertThat(uploadArchivalService.archiveBatch("BATCH1")).isEqualTo(5);
+
+        assertThat(count("detb_upload_detail", "BATCH1")).isZero();
+        assertThat(count("detb_upload_detail_arch", "BATCH1")).isEqualTo(5);
+        assertThat(count("detb_upload_detail", "BATCH2")).isEqualTo(1);
+        assertThat(
+            jdbcTemplate.queryForObject("SELECT account FROM detb_upload_detail_arch WHERE id = 3", String.class)
+        ).isEqualTo("123456789");
+    }
+
+    @Test
+    void testArchiveOldBatchesKeepsRecentAndPendingBatches() {
+        LocalDate old = LocalDate.now().minusDays(100);
+        insertRecord(1, "OLD", "Y", old);
+        insertRecord(2, "OLD", "Y", old);
+        insertRecord(3, "PENDING", "Y", old);
+        insertRecord(4, "PENDING", "N", old);
+        insertRecord(5, "RECENT", "Y", LocalDate.now());
+
+        assertThat(uploadArchivalService.archiveOldBatches()).isEqualTo(2);
+
+        assertThat(count("detb_upload_detail_arch", "OLD")).isEqualTo(2);
+        assertThat(count("detb_upload_detail", "PENDING")).isEqualTo(2);
+        assertThat(count("detb_upload_detail", "RECENT")).isEqualTo(1);
+    }
+}
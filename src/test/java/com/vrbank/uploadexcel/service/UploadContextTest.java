@@ -0,0 +1,112 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link UploadContext}.
+ */
+class UploadContextTest {
+
+    @Test
+    void testCancelStopsTheThreadsOfTheUpload() throws Exception {
+        UploadContext context = new UploadContext("BATCH1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        UploadContext previous = UploadContext.bind(context);
+        try {
+            Supplier<UploadContext> task = UploadContext.propagate(UploadContext::current);
+            assertThat(CompletableFuture.supplyAsync(task, executor).get()).isSameAs(context);
+
+            context.cancel();
+            assertThat(context.isCancelled()).isTrue();
+            assertThatThrownBy(UploadContext::checkCurrent).isInstanceOf(UploadCancelledException.class);
+            Runnable check = UploadContext.propagate(UploadContext::checkCurrent);
+            CompletableFuture<Void> afterCancel = CompletableFuture.runAsync(check, executor);
+            assertThatThrownBy(afterCancel::get).hasCauseInstanceOf(UploadCancelledException.class);
+        } finally {
+            UploadContext.restore(previous);
+            executor.shutdown();
+        }
+        assertThat(UploadContext.current()).isNull();
+        // Without a context, nothing is ever cancelled
+        UploadContext.checkCurrent();
+    }
+
+    @Test
+    void testCancelCancelsRunningStatements() throws Exception {
+        UploadContext context = new UploadContext("BATCH1");
+        Statement running = mock(Statement.class);
+        Statement finished = mock(Statement.class);
+
+        context.statementStarted(finished);
+        context.statementFinished(finished);
+        context.statementStarted(running);
+        context.cancel();
+
+        verify(running).cancel();
+        verify(finished, never()).cancel();
+        assertThatThrownBy(() -> context.statementStarted(mock(Statement.class))).isInstanceOf(UploadCancelledException.class);
+    }
+
+    @Test
+    void testCancelSkipsStatementsLeftByFailures() throws Exception {
+        UploadContext context = new UploadContext("BATCH1");
+        Statement failed = mock(Statement.class);
+        Statement closed = mock(Statement.class);
+        when(closed.isClosed()).thenReturn(true);
+
+        UploadContext previous = UploadContext.bind(context);
+        try {
+            context.statementStarted(failed);
+        } finally {
+            UploadContext.restore(previous);
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                context.statementStarted(closed);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+        context.cancel();
+
+        verify(failed, never()).cancel();
+        verify(closed, never()).cancel();
+    }
+
+    @Test
+    void testDeadlineLimitsQueryTimeouts() throws Exception {
+        UploadContext context = new UploadContext("BATCH1");
+        Statement statement = mock(Statement.class);
+        context.statementStarted(statement);
+        verify(statement, never()).setQueryTimeout(anyInt());
+
+        context.startDeadline(Duration.ofSeconds(30));
+        assertThat(context.remainingNanos()).isBetween(Duration.ofSeconds(29).toNanos(), Duration.ofSeconds(30).toNanos());
+        Statement withoutTimeout = mock(Statement.class);
+        context.statementStarted(withoutTimeout);
+        verify(withoutTimeout).setQueryTimeout(30);
+        Statement withShorterTimeout = mock(Statement.class);
+        when(withShorterTimeout.getQueryTimeout()).thenReturn(5);
+        context.statementStarted(withShorterTimeout);
+        verify(withShorterTimeout, never()).setQueryTimeout(30);
+
+        context.startDeadline(Duration.ZERO);
+        assertThat(context.isExpired()).isTrue();
+        assertThatThrownBy(context::checkCancelled).isInstanceOf(UploadTimeoutException.class);
+        assertThatThrownBy(() -> context.statementStarted(mock(Statement.class))).isInstanceOf(UploadTimeoutException.class);
+    }
+}
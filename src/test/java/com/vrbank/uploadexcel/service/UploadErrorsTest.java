@@ -0,0 +1,81 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vrbank.uploadexcel.service.dto.UploadErrorDTO;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link UploadErrors}.
+ */
+class UploadErrorsTest {
+
+    @Test
+    void testDtoViewRendersMessagesAndRowValues() {
+        ParsedRowBuffer rows = new ParsedRowBuffer();
+        int row = rows.add(1, "CIF001", "12345", "001", "D", "VND", new BigDecimal("10.5"), BigDecimal.TEN, "T01", "Note");
+        UploadErrors errors = new UploadErrors();
+        errors.add(5, row, UploadErrorCode.ACCOUNT_FORMAT, "Account number must be either 9 digits (GL) or 15 digits (Customer)");
+        errors.add(5, row, UploadErrorCode.VND_AMOUNT_NOT_WHOLE);
+        errors.add(6, UploadErrors.NO_ROW, UploadErrorCode.ROW_PROCESSING, "Invalid number");
+
+        List<UploadErrorDTO> dtos = errors.asDtoList(rows);
+
+        assertThat(dtos).hasSize(3);
+        UploadErrorDTO first = dtos.get(0);
+        assertThat(first.getRowNumber()).isEqualTo(5);
+        assertThat(first.getErrorCode()).isEqualTo("VALIDATION_ERROR");
+        assertThat(first.getErrorMessage()).isEqualTo(
+            "Field 'Account': Account number must be either 9 digits (GL) or 15 digits (Customer)"
+        );
+        assertThat(first.getSeverity()).isEqualTo("ERROR");
+        assertThat(first.getAccount()).isEqualTo("12345");
+        assertThat(first.getRelCust()).isEqualTo("CIF001");
+        assertThat(first.getAmount()).isEqualTo(new BigDecimal("10.5"));
+        assertThat(first.getAddlText()).isEqualTo("Note");
+        assertThat(dtos.get(1).getErrorCode()).isEqualTo("AMOUNT_ERROR");
+        assertThat(dtos.get(1).getErrorMessage()).isEqualTo("VND amount must be a whole number");
+        assertThat(dtos.get(2).getErrorCode()).isEqualTo("PROCESSING_ERROR");
+        assertThat(dtos.get(2).getErrorMessage()).isEqualTo("Error processing row: Invalid number");
+        assertThat(dtos.get(2).getAccount()).isNull();
+    }
+
+    @Test
+    void testIdenticalMessagesAreShared() {
+        ParsedRowBuffer rows = new ParsedRowBuffer();
+        UploadErrors errors = new UploadErrors();
+        for (int i = 0; i < 1000; i++) {
+            int row = rows.add(i + 1, null, "1234", null, "D", "VND", BigDecimal.ONE, BigDecimal.ONE, "T01", null);
+            errors.add(i + 4, row, UploadErrorCode.ACCOUNT_FORMAT, "Account number must be either 9 digits (GL) or 15 digits (Customer)");
+            errors.add(i + 4, row, UploadErrorCode.TXN_CODE_REQUIRED);
+        }
+
+        List<UploadErrorDTO> dtos = errors.asDtoList(rows);
+
+        assertThat(errors.size()).isEqualTo(2000);
+        assertThat(errors.getDetailCount()).isEqualTo(1);
+        assertThat(dtos.get(0).getErrorMessage()).isSameAs(dtos.get(1998).getErrorMessage());
+        assertThat(dtos.get(1).getErrorMessage()).isSameAs(dtos.get(1999).getErrorMessage());
+    }
+
+    @Test
+    void testSortByRowNumberKeepsOrderWithinRow() {
+        UploadErrors chunk = new UploadErrors();
+        chunk.add(7, 3, UploadErrorCode.AMOUNT_NOT_POSITIVE);
+        chunk.add(7, 3, UploadErrorCode.CURRENCY_REQUIRED);
+        UploadErrors errors = new UploadErrors();
+        errors.add(9, UploadErrors.NO_ROW, UploadErrorCode.ROW_PROCESSING, "Bad cell");
+        errors.add(4, UploadErrors.NO_ROW, UploadErrorCode.ROW_PROCESSING, "Bad cell");
+        errors.addAll(chunk);
+
+        errors.sortByRowNumber();
+
+        assertThat(errors.getRowNumber(0)).isEqualTo(4);
+        assertThat(errors.getCode(1)).isEqualTo(UploadErrorCode.AMOUNT_NOT_POSITIVE);
+        assertThat(errors.getCode(2)).isEqualTo(UploadErrorCode.CURRENCY_REQUIRED);
+        assertThat(errors.getRowNumber(3)).isEqualTo(9);
+        assertThat(errors.getDetailCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link UploadFlightEvents}.
+ */
+class UploadFlightEventsTest {
+
+    @Test
+    void testEventsCarryTheBatchOfTheUpload() throws Exception {
+        Path dump = Files.createTempFile("upload", ".jfr");
+        UploadContext previous = UploadContext.bind(new UploadContext("BATCH1"));
+        try (Recording recording = new Recording()) {
+            recording.enable(UploadFlightEvents.STAGE);
+            recording.enable(UploadFlightEvents.MASTER_DATA_LOOKUP).withThreshold(Duration.ZERO);
+            recording.start();
+
+            UploadFlightEvents.Stage stage = new UploadFlightEvents.Stage();
+            stage.begin();
+            UploadFlightEvents.MasterDataLookup lookup = new UploadFlightEvents.MasterDataLookup();
+            lookup.begin();
+            lookup.finish(UploadFlightEvents.LOOKUP_GL_ACCOUNT, UploadFlightEvents.SOURCE_CACHE, "OK");
+            stage.finish(UploadFlightEvents.STAGE_VALIDATE, 1);
+
+            recording.stop();
+            recording.dump(dump);
+        } finally {
+            UploadContext.restore(previous);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        assertThat(events).extracting(event -> event.getEventType().getName()).containsExactlyInAnyOrder(
+            UploadFlightEvents.MASTER_DATA_LOOKUP,
+            UploadFlightEvents.STAGE
+        );
+        assertThat(events).allSatisfy(event -> assertThat(event.getString("batchNo")).isEqualTo("BATCH1"));
+        RecordedEvent lookup = events.stream().filter(event -> event.hasField("source")).findFirst().orElseThrow();
+        assertThat(lookup.getString("source")).isEqualTo(UploadFlightEvents.SOURCE_CACHE);
+        assertThat(lookup.hasField("account")).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadJob;
+import com.vrbank.uploadexcel.service.dto.ExcelUploadDTO;
+import com.vrbank.uploadexcel.service.dto.UploadResultDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the {@link UploadJobWorker}.
+ */
+class UploadJobWorkerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UploadJobService uploadJobService;
+    private ExcelUploadService excelUploadService;
+    private UploadJobWorker uploadJobWorker;
+
+    @BeforeEach
+    void setUp() {
+        uploadJobService = mock(UploadJobService.class);
+        excelUploadService = mock(ExcelUploadService.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        uploadJobWorker = new UploadJobWorker(
+            uploadJobService,
+            excelUploadService,
+            new UploadAdmissionController(applicationProperties, new SimpleMeterRegistry()),
+            Runnable::run,
+            applicationProperties
+        );
+    }
+
+    private UploadJob queuedJob(Path file) {
+        UploadJob job = new UploadJob();
+        job.setId(1L);
+        job.setBatchNo("BATCH1");
+        job.setBranchCode("001");
+        job.setSourceCode("SRC");
+        job.setFilePath(file.toString());
+        job.setFileName("upload.xlsx");
+        job.setFileSize(4L);
+        job.setContentHash("hash");
+        job.setAttempts(1);
+        return job;
+    }
+
+    @Test
+    void testRejectedJobIsRequeuedAndProcessedAgain() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("job-1.xlsx"), "data");
+        UploadJob job = queuedJob(file);
+        when(uploadJobService.claimQueuedJobs(anyString(), anyInt())).thenReturn(List.of(job));
+        AtomicBoolean fileReadable = new AtomicBoolean();
+        when(excelUploadService.processSpooledUpload(any(SpooledUpload.class), any(ExcelUploadDTO.class), any(UploadContext.class)))
+            .thenThrow(new UploadRejectedException("Account validation is overloaded, retry later", 30, 0))
+            .thenAnswer(invocation -> {
+                fileReadable.set(Files.isReadable(invocation.<SpooledUpload>getArgument(0).getPath()));
+                return UploadResultDTO.success("BATCH1", 1, 1);
+            });
+
+        uploadJobWorker.pollQueuedJobs();
+
+        verify(uploadJobService).requeue(eq(1L), anyString());
+        verify(uploadJobService, never()).finish(any(), anyString(), any());
+        assertThat(file).exists();
+
+        uploadJobWorker.pollQueuedJobs();
+
+        assertThat(fileReadable).isTrue();
+        verify(uploadJobService, times(1)).requeue(eq(1L), anyString());
+        verify(uploadJobService).finish(eq(1L), anyString(), any(UploadResultDTO.class));
+        assertThat(file).doesNotExist();
+    }
+}
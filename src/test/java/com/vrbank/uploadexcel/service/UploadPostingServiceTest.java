@@ -0,0 +1,126 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vrbank.uploadexcel.config.ApplicationProperties;
+import com.vrbank.uploadexcel.domain.UploadDetail;
+import com.vrbank.uploadexcel.repository.UploadDetailRepository;
+import com.vrbank.uploadexcel.service.dto.UploadDetailDTO;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Test class for the {@link UploadPostingService}.
+ */
+class UploadPostingServiceTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UploadDetailRepository uploadDetailRepository;
+    private UploadPostingService uploadPostingService;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("posting-claims").build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE detb_upload_detail (id BIGINT PRIMARY KEY, upload_stat VARCHAR(1))");
+        jdbcTemplate.execute(
+            "CREATE TABLE detb_upload_claim (detail_id BIGINT PRIMARY KEY, claimed_by VARCHAR(100) NOT NULL, claimed_at TIMESTAMP NOT NULL)"
+        );
+        uploadDetailRepository = mock(UploadDetailRepository.class);
+        uploadPostingService = new UploadPostingService(
+            uploadDetailRepository,
+            jdbcTemplate,
+            new DataSourceTransactionManager(database),
+            new ApplicationProperties()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static UploadDetail detail(long id) {
+        UploadDetail detail = new UploadDetail("BATCH1", "001", "SRC");
+        detail.setId(id);
+        return detail;
+    }
+
+    private List<String> claimants() {
+        return jdbcTemplate.queryForList("SELECT claimed_by FROM detb_upload_claim ORDER BY detail_id", String.class);
+    }
+
+    @Test
+    void testClaimCompleteAndRelease() {
+        when(uploadDetailRepository.findPendingForUpdate(eq(0L), any(Pageable.class))).thenReturn(List.of(detail(1), detail(2)));
+        when(uploadDetailRepository.updateUploadStatus(anyCollection(), any(), any())).thenReturn(1);
+
+        List<UploadDetailDTO> claimed = uploadPostingService.claimPending(0, 10, "worker-1");
+
+        assertThat(claimed).extracting(UploadDetailDTO::getId).containsExactly(1L, 2L);
+        assertThat(claimed).extracting(UploadDetailDTO::getUploadStat).containsOnly(UploadPostingService.STATUS_PROCESSING);
+        verify(uploadDetailRepository).markClaimed(List.of(1L, 2L));
+        assertThat(claimants()).containsExactly("worker-1", "worker-1");
+
+        assertThat(uploadPostingService.complete(List.of(1L))).isEqualTo(1);
+        verify(uploadDetailRepository).updateUploadStatus(
+            List.of(1L),
+            UploadPostingService.STATUS_PROCESSING,
+            UploadPostingService.STATUS_PROCESSED
+        );
+        assertThat(uploadPostingService.release(List.of(2L))).isEqualTo(1);
+        verify(uploadDetailRepository).updateUploadStatus(
+            List.of(2L),
+            UploadPostingService.STATUS_PROCESSING,
+            UploadPostingService.STATUS_PENDING
+        );
+        assertThat(claimants()).isEmpty();
+    }
+
+    @Test
+    void testNothingToClaim() {
+        when(uploadDetailRepository.findPendingForUpdate(anyLong(), any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(uploadPostingService.claimPending(5, 10, "worker-1")).isEmpty();
+        assertThat(claimants()).isEmpty();
+    }
+
+    @Test
+    void testStaleClaimsAreGivenBack() {
+        Instant now = Instant.now();
+        jdbcTemplate.update("INSERT INTO detb_upload_detail (id, upload_stat) VALUES (1, 'P'), (2, 'P'), (3, 'Y')");
+        jdbcTemplate.update(
+            "INSERT INTO detb_upload_claim (detail_id, claimed_by, claimed_at) VALUES (1, 'crashed', ?), (2, 'alive', ?)",
+            Timestamp.from(now.minus(1, ChronoUnit.HOURS)),
+            Timestamp.from(now)
+        );
+
+        assertThat(uploadPostingService.reclaimClaimsBefore(now.minus(15, ChronoUnit.MINUTES))).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForList("SELECT upload_stat FROM detb_upload_detail ORDER BY id", String.class)).containsExactly(
+            UploadPostingService.STATUS_PENDING,
+            UploadPostingService.STATUS_PROCESSING,
+            UploadPostingService.STATUS_PROCESSED
+        );
+        assertThat(claimants()).containsExactly("alive");
+    }
+}
@@ -0,0 +1,54 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test class for the {@link UploadRowLog}.
+ */
+class UploadRowLogTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UploadRowLogTest.class);
+
+    @Test
+    void testOnlyTheFirstMessagesAreLogged() {
+        UploadContext context = new UploadContext("BATCH1");
+        UploadRowLog rowLog = context.startRowLog(2);
+        UploadContext previous = UploadContext.bind(context);
+        try {
+            for (int row = 1; row <= 5; row++) {
+                UploadRowLog.warn(LOG, "Unsupported currency code: {}", "XXX");
+            }
+            UploadRowLog.error(LOG, "Error processing row {}: {}", 6, "boom");
+        } finally {
+            UploadContext.restore(previous);
+        }
+
+        assertThat(rowLog.getTotal()).isEqualTo(6);
+        assertThat(rowLog.getSuppressed()).isEqualTo(4);
+        Logger summaryLog = mock(Logger.class);
+        rowLog.logSummary(summaryLog, 1);
+        verify(summaryLog).info(anyString(), eq("BATCH1"), eq(6L), eq(4L), contains("5 x \"Unsupported currency code: {}\""));
+    }
+
+    @Test
+    void testNothingIsRecordedWithoutContext() {
+        UploadRowLog rowLog = new UploadRowLog("BATCH1", 2);
+        UploadRowLog.warn(LOG, "Unsupported currency code: {}", "XXX");
+        assertThat(rowLog.getTotal()).isZero();
+
+        Logger summaryLog = mock(Logger.class);
+        rowLog.logSummary(summaryLog, 5);
+        verify(summaryLog, never()).info(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,50 @@
+package com.vrbank.uploadexcel.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link UploadValidationRules} utility class.
+ */
+class UploadValidationRulesTest {
+
+    private final UploadValidationRules rules = new UploadValidationRules(List.of("VND", "usd", " EUR "));
+
+    @Test
+    void testTrimMatchesStringTrim() {
+        String value = " \t 123 \n";
+        int start = UploadValidationRules.trimStart(value);
+        int end = UploadValidationRules.trimEnd(value, start);
+        assertThat(value.substring(start, end)).isEqualTo(value.trim());
+        assertThat(UploadValidationRules.isBlank("  ")).isTrue();
+        assertThat(UploadValidationRules.isBlank(" a ")).isFalse();
+    }
+
+    @Test
+    void testIsDigits() {
+        assertThat(UploadValidationRules.isDigits("123456789012345", 0, 15)).isTrue();
+        assertThat(UploadValidationRules.isDigits("12345678901234A", 0, 15)).isFalse();
+        assertThat(UploadValidationRules.isDigits("x12x", 1, 3)).isTrue();
+    }
+
+    @Test
+    void testSupportedCurrencyIgnoresCaseAndWhitespace() {
+        assertThat(rules.isSupportedCurrency("VND")).isTrue();
+        assertThat(rules.isSupportedCurrency(" vnd ")).isTrue();
+        assertThat(rules.isSupportedCurrency("USD")).isTrue();
+        assertThat(rules.isSupportedCurrency("EUR")).isTrue();
+        assertThat(rules.isSupportedCurrency("JPY")).isFalse();
+        assertThat(rules.isSupportedCurrency("US1")).isFalse();
+        assertThat(rules.isSupportedCurrency("USDX")).isFalse();
+    }
+
+    @Test
+    void testDrCrFlag() {
+        assertThat(UploadValidationRules.isDrCrFlag("D")).isTrue();
+        assertThat(UploadValidationRules.isDrCrFlag(" c ")).isTrue();
+        assertThat(UploadValidationRules.isDrCrFlag("X")).isFalse();
+        assertThat(UploadValidationRules.isDrCrFlag("DC")).isFalse();
+    }
+}